@@ -0,0 +1,51 @@
+package com.stage3.index;
+
+import com.hazelcast.map.EntryProcessor;
+import com.hazelcast.nio.ObjectDataInput;
+import com.hazelcast.nio.ObjectDataOutput;
+import com.hazelcast.nio.serialization.DataSerializable;
+
+import java.io.IOException;
+import java.util.Map;
+
+/**
+ * Moves the CollectionStats counters by a delta (negative for deletes and
+ * books that shrank). Runs on the key's partition thread, so concurrent
+ * indexers add up without a lock.
+ */
+public final class AddCollectionStatsProcessor
+        implements EntryProcessor<String, CollectionStats, CollectionStats>, DataSerializable {
+
+    private long docs;
+    private long length;
+
+    public AddCollectionStatsProcessor() {
+    }
+
+    public AddCollectionStatsProcessor(long docs, long length) {
+        this.docs = docs;
+        this.length = length;
+    }
+
+    @Override
+    public CollectionStats process(Map.Entry<String, CollectionStats> entry) {
+        CollectionStats current = entry.getValue();
+        CollectionStats next = current == null
+                ? new CollectionStats(Math.max(0, docs), Math.max(0, length))
+                : new CollectionStats(Math.max(0, current.docCount() + docs), Math.max(0, current.totalLength() + length));
+        entry.setValue(next);
+        return next;
+    }
+
+    @Override
+    public void writeData(ObjectDataOutput out) throws IOException {
+        out.writeLong(docs);
+        out.writeLong(length);
+    }
+
+    @Override
+    public void readData(ObjectDataInput in) throws IOException {
+        docs = in.readLong();
+        length = in.readLong();
+    }
+}
@@ -0,0 +1,93 @@
+package com.stage3.index;
+
+import com.hazelcast.map.EntryProcessor;
+import com.hazelcast.nio.ObjectDataInput;
+import com.hazelcast.nio.ObjectDataOutput;
+import com.hazelcast.nio.serialization.DataSerializable;
+
+import java.io.IOException;
+import java.util.Arrays;
+import java.util.Map;
+
+/**
+ * Multi-book variant of AppendPostingsProcessor: appends the (bookId, tf)
+ * postings of several books at once, so bulk loads can fill one partition
+ * operation with many books instead of one. Keys are sorted, and the
+ * postings of keys[i] are bookIds/tfs[offsets[i] .. offsets[i + 1]).
+ */
+public final class AppendBooksProcessor implements EntryProcessor<Object, Postings, Void>, DataSerializable {
+
+    private Object[] keys;
+    private int[] offsets;
+    private int[] bookIds;
+    private int[] tfs;
+
+    public AppendBooksProcessor() {
+    }
+
+    /** Uses the first n (key, bookId, tf) triples, any order; a key may repeat for different books. */
+    public AppendBooksProcessor(Object[] keys, int[] bookIds, int[] tfs, int n) {
+        Integer[] order = new Integer[n];
+        for (int i = 0; i < n; i++) order[i] = i;
+        Arrays.sort(order, (a, b) -> {
+            int c = TermKeys.compare(keys[a], keys[b]);
+            return c != 0 ? c : Integer.compare(bookIds[a], bookIds[b]);
+        });
+
+        Object[] uniq = new Object[n];
+        int[] offs = new int[n + 1];
+        this.bookIds = new int[n];
+        this.tfs = new int[n];
+        int u = 0;
+        for (int k = 0; k < n; k++) {
+            int i = order[k];
+            if (u == 0 || !uniq[u - 1].equals(keys[i])) {
+                uniq[u] = keys[i];
+                offs[u++] = k;
+            }
+            this.bookIds[k] = bookIds[i];
+            this.tfs[k] = tfs[i];
+        }
+        offs[u] = n;
+        this.keys = Arrays.copyOf(uniq, u);
+        this.offsets = Arrays.copyOf(offs, u + 1);
+    }
+
+    /** Distinct keys of the batch, in sorted order. */
+    public Object[] keys() {
+        return keys;
+    }
+
+    @Override
+    public Void process(Map.Entry<Object, Postings> entry) {
+        int i = Arrays.binarySearch(keys, entry.getKey());
+        if (i < 0) {
+            return null;
+        }
+        Postings postings = entry.getValue();
+        if (postings == null) {
+            postings = new Postings();
+        }
+        for (int k = offsets[i]; k < offsets[i + 1]; k++) {
+            postings.put(bookIds[k], tfs[k]);
+        }
+        entry.setValue(postings);
+        return null;
+    }
+
+    @Override
+    public void writeData(ObjectDataOutput out) throws IOException {
+        TermKeys.write(out, keys);
+        out.writeIntArray(offsets);
+        out.writeIntArray(bookIds);
+        out.writeIntArray(tfs);
+    }
+
+    @Override
+    public void readData(ObjectDataInput in) throws IOException {
+        keys = TermKeys.read(in);
+        offsets = in.readIntArray();
+        bookIds = in.readIntArray();
+        tfs = in.readIntArray();
+    }
+}
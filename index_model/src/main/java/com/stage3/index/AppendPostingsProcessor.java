@@ -0,0 +1,74 @@
+package com.stage3.index;
+
+import com.hazelcast.map.EntryProcessor;
+import com.hazelcast.nio.ObjectDataInput;
+import com.hazelcast.nio.ObjectDataOutput;
+import com.hazelcast.nio.serialization.DataSerializable;
+
+import java.io.IOException;
+import java.util.Arrays;
+import java.util.Map;
+
+/**
+ * Appends one book's (bookId, tf) posting to every term it is applied to.
+ * Carries the tf of each term in the batch, so one processor instance can be
+ * submitted to all keys of a partition in a single operation.
+ * Keys (terms, or their TermDictionary ids, see PostingKeys) are kept sorted
+ * next to a parallel tf array; the member looks each key up with a binary
+ * search instead of rebuilding a boxed map.
+ */
+public final class AppendPostingsProcessor implements EntryProcessor<Object, Postings, Void>, DataSerializable {
+
+    private int bookId;
+    private Object[] keys;
+    private int[] tfs;
+
+    public AppendPostingsProcessor() {
+    }
+
+    /** Uses the first n entries of keys/tfs; keys must be distinct, any order. */
+    public AppendPostingsProcessor(int bookId, Object[] keys, int[] tfs, int n) {
+        this.bookId = bookId;
+        Integer[] order = TermKeys.order(keys, n);
+        this.keys = new Object[n];
+        this.tfs = new int[n];
+        for (int k = 0; k < n; k++) {
+            this.keys[k] = keys[order[k]];
+            this.tfs[k] = tfs[order[k]];
+        }
+    }
+
+    /** Keys of the batch, in sorted order. */
+    public Object[] keys() {
+        return keys;
+    }
+
+    @Override
+    public Void process(Map.Entry<Object, Postings> entry) {
+        int i = Arrays.binarySearch(keys, entry.getKey());
+        if (i < 0) {
+            return null;
+        }
+        Postings postings = entry.getValue();
+        if (postings == null) {
+            postings = new Postings();
+        }
+        postings.put(bookId, tfs[i]);
+        entry.setValue(postings);
+        return null;
+    }
+
+    @Override
+    public void writeData(ObjectDataOutput out) throws IOException {
+        out.writeInt(bookId);
+        TermKeys.write(out, keys);
+        out.writeIntArray(tfs);
+    }
+
+    @Override
+    public void readData(ObjectDataInput in) throws IOException {
+        bookId = in.readInt();
+        keys = TermKeys.read(in);
+        tfs = in.readIntArray();
+    }
+}
@@ -0,0 +1,73 @@
+package com.stage3.index;
+
+import com.hazelcast.map.EntryProcessor;
+import com.hazelcast.nio.ObjectDataInput;
+import com.hazelcast.nio.ObjectDataOutput;
+import com.hazelcast.nio.serialization.DataSerializable;
+
+import java.io.IOException;
+import java.util.Arrays;
+import java.util.Map;
+
+/**
+ * Stores a candidate id for every term that has none yet and returns, per
+ * term, the id that is in the dictionary afterwards. When two writers race on
+ * a new term, the first one wins and both get its id; the loser's candidate
+ * is simply never used.
+ */
+public final class AssignTermIdsProcessor implements EntryProcessor<String, Integer, Integer>, DataSerializable {
+
+    private String[] terms;
+    private int[] ids;
+
+    public AssignTermIdsProcessor() {
+    }
+
+    /** Uses the first n terms and their candidate ids; terms must be distinct, any order. */
+    public AssignTermIdsProcessor(String[] terms, int[] ids, int n) {
+        this.terms = Arrays.copyOf(terms, n);
+        Arrays.sort(this.terms);
+        this.ids = new int[n];
+        for (int i = 0; i < n; i++) {
+            this.ids[Arrays.binarySearch(this.terms, terms[i])] = ids[i];
+        }
+    }
+
+    /** Keys of the batch, in sorted order. */
+    public String[] terms() {
+        return terms;
+    }
+
+    @Override
+    public Integer process(Map.Entry<String, Integer> entry) {
+        if (entry.getValue() != null) {
+            return entry.getValue();
+        }
+        int i = Arrays.binarySearch(terms, entry.getKey());
+        if (i < 0) {
+            return null;
+        }
+        entry.setValue(ids[i]);
+        return ids[i];
+    }
+
+    @Override
+    public void writeData(ObjectDataOutput out) throws IOException {
+        out.writeInt(terms.length);
+        for (int i = 0; i < terms.length; i++) {
+            out.writeString(terms[i]);
+            out.writeInt(ids[i]);
+        }
+    }
+
+    @Override
+    public void readData(ObjectDataInput in) throws IOException {
+        int n = in.readInt();
+        terms = new String[n];
+        ids = new int[n];
+        for (int i = 0; i < n; i++) {
+            terms[i] = in.readString();
+            ids[i] = in.readInt();
+        }
+    }
+}
@@ -0,0 +1,60 @@
+package com.stage3.index;
+
+import com.hazelcast.nio.ObjectDataInput;
+import com.hazelcast.nio.ObjectDataOutput;
+import com.hazelcast.nio.serialization.DataSerializable;
+
+import java.io.IOException;
+
+/**
+ * Cluster-wide totals BM25 needs next to the per-book DocStats: how many
+ * books are indexed and how many tokens they have together. Kept up to date
+ * by AddCollectionStatsProcessor as books are indexed, reindexed and deleted.
+ */
+public final class CollectionStats implements DataSerializable {
+
+    /** IMap holding the single CollectionStats entry under KEY. */
+    public static final String MAP_NAME = "collection-stats";
+    public static final String KEY = "books";
+
+    private long docCount;
+    private long totalLength;
+
+    public CollectionStats() {
+    }
+
+    public CollectionStats(long docCount, long totalLength) {
+        this.docCount = docCount;
+        this.totalLength = totalLength;
+    }
+
+    public long docCount() {
+        return docCount;
+    }
+
+    public long totalLength() {
+        return totalLength;
+    }
+
+    /** Average book length in tokens, 0 for an empty collection. */
+    public double averageLength() {
+        return docCount > 0 ? (double) totalLength / docCount : 0.0;
+    }
+
+    @Override
+    public void writeData(ObjectDataOutput out) throws IOException {
+        out.writeLong(docCount);
+        out.writeLong(totalLength);
+    }
+
+    @Override
+    public void readData(ObjectDataInput in) throws IOException {
+        docCount = in.readLong();
+        totalLength = in.readLong();
+    }
+
+    @Override
+    public String toString() {
+        return "CollectionStats{docCount=" + docCount + ", totalLength=" + totalLength + "}";
+    }
+}
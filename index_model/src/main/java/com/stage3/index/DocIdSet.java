@@ -0,0 +1,434 @@
+package com.stage3.index;
+
+import com.hazelcast.nio.ObjectDataInput;
+import com.hazelcast.nio.ObjectDataOutput;
+import com.hazelcast.nio.serialization.DataSerializable;
+
+import java.io.IOException;
+import java.util.Arrays;
+import java.util.function.IntConsumer;
+
+/**
+ * Compressed set of book ids, Roaring style.
+ * Ids are split into 16-bit chunks by their high half; each chunk is stored either
+ * as a sorted char[] (up to 4096 ids, 2 bytes per id) or as a 65536-bit long[] bitmap
+ * (8 KB, used once a chunk gets dense). AND/OR work chunk by chunk on the raw containers.
+ */
+public final class DocIdSet implements DataSerializable {
+
+    static final int ARRAY_MAX = 4096;
+    private static final int BITMAP_WORDS = 1024;
+    private static final byte ARRAY = 0;
+    private static final byte BITMAP = 1;
+
+    private char[] keys;
+    // char[] (array container) or long[] (bitmap container), parallel to keys
+    private Object[] containers;
+    private int[] cards;
+    private int size;
+    private int cardinality;
+
+    public DocIdSet() {
+        this.keys = new char[2];
+        this.containers = new Object[2];
+        this.cards = new int[2];
+    }
+
+    public int cardinality() {
+        return cardinality;
+    }
+
+    public boolean isEmpty() {
+        return cardinality == 0;
+    }
+
+    public boolean contains(int id) {
+        int i = Arrays.binarySearch(keys, 0, size, high(id));
+        if (i < 0) return false;
+        Object c = containers[i];
+        char low = low(id);
+        if (c instanceof long[] bits) {
+            return (bits[low >>> 6] & (1L << low)) != 0;
+        }
+        return Arrays.binarySearch((char[]) c, 0, cards[i], low) >= 0;
+    }
+
+    /**
+     * Position of id in ascending order, or (-(insertion point) - 1) if absent,
+     * following the Arrays.binarySearch convention.
+     */
+    public int indexOf(int id) {
+        char high = high(id);
+        char low = low(id);
+        int before = 0;
+        for (int i = 0; i < size; i++) {
+            if (keys[i] < high) {
+                before += cards[i];
+                continue;
+            }
+            if (keys[i] > high) {
+                return -before - 1;
+            }
+            Object c = containers[i];
+            if (c instanceof long[] bits) {
+                int word = low >>> 6;
+                int rank = 0;
+                for (int w = 0; w < word; w++) {
+                    rank += Long.bitCount(bits[w]);
+                }
+                rank += Long.bitCount(bits[word] & ((1L << low) - 1));
+                boolean present = (bits[word] & (1L << low)) != 0;
+                return present ? before + rank : -(before + rank) - 1;
+            }
+            int pos = Arrays.binarySearch((char[]) c, 0, cards[i], low);
+            return pos >= 0 ? before + pos : pos - before;
+        }
+        return -before - 1;
+    }
+
+    /** Adds id, returns false if it was already present. */
+    public boolean add(int id) {
+        char high = high(id);
+        char low = low(id);
+        int i = Arrays.binarySearch(keys, 0, size, high);
+        if (i < 0) {
+            i = -i - 1;
+            insertContainer(i, high, new char[4], 0);
+        }
+        Object c = containers[i];
+        if (c instanceof long[] bits) {
+            long mask = 1L << low;
+            if ((bits[low >>> 6] & mask) != 0) return false;
+            bits[low >>> 6] |= mask;
+        } else {
+            char[] arr = (char[]) c;
+            int card = cards[i];
+            int pos = Arrays.binarySearch(arr, 0, card, low);
+            if (pos >= 0) return false;
+            if (card >= ARRAY_MAX) {
+                long[] bits = toBitmap(arr, card);
+                bits[low >>> 6] |= 1L << low;
+                containers[i] = bits;
+            } else {
+                pos = -pos - 1;
+                if (card == arr.length) {
+                    arr = Arrays.copyOf(arr, Math.min(ARRAY_MAX, card + (card >> 1) + 4));
+                    containers[i] = arr;
+                }
+                System.arraycopy(arr, pos, arr, pos + 1, card - pos);
+                arr[pos] = low;
+            }
+        }
+        cards[i]++;
+        cardinality++;
+        return true;
+    }
+
+    /** Removes id, returns false if it was not present. */
+    public boolean remove(int id) {
+        int i = Arrays.binarySearch(keys, 0, size, high(id));
+        if (i < 0) return false;
+        char low = low(id);
+        Object c = containers[i];
+        if (c instanceof long[] bits) {
+            long mask = 1L << low;
+            if ((bits[low >>> 6] & mask) == 0) return false;
+            bits[low >>> 6] &= ~mask;
+            if (cards[i] - 1 <= ARRAY_MAX) {
+                containers[i] = toArray(bits, cards[i] - 1);
+            }
+        } else {
+            char[] arr = (char[]) c;
+            int card = cards[i];
+            int pos = Arrays.binarySearch(arr, 0, card, low);
+            if (pos < 0) return false;
+            System.arraycopy(arr, pos + 1, arr, pos, card - pos - 1);
+        }
+        cardinality--;
+        if (--cards[i] == 0) {
+            removeContainer(i);
+        }
+        return true;
+    }
+
+    public void forEach(IntConsumer action) {
+        for (int i = 0; i < size; i++) {
+            int base = keys[i] << 16;
+            Object c = containers[i];
+            if (c instanceof long[] bits) {
+                for (int w = 0; w < BITMAP_WORDS; w++) {
+                    long word = bits[w];
+                    while (word != 0) {
+                        action.accept(base | (w << 6) | Long.numberOfTrailingZeros(word));
+                        word &= word - 1;
+                    }
+                }
+            } else {
+                char[] arr = (char[]) c;
+                for (int j = 0; j < cards[i]; j++) {
+                    action.accept(base | arr[j]);
+                }
+            }
+        }
+    }
+
+    public int[] toArray() {
+        int[] out = new int[cardinality];
+        int[] pos = {0};
+        forEach(id -> out[pos[0]++] = id);
+        return out;
+    }
+
+    public DocIdSet copy() {
+        DocIdSet copy = new DocIdSet();
+        copy.keys = Arrays.copyOf(keys, Math.max(2, size));
+        copy.containers = new Object[Math.max(2, size)];
+        copy.cards = Arrays.copyOf(cards, Math.max(2, size));
+        for (int i = 0; i < size; i++) {
+            Object c = containers[i];
+            copy.containers[i] = c instanceof long[] bits ? bits.clone() : ((char[]) c).clone();
+        }
+        copy.size = size;
+        copy.cardinality = cardinality;
+        return copy;
+    }
+
+    public static DocIdSet and(DocIdSet a, DocIdSet b) {
+        DocIdSet out = new DocIdSet();
+        int i = 0;
+        int j = 0;
+        while (i < a.size && j < b.size) {
+            if (a.keys[i] < b.keys[j]) {
+                i++;
+            } else if (a.keys[i] > b.keys[j]) {
+                j++;
+            } else {
+                out.appendAnd(a.keys[i], a.containers[i], a.cards[i], b.containers[j], b.cards[j]);
+                i++;
+                j++;
+            }
+        }
+        return out;
+    }
+
+    public static DocIdSet or(DocIdSet a, DocIdSet b) {
+        DocIdSet out = new DocIdSet();
+        int i = 0;
+        int j = 0;
+        while (i < a.size || j < b.size) {
+            if (j >= b.size || (i < a.size && a.keys[i] < b.keys[j])) {
+                out.appendCopy(a.keys[i], a.containers[i], a.cards[i]);
+                i++;
+            } else if (i >= a.size || a.keys[i] > b.keys[j]) {
+                out.appendCopy(b.keys[j], b.containers[j], b.cards[j]);
+                j++;
+            } else {
+                out.appendOr(a.keys[i], a.containers[i], a.cards[i], b.containers[j], b.cards[j]);
+                i++;
+                j++;
+            }
+        }
+        return out;
+    }
+
+    private void appendAnd(char key, Object ca, int cardA, Object cb, int cardB) {
+        if (ca instanceof long[] ba && cb instanceof long[] bb) {
+            long[] bits = new long[BITMAP_WORDS];
+            int card = 0;
+            for (int w = 0; w < BITMAP_WORDS; w++) {
+                bits[w] = ba[w] & bb[w];
+                card += Long.bitCount(bits[w]);
+            }
+            appendNormalized(key, bits, card);
+            return;
+        }
+        if (ca instanceof long[] || cb instanceof long[]) {
+            char[] arr = (char[]) (ca instanceof char[] ? ca : cb);
+            int n = ca instanceof char[] ? cardA : cardB;
+            long[] bits = (long[]) (ca instanceof long[] ? ca : cb);
+            char[] out = new char[n];
+            int card = 0;
+            for (int k = 0; k < n; k++) {
+                char v = arr[k];
+                if ((bits[v >>> 6] & (1L << v)) != 0) out[card++] = v;
+            }
+            if (card > 0) append(key, out, card);
+            return;
+        }
+        char[] a = (char[]) ca;
+        char[] b = (char[]) cb;
+        char[] out = new char[Math.min(cardA, cardB)];
+        int card = 0;
+        int i = 0;
+        int j = 0;
+        while (i < cardA && j < cardB) {
+            if (a[i] < b[j]) i++;
+            else if (a[i] > b[j]) j++;
+            else {
+                out[card++] = a[i];
+                i++;
+                j++;
+            }
+        }
+        if (card > 0) append(key, out, card);
+    }
+
+    private void appendOr(char key, Object ca, int cardA, Object cb, int cardB) {
+        if (ca instanceof char[] a && cb instanceof char[] b && cardA + cardB <= ARRAY_MAX) {
+            char[] out = new char[cardA + cardB];
+            int card = 0;
+            int i = 0;
+            int j = 0;
+            while (i < cardA || j < cardB) {
+                if (j >= cardB || (i < cardA && a[i] < b[j])) out[card++] = a[i++];
+                else if (i >= cardA || a[i] > b[j]) out[card++] = b[j++];
+                else {
+                    out[card++] = a[i];
+                    i++;
+                    j++;
+                }
+            }
+            append(key, out, card);
+            return;
+        }
+        long[] bits = ca instanceof long[] ba ? ba.clone() : toBitmap((char[]) ca, cardA);
+        if (cb instanceof long[] bb) {
+            for (int w = 0; w < BITMAP_WORDS; w++) bits[w] |= bb[w];
+        } else {
+            char[] b = (char[]) cb;
+            for (int k = 0; k < cardB; k++) bits[b[k] >>> 6] |= 1L << b[k];
+        }
+        int card = 0;
+        for (long w : bits) card += Long.bitCount(w);
+        appendNormalized(key, bits, card);
+    }
+
+    private void appendCopy(char key, Object c, int card) {
+        append(key, c instanceof long[] bits ? bits.clone() : Arrays.copyOf((char[]) c, card), card);
+    }
+
+    // Keeps sparse bitmap results as arrays so AND chains stay small
+    private void appendNormalized(char key, long[] bits, int card) {
+        if (card == 0) return;
+        if (card > ARRAY_MAX) {
+            append(key, bits, card);
+            return;
+        }
+        append(key, toArray(bits, card), card);
+    }
+
+    private void append(char key, Object container, int card) {
+        insertContainer(size, key, container, card);
+        cardinality += card;
+    }
+
+    private void insertContainer(int at, char key, Object container, int card) {
+        if (size == keys.length) {
+            int cap = size * 2;
+            keys = Arrays.copyOf(keys, cap);
+            containers = Arrays.copyOf(containers, cap);
+            cards = Arrays.copyOf(cards, cap);
+        }
+        System.arraycopy(keys, at, keys, at + 1, size - at);
+        System.arraycopy(containers, at, containers, at + 1, size - at);
+        System.arraycopy(cards, at, cards, at + 1, size - at);
+        keys[at] = key;
+        containers[at] = container;
+        cards[at] = card;
+        size++;
+    }
+
+    private void removeContainer(int at) {
+        System.arraycopy(keys, at + 1, keys, at, size - at - 1);
+        System.arraycopy(containers, at + 1, containers, at, size - at - 1);
+        System.arraycopy(cards, at + 1, cards, at, size - at - 1);
+        containers[--size] = null;
+    }
+
+    private static long[] toBitmap(char[] arr, int card) {
+        long[] bits = new long[BITMAP_WORDS];
+        for (int k = 0; k < card; k++) {
+            bits[arr[k] >>> 6] |= 1L << arr[k];
+        }
+        return bits;
+    }
+
+    private static char[] toArray(long[] bits, int card) {
+        char[] arr = new char[card];
+        int k = 0;
+        for (int w = 0; w < BITMAP_WORDS; w++) {
+            long word = bits[w];
+            while (word != 0) {
+                arr[k++] = (char) ((w << 6) | Long.numberOfTrailingZeros(word));
+                word &= word - 1;
+            }
+        }
+        return arr;
+    }
+
+    private static char high(int id) {
+        return (char) (id >>> 16);
+    }
+
+    private static char low(int id) {
+        return (char) id;
+    }
+
+    /** Bytes writeData produces for this set, computed from the container sizes. */
+    public int serializedSize() {
+        int bytes = 4;
+        for (int i = 0; i < size; i++) {
+            bytes += 7 + (containers[i] instanceof long[] ? 4 + BITMAP_WORDS * 8 : cards[i] * 2);
+        }
+        return bytes;
+    }
+
+    @Override
+    public void writeData(ObjectDataOutput out) throws IOException {
+        out.writeInt(size);
+        for (int i = 0; i < size; i++) {
+            out.writeChar(keys[i]);
+            out.writeInt(cards[i]);
+            Object c = containers[i];
+            if (c instanceof long[] bits) {
+                out.writeByte(BITMAP);
+                out.writeLongArray(bits);
+            } else {
+                out.writeByte(ARRAY);
+                char[] arr = (char[]) c;
+                for (int k = 0; k < cards[i]; k++) {
+                    out.writeChar(arr[k]);
+                }
+            }
+        }
+    }
+
+    @Override
+    public void readData(ObjectDataInput in) throws IOException {
+        int n = in.readInt();
+        keys = new char[Math.max(2, n)];
+        containers = new Object[Math.max(2, n)];
+        cards = new int[Math.max(2, n)];
+        cardinality = 0;
+        for (int i = 0; i < n; i++) {
+            keys[i] = in.readChar();
+            cards[i] = in.readInt();
+            if (in.readByte() == BITMAP) {
+                containers[i] = in.readLongArray();
+            } else {
+                char[] arr = new char[cards[i]];
+                for (int k = 0; k < arr.length; k++) {
+                    arr[k] = in.readChar();
+                }
+                containers[i] = arr;
+            }
+            cardinality += cards[i];
+        }
+        size = n;
+    }
+
+    @Override
+    public String toString() {
+        return "DocIdSet{cardinality=" + cardinality + ", containers=" + size + "}";
+    }
+}
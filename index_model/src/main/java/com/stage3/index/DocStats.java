@@ -0,0 +1,96 @@
+package com.stage3.index;
+
+import com.hazelcast.nio.ObjectDataInput;
+import com.hazelcast.nio.ObjectDataOutput;
+import com.hazelcast.nio.serialization.DataSerializable;
+
+import java.io.IOException;
+
+/**
+ * Length statistics of one indexed book, as BM25 needs them: the number of
+ * tokens, the number of distinct terms and a one-byte length norm.
+ *
+ * The norm is the length in a small float format (3 mantissa bits, exact up
+ * to 24 tokens, within 1/8 above), so a query can precompute the BM25 length
+ * factor for all 256 norms once and score each book with a table lookup.
+ */
+public final class DocStats implements DataSerializable {
+
+    /** IMap of bookId -> DocStats. */
+    public static final String MAP_NAME = "doc-stats";
+
+    // codes below this are lengths as is; above, 4-bit floats of (length - this)
+    private static final int EXACT = 255 - int4(Integer.MAX_VALUE);
+
+    private int length;
+    private int uniqueTerms;
+    private byte norm;
+
+    public DocStats() {
+    }
+
+    public DocStats(int length, int uniqueTerms) {
+        this.length = length;
+        this.uniqueTerms = uniqueTerms;
+        this.norm = encodeLength(length);
+    }
+
+    /** Tokens in the book. */
+    public int length() {
+        return length;
+    }
+
+    public int uniqueTerms() {
+        return uniqueTerms;
+    }
+
+    /** Encoded length, see decodeLength. */
+    public byte norm() {
+        return norm;
+    }
+
+    /** Lossy one-byte encoding of a length; decodeLength(encodeLength(n)) <= n. */
+    public static byte encodeLength(int length) {
+        if (length < 0) throw new IllegalArgumentException("negative length " + length);
+        return (byte) (length < EXACT ? length : EXACT + int4(length - EXACT));
+    }
+
+    public static int decodeLength(byte norm) {
+        int code = Byte.toUnsignedInt(norm);
+        return code < EXACT ? code : EXACT + int4ToInt(code - EXACT);
+    }
+
+    // 4 significant bits with an implicit leading one, the shift in the upper bits
+    private static int int4(int n) {
+        int bits = 32 - Integer.numberOfLeadingZeros(n);
+        if (bits < 4) {
+            return n;
+        }
+        int shift = bits - 4;
+        return (n >>> shift) & 0x07 | (shift + 1) << 3;
+    }
+
+    private static int int4ToInt(int code) {
+        int shift = (code >>> 3) - 1;
+        return shift < 0 ? code & 0x07 : (code & 0x07 | 0x08) << shift;
+    }
+
+    @Override
+    public void writeData(ObjectDataOutput out) throws IOException {
+        out.writeInt(length);
+        out.writeInt(uniqueTerms);
+        out.writeByte(norm);
+    }
+
+    @Override
+    public void readData(ObjectDataInput in) throws IOException {
+        length = in.readInt();
+        uniqueTerms = in.readInt();
+        norm = in.readByte();
+    }
+
+    @Override
+    public String toString() {
+        return "DocStats{length=" + length + ", uniqueTerms=" + uniqueTerms + "}";
+    }
+}
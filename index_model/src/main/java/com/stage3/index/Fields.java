@@ -0,0 +1,18 @@
+package com.stage3.index;
+
+/**
+ * Field bits of the "field-index" map. Its Postings list, per term id, the
+ * books whose title or author contains the term, and the "tf" slot of each
+ * posting holds these bits instead of a count. Body matches stay in
+ * "inverted-index" (which also counts the header), so the field postings
+ * only ever add a boost.
+ */
+public final class Fields {
+
+    public static final String MAP_NAME = "field-index";
+
+    public static final int TITLE = 1;
+    public static final int AUTHOR = 2;
+
+    private Fields() {}
+}
@@ -0,0 +1,29 @@
+package com.stage3.index;
+
+import java.util.List;
+
+/**
+ * Classes the Hazelcast members need to run the index entry processors.
+ * Clients that write postings register these for user code deployment.
+ */
+public final class GridClasses {
+
+    public static final List<Class<?>> ALL = List.of(
+            Varint.class,
+            DocIdSet.class,
+            Postings.class,
+            Postings.PostingConsumer.class,
+            TermKeys.class,
+            AppendPostingsProcessor.class,
+            AppendBooksProcessor.class,
+            RemovePostingsProcessor.class,
+            ReserveTermIdsProcessor.class,
+            AssignTermIdsProcessor.class,
+            DocStats.class,
+            CollectionStats.class,
+            PutDocStatsProcessor.class,
+            AddCollectionStatsProcessor.class
+    );
+
+    private GridClasses() {}
+}
@@ -0,0 +1,78 @@
+package com.stage3.index;
+
+import com.hazelcast.core.HazelcastInstance;
+
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.Map;
+
+/**
+ * How "inverted-index" and "field-index" are keyed. By default the key is the
+ * term itself. With INDEX_TERM_IDS=true it is the term's TermDictionary id,
+ * which makes posting writes smaller but costs more member memory: a
+ * "term-ids" entry is larger than the string bytes it takes out of the key.
+ * Indexers and search services must use the same setting.
+ */
+public final class PostingKeys {
+
+    public static final String ENV = "INDEX_TERM_IDS";
+
+    private static final PostingKeys BY_TERM = new PostingKeys(null);
+
+    // null when postings are keyed by the term
+    private final TermDictionary dictionary;
+
+    private PostingKeys(TermDictionary dictionary) {
+        this.dictionary = dictionary;
+    }
+
+    public static PostingKeys byTerm() {
+        return BY_TERM;
+    }
+
+    public static PostingKeys byId(TermDictionary dictionary) {
+        return new PostingKeys(dictionary);
+    }
+
+    /** Keyed by id through the instance's shared dictionary if INDEX_TERM_IDS=true, else by term. */
+    public static PostingKeys fromEnv(HazelcastInstance hz) {
+        return Boolean.parseBoolean(System.getenv(ENV)) ? byId(TermDictionary.shared(hz)) : BY_TERM;
+    }
+
+    /** The dictionary behind the ids, null when postings are keyed by term. */
+    public TermDictionary dictionary() {
+        return dictionary;
+    }
+
+    /** Key of term, null if it cannot have postings yet. */
+    public Object keyOf(String term) {
+        if (dictionary == null) {
+            return term;
+        }
+        int id = dictionary.idOf(term);
+        return id < 0 ? null : id;
+    }
+
+    /** Keys of those terms that can have postings; uncached ids are looked up with one getAll. */
+    public Map<String, Object> keysOf(Collection<String> terms) {
+        Map<String, Object> out = new HashMap<>(terms.size() * 2);
+        if (dictionary == null) {
+            for (String term : terms) out.put(term, term);
+        } else {
+            out.putAll(dictionary.idsOf(terms));
+        }
+        return out;
+    }
+
+    /** Keys of the first n terms, assigning ids to terms the dictionary does not have yet. */
+    public Object[] assign(String[] terms, int n) {
+        Object[] keys = new Object[n];
+        if (dictionary == null) {
+            System.arraycopy(terms, 0, keys, 0, n);
+            return keys;
+        }
+        int[] ids = dictionary.assign(terms, n);
+        for (int i = 0; i < n; i++) keys[i] = ids[i];
+        return keys;
+    }
+}
@@ -0,0 +1,121 @@
+package com.stage3.index;
+
+import com.hazelcast.nio.ObjectDataInput;
+import com.hazelcast.nio.ObjectDataOutput;
+import com.hazelcast.nio.serialization.DataSerializable;
+
+import java.io.IOException;
+import java.util.Arrays;
+
+/**
+ * Posting list of one term: a compressed DocIdSet of book ids plus the tf of
+ * each book, stored in book-id order (tfs[i] belongs to the i-th smallest id).
+ * tfs are serialized as varints, so a posting costs about 3 bytes on the wire
+ * and in the member's binary store, and about 2 bytes for very common terms.
+ */
+public final class Postings implements DataSerializable {
+
+    private DocIdSet docs;
+    private int[] tfs;
+
+    public Postings() {
+        this.docs = new DocIdSet();
+        this.tfs = new int[4];
+    }
+
+    public int size() {
+        return docs.cardinality();
+    }
+
+    public boolean isEmpty() {
+        return docs.isEmpty();
+    }
+
+    /** Book ids of this posting list; shared, do not modify. */
+    public DocIdSet docs() {
+        return docs;
+    }
+
+    /** Term frequency of bookId in this posting list, 0 if the book is not in it. */
+    public int tfOf(int bookId) {
+        int i = docs.indexOf(bookId);
+        return i >= 0 ? tfs[i] : 0;
+    }
+
+    public boolean contains(int bookId) {
+        return docs.contains(bookId);
+    }
+
+    /** Adds or replaces the posting for bookId. */
+    public void put(int bookId, int tf) {
+        int i = docs.indexOf(bookId);
+        if (i >= 0) {
+            tfs[i] = tf;
+            return;
+        }
+        int at = -i - 1;
+        int size = docs.cardinality();
+        if (size == tfs.length) {
+            tfs = Arrays.copyOf(tfs, Math.max(4, size + (size >> 1)));
+        }
+        System.arraycopy(tfs, at, tfs, at + 1, size - at);
+        tfs[at] = tf;
+        docs.add(bookId);
+    }
+
+    /** Removes the posting for bookId, returns false if the book was not in the list. */
+    public boolean remove(int bookId) {
+        int i = docs.indexOf(bookId);
+        if (i < 0) {
+            return false;
+        }
+        System.arraycopy(tfs, i + 1, tfs, i, docs.cardinality() - i - 1);
+        docs.remove(bookId);
+        return true;
+    }
+
+    /** Calls action for every (bookId, tf) pair in book-id order. */
+    public void forEach(PostingConsumer action) {
+        int[] i = {0};
+        docs.forEach(bookId -> action.accept(bookId, tfs[i[0]++]));
+    }
+
+    public int[] bookIds() {
+        return docs.toArray();
+    }
+
+    @Override
+    public void writeData(ObjectDataOutput out) throws IOException {
+        int size = docs.cardinality();
+        byte[] buf = new byte[size * 5];
+        int pos = 0;
+        for (int i = 0; i < size; i++) {
+            pos = Varint.write(buf, pos, tfs[i]);
+        }
+        docs.writeData(out);
+        out.writeByteArray(Arrays.copyOf(buf, pos));
+    }
+
+    @Override
+    public void readData(ObjectDataInput in) throws IOException {
+        docs = new DocIdSet();
+        docs.readData(in);
+        byte[] buf = in.readByteArray();
+        int size = docs.cardinality();
+        tfs = new int[Math.max(4, size)];
+        int[] pos = {0};
+        for (int i = 0; i < size; i++) {
+            tfs[i] = Varint.read(buf, pos);
+        }
+    }
+
+    @Override
+    public String toString() {
+        return "Postings{size=" + size() + "}";
+    }
+
+    @FunctionalInterface
+    public interface PostingConsumer {
+        void accept(int bookId, int tf);
+    }
+}
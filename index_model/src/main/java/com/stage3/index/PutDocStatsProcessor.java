@@ -0,0 +1,72 @@
+package com.stage3.index;
+
+import com.hazelcast.map.EntryProcessor;
+import com.hazelcast.nio.ObjectDataInput;
+import com.hazelcast.nio.ObjectDataOutput;
+import com.hazelcast.nio.serialization.DataSerializable;
+
+import java.io.IOException;
+import java.util.Arrays;
+import java.util.Map;
+
+/**
+ * Stores the DocStats of a batch of books and returns, per book, the length
+ * it replaced (-1 if the book had no stats), which is what the caller needs
+ * to move the collection totals by the exact difference.
+ * Book ids are kept sorted next to parallel length/unique-term arrays.
+ */
+public final class PutDocStatsProcessor implements EntryProcessor<Integer, DocStats, Integer>, DataSerializable {
+
+    private int[] bookIds;
+    private int[] lengths;
+    private int[] uniqueTerms;
+
+    public PutDocStatsProcessor() {
+    }
+
+    /** Uses the first n entries; book ids must be distinct, any order. */
+    public PutDocStatsProcessor(int[] bookIds, int[] lengths, int[] uniqueTerms, int n) {
+        Integer[] order = new Integer[n];
+        for (int i = 0; i < n; i++) order[i] = i;
+        Arrays.sort(order, (a, b) -> Integer.compare(bookIds[a], bookIds[b]));
+        this.bookIds = new int[n];
+        this.lengths = new int[n];
+        this.uniqueTerms = new int[n];
+        for (int k = 0; k < n; k++) {
+            int i = order[k];
+            this.bookIds[k] = bookIds[i];
+            this.lengths[k] = lengths[i];
+            this.uniqueTerms[k] = uniqueTerms[i];
+        }
+    }
+
+    /** Keys of the batch, in sorted order. */
+    public int[] bookIds() {
+        return bookIds;
+    }
+
+    @Override
+    public Integer process(Map.Entry<Integer, DocStats> entry) {
+        int i = Arrays.binarySearch(bookIds, entry.getKey());
+        if (i < 0) {
+            return null;
+        }
+        DocStats previous = entry.getValue();
+        entry.setValue(new DocStats(lengths[i], uniqueTerms[i]));
+        return previous == null ? -1 : previous.length();
+    }
+
+    @Override
+    public void writeData(ObjectDataOutput out) throws IOException {
+        out.writeIntArray(bookIds);
+        out.writeIntArray(lengths);
+        out.writeIntArray(uniqueTerms);
+    }
+
+    @Override
+    public void readData(ObjectDataInput in) throws IOException {
+        bookIds = in.readIntArray();
+        lengths = in.readIntArray();
+        uniqueTerms = in.readIntArray();
+    }
+}
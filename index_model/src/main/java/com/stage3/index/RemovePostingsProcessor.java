@@ -0,0 +1,79 @@
+package com.stage3.index;
+
+import com.hazelcast.map.EntryProcessor;
+import com.hazelcast.nio.ObjectDataInput;
+import com.hazelcast.nio.ObjectDataOutput;
+import com.hazelcast.nio.serialization.DataSerializable;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.util.Arrays;
+import java.util.Map;
+
+/**
+ * Removes one book's posting from every term it is applied to, the
+ * counterpart of AppendPostingsProcessor for reindexing and deletes.
+ * A posting list that becomes empty is removed from the map.
+ * Returns, per key, the serialized bytes the removal freed (posting, and the
+ * key and empty list when the entry goes away), 0 if the book was not there.
+ */
+public final class RemovePostingsProcessor implements EntryProcessor<Object, Postings, Long>, DataSerializable {
+
+    // Serialized size of an empty Postings: container count + empty tf array length
+    private static final int EMPTY_POSTINGS_BYTES = 8;
+
+    private int bookId;
+    private Object[] keys;
+
+    public RemovePostingsProcessor() {
+    }
+
+    /** Uses the first n keys, any order. */
+    public RemovePostingsProcessor(int bookId, Object[] keys, int n) {
+        this.bookId = bookId;
+        this.keys = Arrays.copyOf(keys, n);
+        Arrays.sort(this.keys);
+    }
+
+    /** Keys of the batch, in sorted order. */
+    public Object[] keys() {
+        return keys;
+    }
+
+    @Override
+    public Long process(Map.Entry<Object, Postings> entry) {
+        Postings postings = entry.getValue();
+        if (postings == null || Arrays.binarySearch(keys, entry.getKey()) < 0) {
+            return 0L;
+        }
+        int docsBefore = postings.docs().serializedSize();
+        int tf = postings.tfOf(bookId);
+        if (!postings.remove(bookId)) {
+            return 0L;
+        }
+        long freed = docsBefore - postings.docs().serializedSize() + Varint.size(tf);
+        if (postings.isEmpty()) {
+            freed += EMPTY_POSTINGS_BYTES + keyBytes(entry.getKey());
+            entry.setValue(null);
+        } else {
+            entry.setValue(postings);
+        }
+        return freed;
+    }
+
+    private static int keyBytes(Object key) {
+        return key instanceof String term ? term.getBytes(StandardCharsets.UTF_8).length : Integer.BYTES;
+    }
+
+    @Override
+    public void writeData(ObjectDataOutput out) throws IOException {
+        out.writeInt(bookId);
+        TermKeys.write(out, keys);
+    }
+
+    @Override
+    public void readData(ObjectDataInput in) throws IOException {
+        bookId = in.readInt();
+        keys = TermKeys.read(in);
+    }
+}
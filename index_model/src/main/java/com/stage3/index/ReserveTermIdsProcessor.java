@@ -0,0 +1,43 @@
+package com.stage3.index;
+
+import com.hazelcast.map.EntryProcessor;
+import com.hazelcast.nio.ObjectDataInput;
+import com.hazelcast.nio.ObjectDataOutput;
+import com.hazelcast.nio.serialization.DataSerializable;
+
+import java.io.IOException;
+import java.util.Map;
+
+/**
+ * Reserves count consecutive sequence numbers from one partition's term id
+ * sequence and returns the first. Runs on the partition thread of the
+ * sequence key, so concurrent reservations never overlap and need no lock.
+ */
+public final class ReserveTermIdsProcessor implements EntryProcessor<Integer, Integer, Integer>, DataSerializable {
+
+    private int count;
+
+    public ReserveTermIdsProcessor() {
+    }
+
+    public ReserveTermIdsProcessor(int count) {
+        this.count = count;
+    }
+
+    @Override
+    public Integer process(Map.Entry<Integer, Integer> entry) {
+        int first = entry.getValue() == null ? 0 : entry.getValue();
+        entry.setValue(first + count);
+        return first;
+    }
+
+    @Override
+    public void writeData(ObjectDataOutput out) throws IOException {
+        out.writeInt(count);
+    }
+
+    @Override
+    public void readData(ObjectDataInput in) throws IOException {
+        count = in.readInt();
+    }
+}
@@ -0,0 +1,224 @@
+package com.stage3.index;
+
+import com.hazelcast.core.HazelcastInstance;
+import com.hazelcast.core.LifecycleEvent;
+import com.hazelcast.map.IMap;
+import com.hazelcast.partition.PartitionService;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Cluster-wide term <-> int id dictionary, so postings are keyed by a 4-byte
+ * id instead of the term string.
+ *
+ * Ids are handed out per partition without a global counter: the new terms of
+ * a write are grouped by the partition that owns them in "term-ids", each group
+ * reserves a range from that partition's own sequence (ReserveTermIdsProcessor),
+ * and sequence s of partition p becomes id s * partitionCount + p. Two writers
+ * racing on the same new term are settled by AssignTermIdsProcessor, the
+ * first id stored wins. Ids are never reused and terms are never removed,
+ * which is what lets every service cache them locally; the cache is dropped
+ * wholesale once it exceeds maxCached entries.
+ *
+ * A restarted cluster starts both maps over, though, and hands the same ids
+ * to other terms. The cache is therefore also dropped whenever the instance
+ * loses or changes its cluster (client disconnect, reconnect, cluster change,
+ * split-brain merge), and a lookup that raced with that is not cached.
+ */
+public final class TermDictionary {
+
+    public static final String MAP_NAME = "term-ids";
+    public static final String SEQUENCE_MAP_NAME = "term-id-sequences";
+    public static final int DEFAULT_MAX_CACHED = 1 << 20;
+
+    // Same bound as InvertedIndexStore, one pending call per partition batch
+    private static final int MAX_IN_FLIGHT = 32;
+
+    private final IMap<String, Integer> ids;
+    private final IMap<Integer, Integer> sequences;
+    private final PartitionService partitions;
+    private final int partitionCount;
+    private final int maxCached;
+    private final ConcurrentHashMap<String, Integer> cache = new ConcurrentHashMap<>();
+    // bumped by clear(); a lookup only caches what it read in the same generation
+    private final AtomicInteger generation = new AtomicInteger();
+
+    private static final ConcurrentHashMap<HazelcastInstance, TermDictionary> SHARED = new ConcurrentHashMap<>();
+
+    public TermDictionary(HazelcastInstance hz) {
+        this(hz, DEFAULT_MAX_CACHED);
+    }
+
+    public TermDictionary(HazelcastInstance hz, int maxCached) {
+        this.ids = hz.getMap(MAP_NAME);
+        this.sequences = hz.getMap(SEQUENCE_MAP_NAME);
+        this.partitions = hz.getPartitionService();
+        this.partitionCount = partitions.getPartitions().size();
+        this.maxCached = maxCached;
+        hz.getLifecycleService().addLifecycleListener(event -> {
+            if (dropsIds(event.getState())) {
+                clear();
+            }
+        });
+    }
+
+    /** One dictionary (and cache) per instance, for callers that have no place to keep their own. */
+    public static TermDictionary shared(HazelcastInstance hz) {
+        return SHARED.computeIfAbsent(hz, instance -> {
+            instance.getLifecycleService().addLifecycleListener(event -> {
+                if (event.getState() == LifecycleEvent.LifecycleState.SHUTDOWN) {
+                    SHARED.remove(instance);
+                }
+            });
+            return new TermDictionary(instance);
+        });
+    }
+
+    /** Id of term, -1 if no book has had it yet. */
+    public int idOf(String term) {
+        Integer id = cache.get(term);
+        if (id == null) {
+            int gen = generation.get();
+            id = ids.get(term);
+            if (id == null) {
+                return -1;
+            }
+            remember(term, id, gen);
+        }
+        return id;
+    }
+
+    /** Ids of those terms that are in the dictionary, looked up with one getAll for the uncached ones. */
+    public Map<String, Integer> idsOf(Collection<String> terms) {
+        Map<String, Integer> out = new HashMap<>(terms.size() * 2);
+        Set<String> missing = new HashSet<>();
+        for (String term : terms) {
+            Integer id = cache.get(term);
+            if (id != null) {
+                out.put(term, id);
+            } else {
+                missing.add(term);
+            }
+        }
+        if (!missing.isEmpty()) {
+            int gen = generation.get();
+            Map<String, Integer> found = ids.getAll(missing);
+            found.forEach((term, id) -> remember(term, id, gen));
+            out.putAll(found);
+        }
+        return out;
+    }
+
+    /**
+     * Ids of the first n terms, assigning ids to terms the dictionary does not
+     * have yet; out[i] is the id of terms[i]. Terms may repeat.
+     */
+    public int[] assign(String[] terms, int n) {
+        int[] out = new int[n];
+        Set<String> missing = new HashSet<>();
+        for (int i = 0; i < n; i++) {
+            Integer id = cache.get(terms[i]);
+            if (id != null) {
+                out[i] = id;
+            } else {
+                out[i] = -1;
+                missing.add(terms[i]);
+            }
+        }
+        if (missing.isEmpty()) {
+            return out;
+        }
+
+        int gen = generation.get();
+        Map<String, Integer> found = new HashMap<>(ids.getAll(missing));
+        missing.removeAll(found.keySet());
+        if (!missing.isEmpty()) {
+            found.putAll(create(missing));
+        }
+        found.forEach((term, id) -> remember(term, id, gen));
+        for (int i = 0; i < n; i++) {
+            if (out[i] < 0) {
+                out[i] = found.get(terms[i]);
+            }
+        }
+        return out;
+    }
+
+    /** Terms currently cached by this service. */
+    public int cached() {
+        return cache.size();
+    }
+
+    /** Drops the cached ids, e.g. when the ids in the grid may have been started over. */
+    public void clear() {
+        generation.incrementAndGet();
+        cache.clear();
+    }
+
+    private static boolean dropsIds(LifecycleEvent.LifecycleState state) {
+        return switch (state) {
+            case CLIENT_DISCONNECTED, CLIENT_CONNECTED, CLIENT_CHANGED_CLUSTER, MERGED -> true;
+            default -> false;
+        };
+    }
+
+    private Map<String, Integer> create(Set<String> terms) {
+        Map<Integer, List<String>> byPartition = new HashMap<>();
+        for (String term : terms) {
+            int partitionId = partitions.getPartition(term).getPartitionId();
+            byPartition.computeIfAbsent(partitionId, p -> new ArrayList<>()).add(term);
+        }
+
+        Map<String, Integer> assigned = new ConcurrentHashMap<>(terms.size() * 2);
+        List<CompletableFuture<?>> inFlight = new ArrayList<>(MAX_IN_FLIGHT);
+        for (Map.Entry<Integer, List<String>> e : byPartition.entrySet()) {
+            int partitionId = e.getKey();
+            String[] batch = e.getValue().toArray(new String[0]);
+            inFlight.add(sequences.submitToKey(partitionId, new ReserveTermIdsProcessor(batch.length))
+                    .thenCompose(first -> {
+                        if ((long) (first + batch.length) * partitionCount > Integer.MAX_VALUE) {
+                            throw new IllegalStateException("term id space of partition " + partitionId + " exhausted");
+                        }
+                        int[] candidates = new int[batch.length];
+                        for (int i = 0; i < batch.length; i++) {
+                            candidates[i] = (first + i) * partitionCount + partitionId;
+                        }
+                        AssignTermIdsProcessor processor = new AssignTermIdsProcessor(batch, candidates, batch.length);
+                        return ids.submitToKeys(Set.of(processor.terms()), processor);
+                    })
+                    .thenAccept(assigned::putAll)
+                    .toCompletableFuture());
+            if (inFlight.size() >= MAX_IN_FLIGHT) {
+                awaitAll(inFlight);
+            }
+        }
+        awaitAll(inFlight);
+        return assigned;
+    }
+
+    private void remember(String term, int id, int gen) {
+        if (cache.size() >= maxCached) {
+            cache.clear();
+        }
+        cache.put(term, id);
+        if (generation.get() != gen) {
+            // cleared while the ids were read, they may be from the old cluster
+            cache.remove(term, id);
+        }
+    }
+
+    private static void awaitAll(List<CompletableFuture<?>> futures) {
+        if (futures.isEmpty()) return;
+        CompletableFuture.allOf(futures.toArray(new CompletableFuture[0])).join();
+        futures.clear();
+    }
+}
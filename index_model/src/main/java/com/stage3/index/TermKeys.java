@@ -0,0 +1,56 @@
+package com.stage3.index;
+
+import com.hazelcast.nio.ObjectDataInput;
+import com.hazelcast.nio.ObjectDataOutput;
+
+import java.io.IOException;
+import java.util.Arrays;
+
+/**
+ * Keys of a posting processor batch: term strings, or TermDictionary ids
+ * when the index is keyed by id (see PostingKeys). A batch never mixes the
+ * two. Id batches go over the wire as one int array.
+ */
+final class TermKeys {
+
+    private TermKeys() {}
+
+    /** Positions of the first n keys, in key order. */
+    static Integer[] order(Object[] keys, int n) {
+        Integer[] order = new Integer[n];
+        for (int i = 0; i < n; i++) order[i] = i;
+        Arrays.sort(order, (a, b) -> compare(keys[a], keys[b]));
+        return order;
+    }
+
+    @SuppressWarnings("unchecked")
+    static int compare(Object a, Object b) {
+        return ((Comparable<Object>) a).compareTo(b);
+    }
+
+    static void write(ObjectDataOutput out, Object[] keys) throws IOException {
+        boolean ids = keys.length > 0 && keys[0] instanceof Integer;
+        out.writeBoolean(ids);
+        if (ids) {
+            int[] termIds = new int[keys.length];
+            for (int i = 0; i < keys.length; i++) termIds[i] = (Integer) keys[i];
+            out.writeIntArray(termIds);
+        } else {
+            out.writeInt(keys.length);
+            for (Object key : keys) out.writeString((String) key);
+        }
+    }
+
+    static Object[] read(ObjectDataInput in) throws IOException {
+        Object[] keys;
+        if (in.readBoolean()) {
+            int[] termIds = in.readIntArray();
+            keys = new Object[termIds.length];
+            for (int i = 0; i < termIds.length; i++) keys[i] = termIds[i];
+        } else {
+            keys = new Object[in.readInt()];
+            for (int i = 0; i < keys.length; i++) keys[i] = in.readString();
+        }
+        return keys;
+    }
+}
@@ -0,0 +1,38 @@
+package com.stage3.index;
+
+/**
+ * Unsigned LEB128 varints for non-negative ints.
+ */
+final class Varint {
+
+    private Varint() {}
+
+    static int write(byte[] buf, int pos, int value) {
+        while ((value & ~0x7F) != 0) {
+            buf[pos++] = (byte) ((value & 0x7F) | 0x80);
+            value >>>= 7;
+        }
+        buf[pos++] = (byte) value;
+        return pos;
+    }
+
+    /** Encoded length of value in bytes. */
+    static int size(int value) {
+        return value < 0 ? 5 : (38 - Integer.numberOfLeadingZeros(value | 1)) / 7;
+    }
+
+    /** Reads one varint at pos[0] and advances it. */
+    static int read(byte[] buf, int[] pos) {
+        int p = pos[0];
+        int value = 0;
+        int shift = 0;
+        byte b;
+        do {
+            b = buf[p++];
+            value |= (b & 0x7F) << shift;
+            shift += 7;
+        } while ((b & 0x80) != 0);
+        pos[0] = p;
+        return value;
+    }
+}
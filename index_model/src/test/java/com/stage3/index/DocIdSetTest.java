@@ -0,0 +1,118 @@
+package com.stage3.index;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.Random;
+import java.util.TreeSet;
+
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+public final class DocIdSetTest {
+
+    @Test
+    void indexOfFollowsSortedOrderAcrossArrayAndBitmapContainers() {
+        DocIdSet set = new DocIdSet();
+        TreeSet<Integer> expected = new TreeSet<>();
+        Random rnd = new Random(1);
+        // first chunk goes dense (bitmap), second stays sparse (array)
+        for (int i = 0; i < 6000; i++) {
+            int id = rnd.nextInt(65_536);
+            assertEquals(expected.add(id), set.add(id));
+        }
+        for (int i = 0; i < 300; i++) {
+            int id = 65_536 + rnd.nextInt(10_000);
+            assertEquals(expected.add(id), set.add(id));
+        }
+
+        assertEquals(expected.size(), set.cardinality());
+        assertArrayEquals(expected.stream().mapToInt(Integer::intValue).toArray(), set.toArray());
+
+        int pos = 0;
+        for (int id : expected) {
+            assertEquals(pos++, set.indexOf(id));
+        }
+        int absent = 65_536 + 10_001;
+        assertFalse(set.contains(absent));
+        assertEquals(-expected.size() - 1, set.indexOf(absent));
+    }
+
+    @Test
+    void andOrMatchSetSemantics() {
+        Random rnd = new Random(2);
+        DocIdSet a = new DocIdSet();
+        DocIdSet b = new DocIdSet();
+        TreeSet<Integer> sa = new TreeSet<>();
+        TreeSet<Integer> sb = new TreeSet<>();
+        for (int i = 0; i < 8000; i++) {
+            int x = rnd.nextInt(100_000);
+            a.add(x);
+            sa.add(x);
+            int y = rnd.nextInt(40_000);
+            b.add(y);
+            sb.add(y);
+        }
+
+        TreeSet<Integer> and = new TreeSet<>(sa);
+        and.retainAll(sb);
+        TreeSet<Integer> or = new TreeSet<>(sa);
+        or.addAll(sb);
+
+        assertArrayEquals(and.stream().mapToInt(Integer::intValue).toArray(), DocIdSet.and(a, b).toArray());
+        assertArrayEquals(or.stream().mapToInt(Integer::intValue).toArray(), DocIdSet.or(a, b).toArray());
+        assertTrue(DocIdSet.and(a, new DocIdSet()).isEmpty());
+    }
+
+    @Test
+    void postingsKeepTfAlignedWithBookIds() {
+        Postings postings = new Postings();
+        postings.put(70_000, 3);
+        postings.put(5, 1);
+        postings.put(42, 7);
+        postings.put(5, 2);
+
+        assertEquals(3, postings.size());
+        assertEquals(2, postings.tfOf(5));
+        assertEquals(7, postings.tfOf(42));
+        assertEquals(3, postings.tfOf(70_000));
+        assertEquals(0, postings.tfOf(43));
+        assertArrayEquals(new int[]{5, 42, 70_000}, postings.bookIds());
+    }
+
+    @Test
+    void removeShrinksBitmapsAndDropsEmptyChunks() {
+        DocIdSet set = new DocIdSet();
+        TreeSet<Integer> expected = new TreeSet<>();
+        for (int id = 0; id < 5000; id++) {
+            set.add(id);
+            expected.add(id);
+        }
+        set.add(200_000);
+        expected.add(200_000);
+
+        for (int id = 0; id < 5000; id += 3) {
+            assertTrue(set.remove(id));
+            expected.remove(id);
+        }
+        assertFalse(set.remove(0));
+        assertTrue(set.remove(200_000));
+        expected.remove(200_000);
+
+        assertEquals(expected.size(), set.cardinality());
+        assertArrayEquals(expected.stream().mapToInt(Integer::intValue).toArray(), set.toArray());
+        assertFalse(set.contains(200_000));
+        assertEquals(-expected.size() - 1, set.indexOf(200_000));
+
+        Postings postings = new Postings();
+        postings.put(1, 4);
+        postings.put(9, 5);
+        postings.put(70_000, 6);
+        assertTrue(postings.remove(9));
+        assertFalse(postings.remove(9));
+        assertEquals(4, postings.tfOf(1));
+        assertEquals(6, postings.tfOf(70_000));
+        assertArrayEquals(new int[]{1, 70_000}, postings.bookIds());
+    }
+}
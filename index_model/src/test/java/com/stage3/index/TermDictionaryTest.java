@@ -0,0 +1,84 @@
+package com.stage3.index;
+
+import com.hazelcast.client.HazelcastClient;
+import com.hazelcast.client.config.ClientConfig;
+import com.hazelcast.config.Config;
+import com.hazelcast.core.Hazelcast;
+import com.hazelcast.core.HazelcastInstance;
+import org.junit.jupiter.api.Test;
+
+import java.util.UUID;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNotEquals;
+import static org.junit.jupiter.api.Assertions.assertSame;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+public final class TermDictionaryTest {
+
+    private static final String CLUSTER = "term-dictionary-test";
+    private static final int PORT = 5851;
+
+    @Test
+    void restartedClusterDropsCachedIds() throws Exception {
+        HazelcastInstance member = member();
+        HazelcastInstance client = null;
+        try {
+            ClientConfig clientConfig = new ClientConfig();
+            clientConfig.setClusterName(CLUSTER);
+            clientConfig.getNetworkConfig().addAddress("127.0.0.1:" + PORT);
+            clientConfig.getConnectionStrategyConfig().getConnectionRetryConfig()
+                    .setInitialBackoffMillis(100)
+                    .setMaxBackoffMillis(500)
+                    .setClusterConnectTimeoutMillis(60_000);
+            client = HazelcastClient.newHazelcastClient(clientConfig);
+
+            TermDictionary dictionary = TermDictionary.shared(client);
+            assertSame(dictionary, TermDictionary.shared(client));
+            int whale = dictionary.assign(new String[] {"whale"}, 1)[0];
+            assertEquals(whale, dictionary.idOf("whale"));
+            assertEquals(1, dictionary.cached());
+
+            // a new cluster on the same address starts the ids over
+            member.shutdown();
+            member = member();
+            UUID restarted = member.getCluster().getLocalMember().getUuid();
+            long deadline = System.nanoTime() + TimeUnit.SECONDS.toNanos(60);
+            while (client.getCluster().getMembers().stream().noneMatch(m -> m.getUuid().equals(restarted))) {
+                assertTrue(System.nanoTime() < deadline, "client did not reconnect");
+                Thread.sleep(50);
+            }
+            // lifecycle events are fired on another thread
+            deadline = System.nanoTime() + TimeUnit.SECONDS.toNanos(5);
+            while (dictionary.cached() > 0) {
+                assertTrue(System.nanoTime() < deadline, "cached ids survived the restart");
+                Thread.sleep(50);
+            }
+
+            // another term of whale's partition gets the id whale had
+            int partition = member.getPartitionService().getPartition("whale").getPartitionId();
+            String other = "t0";
+            for (int i = 1; member.getPartitionService().getPartition(other).getPartitionId() != partition; i++) {
+                other = "t" + i;
+            }
+            int otherId = new TermDictionary(member).assign(new String[] {other}, 1)[0];
+            assertEquals(whale, otherId);
+            assertEquals(-1, dictionary.idOf("whale"));
+            assertEquals(otherId, dictionary.idOf(other));
+            assertNotEquals(whale, dictionary.assign(new String[] {"whale"}, 1)[0]);
+        } finally {
+            if (client != null) client.shutdown();
+            member.shutdown();
+        }
+    }
+
+    private static HazelcastInstance member() {
+        Config config = new Config();
+        config.setClusterName(CLUSTER);
+        config.getNetworkConfig().setPort(PORT).setPortAutoIncrement(false);
+        config.getNetworkConfig().getJoin().getMulticastConfig().setEnabled(false);
+        config.getNetworkConfig().getJoin().getTcpIpConfig().setEnabled(false);
+        return Hazelcast.newHazelcastInstance(config);
+    }
+}
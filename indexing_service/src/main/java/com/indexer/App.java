@@ -6,13 +6,22 @@ import com.indexer.hz.HazelcastClientProvider;
 import com.indexer.hz.HazelcastProvider;
 import com.indexer.index.*;
 import com.indexer.messaging.ActiveMqIndexer;
+import com.indexer.messaging.ConsumerSettings;
+import com.indexer.web.ConsumerController;
 import com.indexer.web.IndexController;
 import com.indexer.web.MetadataController;
+import com.indexer.web.ReadinessController;
+import com.stage3.index.PostingKeys;
+import com.stage3.messaging.ActiveMqPublisher;
+import com.stage3.text.Analyzer;
 import io.javalin.Javalin;
 
 import java.io.IOException;
 import java.nio.file.Files;
 import java.nio.file.Path;
+import java.time.Duration;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ForkJoinPool;
 
 public final class App {
 
@@ -26,6 +35,18 @@ public final class App {
         String hzMembers = System.getenv().getOrDefault("HZ_MEMBERS", "");
         String hzCluster = System.getenv().getOrDefault("HZ_CLUSTER", "stage3");
         String hzNode = System.getenv().getOrDefault("NODE_ID", "indexer-" + port);
+        int loaderThreads = Integer.parseInt(System.getenv().getOrDefault(
+                "INDEX_LOADER_THREADS", String.valueOf(Runtime.getRuntime().availableProcessors())));
+        // interleave: consume ingest/reindex events while loading; defer: only after the load finished
+        String queuePolicy = System.getenv().getOrDefault("QUEUE_WHILE_LOADING", "interleave");
+        String fingerprint = System.getenv().getOrDefault("FINGERPRINT", "xxh64");
+        boolean jsonExport = Boolean.parseBoolean(System.getenv().getOrDefault("INDEX_JSON_EXPORT", "false"));
+        // window in which a finished run absorbs duplicate events cluster-wide, 0 = only join runs on this node
+        long coalesceWindowMs = Long.parseLong(System.getenv().getOrDefault("INDEXER_COALESCE_WINDOW_MS", "10000"));
+        int jobThreads = Integer.parseInt(System.getenv().getOrDefault(
+                "INDEX_JOB_THREADS", String.valueOf(Runtime.getRuntime().availableProcessors())));
+        int publisherChannels = Integer.parseInt(System.getenv().getOrDefault("ACTIVEMQ_PUBLISHER_CHANNELS", "4"));
+        boolean asyncSend = Boolean.parseBoolean(System.getenv().getOrDefault("ACTIVEMQ_ASYNC_SEND", "false"));
 
         HazelcastClientProvider clientProvider = null;
         HazelcastProvider memberProvider = null;
@@ -36,16 +57,29 @@ public final class App {
         }
         var hzInstance = (clientProvider != null) ? clientProvider.instance() : memberProvider.instance();
 
-        InvertedIndexStore invertedIndex = new InvertedIndexStore(hzInstance);
+        InvertedIndexStore invertedIndex = new InvertedIndexStore(hzInstance, PostingKeys.fromEnv(hzInstance));
         ClaimStore claimStore = new ClaimStore(hzInstance);
         IndexedStore indexedStore = new IndexedStore(hzInstance);
         DocumentMetadataStore metadataStore = new DocumentMetadataStore(hzInstance);
+        DocStatsStore docStats = new DocStatsStore(hzInstance);
 
         Gson gson = new Gson();
         BookParser bookParser = new BookParser(gson);
-        Tokenizer tokenizer = new Tokenizer();
+        // vector: SIMD ASCII fast path of the analyzer, needs JDK_JAVA_OPTIONS=--add-modules=jdk.incubator.vector
+        if ("vector".equalsIgnoreCase(System.getenv().getOrDefault("ANALYZER_BACKEND", "scalar"))) {
+            System.out.println(Analyzer.enableVectorBackend()
+                    ? "[INDEXING-SERVICE] Analyzer: vector backend"
+                    : "[INDEXING-SERVICE] Analyzer: jdk.incubator.vector not available, using the scalar backend");
+        }
+        // books from this lake file size on are counted in segments on a fork/join pool, 0 = never
+        long parallelTokenizeBytes = Long.parseLong(System.getenv().getOrDefault(
+                "INDEX_PARALLEL_TOKENIZE_BYTES", String.valueOf(Tokenizer.DEFAULT_PARALLEL_THRESHOLD_BYTES)));
+        int tokenizeThreads = intEnv("INDEX_TOKENIZE_THREADS", Runtime.getRuntime().availableProcessors());
+        ForkJoinPool tokenizePool = parallelTokenizeBytes > 0 ? new ForkJoinPool(Math.max(1, tokenizeThreads)) : null;
+        Tokenizer tokenizer = new Tokenizer(tokenizePool, parallelTokenizeBytes > 0 ? parallelTokenizeBytes : Long.MAX_VALUE);
 
         PathResolver resolver = new PathResolver(lakeRoot);
+        IndexManifest manifest = new IndexManifest(indexRoot, hzNode);
         IndexService indexService = new IndexService(
                 resolver,
                 indexRoot,
@@ -53,35 +87,60 @@ public final class App {
                 invertedIndex,
                 indexedStore,
                 metadataStore,
+                docStats,
                 hzNode,
                 bookParser,
-                tokenizer
+                tokenizer,
+                manifest,
+                Fingerprint.forName(fingerprint),
+                jsonExport
         );
 
-        IndexController indexController = new IndexController(gson, indexService);
+        IndexPipeline pipeline = null;
+        if (Boolean.parseBoolean(System.getenv().getOrDefault("INDEX_PIPELINE", "false"))) {
+            IndexPipeline.Config d = IndexPipeline.Config.defaults();
+            pipeline = new IndexPipeline(indexService, new IndexPipeline.Config(
+                    intEnv("INDEX_PIPELINE_READ_THREADS", d.readThreads()),
+                    intEnv("INDEX_PIPELINE_ANALYZE_THREADS", d.analyzeThreads()),
+                    intEnv("INDEX_PIPELINE_PUBLISH_THREADS", d.publishThreads()),
+                    intEnv("INDEX_PIPELINE_PERSIST_THREADS", d.persistThreads()),
+                    intEnv("INDEX_PIPELINE_QUEUE", d.queueCapacity())
+            ));
+            // the job pool only feeds the pipeline
+            jobThreads = 1;
+        }
+        IndexJobs indexJobs = new IndexJobs(indexService, jobThreads, pipeline);
+        IndexController indexController = new IndexController(gson, indexService, indexJobs);
         MetadataController metadataController = new MetadataController(gson, metadataStore);
 
+        IndexCoalescer coalescer = new IndexCoalescer(indexService, indexedStore, Duration.ofMillis(coalesceWindowMs));
         ActiveMqIndexer mqIndexer = new ActiveMqIndexer(
                 gson,
                 indexService,
+                coalescer,
                 brokerUrl,
                 queueName,
                 reindexQueue,
-                indexedQueue,
-                hzNode
+                new ActiveMqPublisher(brokerUrl, indexedQueue, publisherChannels, asyncSend),
+                hzNode,
+                ConsumerSettings.fromEnv()
         );
 
-        // Load existing index files into Hazelcast on startup
-        IndexLoader indexLoader = new IndexLoader(indexRoot, invertedIndex, indexedStore, gson);
-        System.out.println("[INDEXING-SERVICE] Loading existing indexes into Hazelcast...");
-        int loadedCount = indexLoader.loadAll();
-        System.out.println("[INDEXING-SERVICE] Loaded " + loadedCount + " existing indexes");
+        IndexLoader indexLoader = new IndexLoader(indexRoot, invertedIndex, docStats, indexedStore, claimStore, gson,
+                manifest, loaderThreads);
 
         Javalin app = Javalin.create(cfg -> cfg.http.defaultContentType = "application/json");
 
-        // /health + /index
+        // /health + /index + /index/batch
         indexController.registerRoutes(app);
         metadataController.registerRoutes(app);
+        new ConsumerController(gson, mqIndexer, coalescer).registerRoutes(app);
+
+        // Load existing index files into Hazelcast in the background, /ready reports progress
+        System.out.println("[INDEXING-SERVICE] Loading existing indexes into Hazelcast in the background...");
+        CompletableFuture<Integer> loading = indexLoader.loadAllAsync();
+        loading.thenAccept(n -> System.out.println("[INDEXING-SERVICE] Loaded " + n + " existing indexes"));
+        new ReadinessController(gson, indexLoader, loading).registerRoutes(app);
 
         // optional smoke endpoint
         app.post("/hz/smoke", ctx -> {
@@ -91,11 +150,12 @@ public final class App {
 
             invertedIndex.put(term, id);
 
+            var postings = invertedIndex.get(term);
             ctx.result(gson.toJson(java.util.Map.of(
                     "status", "ok",
                     "term", term,
                     "count", invertedIndex.valueCount(term),
-                    "docs", invertedIndex.get(term)
+                    "docs", postings != null ? postings.bookIds() : new int[0]
             )));
         });
 
@@ -103,6 +163,10 @@ public final class App {
         final HazelcastProvider memberProviderFinal = memberProvider;
         app.events(ev -> ev.serverStopping(() -> {
             mqIndexer.close();
+            indexJobs.close();
+            if (tokenizePool != null) {
+                tokenizePool.shutdownNow();
+            }
             if (clientProviderFinal != null) {
                 clientProviderFinal.shutdown();
             } else if (memberProviderFinal != null) {
@@ -110,11 +174,20 @@ public final class App {
             }
         }));
 
-        mqIndexer.start();
         app.start("0.0.0.0", port);
+        if ("defer".equalsIgnoreCase(queuePolicy)) {
+            System.out.println("[INDEXING-SERVICE] Queue consumption deferred until index load completes");
+            loading.whenComplete((n, e) -> mqIndexer.start());
+        } else {
+            mqIndexer.start();
+        }
         return app;
     }
 
+    private static int intEnv(String name, int fallback) {
+        return Integer.parseInt(System.getenv().getOrDefault(name, String.valueOf(fallback)));
+    }
+
     private static void ensureDirExists(Path dir) {
         if (Files.exists(dir)) return;
         try {
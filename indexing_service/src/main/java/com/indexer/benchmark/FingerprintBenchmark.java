@@ -0,0 +1,94 @@
+package com.indexer.benchmark;
+
+import com.google.gson.Gson;
+import com.google.gson.GsonBuilder;
+import com.indexer.core.BookParser;
+import com.indexer.core.Fingerprint;
+import com.indexer.core.Sha256Fingerprint;
+import com.indexer.core.XxHash64Fingerprint;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.security.MessageDigest;
+import java.util.HexFormat;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Cost of the "is this book unchanged?" check on a re-delivered event:
+ * the old parse + combinedText + SHA-256 path vs. fingerprinting the raw file
+ * bytes with SHA-256 or XXH64.
+ *
+ * java -jar target/benchmarks.jar FingerprintBenchmark -prof gc
+ * java -jar target/benchmarks.jar FingerprintBenchmark -p bookPath=data_repository/datalake_node1/.../1342.json
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class FingerprintBenchmark {
+
+    @Param({""})
+    public String bookPath;
+
+    private Path file;
+    private boolean temp;
+    private BookParser parser;
+    private final Fingerprint sha256 = new Sha256Fingerprint();
+    private final Fingerprint xxh64 = new XxHash64Fingerprint();
+
+    @Setup
+    public void setUp() throws Exception {
+        parser = new BookParser(new Gson());
+        if (!bookPath.isEmpty()) {
+            file = Path.of(bookPath);
+            return;
+        }
+        Map<String, String> book = new LinkedHashMap<>();
+        book.put("footer", "End of the Project Gutenberg EBook");
+        book.put("header", "Title: Synthetic Book\nAuthor: Nobody");
+        book.put("id", "1");
+        book.put("content", TokenizerBenchmark.syntheticText(2_000_000));
+        file = Files.createTempFile("fingerprint-bench-", ".json");
+        Files.writeString(file, new GsonBuilder().setPrettyPrinting().create().toJson(book), StandardCharsets.UTF_8);
+        temp = true;
+    }
+
+    @TearDown
+    public void tearDown() throws Exception {
+        if (temp) Files.deleteIfExists(file);
+    }
+
+    @Benchmark
+    public String legacyParseSha256() throws Exception {
+        String text = parser.parse(file).combinedText();
+        MessageDigest md = MessageDigest.getInstance("SHA-256");
+        return HexFormat.of().formatHex(md.digest(text.getBytes(StandardCharsets.UTF_8)));
+    }
+
+    @Benchmark
+    public String rawSha256() throws Exception {
+        return sha256.of(file);
+    }
+
+    @Benchmark
+    public String rawXxh64() throws Exception {
+        return xxh64.of(file);
+    }
+}
@@ -0,0 +1,132 @@
+package com.indexer.benchmark;
+
+import com.google.gson.Gson;
+import com.indexer.core.IndexFileWriter;
+import com.indexer.core.IndexSegment;
+import com.indexer.core.TermCounter;
+
+import java.io.IOException;
+import java.nio.file.DirectoryStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.Random;
+import java.util.Set;
+import java.util.stream.Stream;
+
+/**
+ * Startup load cost of the index directory, .index.json vs. binary .idx segments.
+ * Writes a synthetic corpus in both formats and times reading every file back
+ * into TermCounters the way IndexLoader does (grid writes excluded, they are
+ * the same for both formats).
+ *
+ * java -cp target/benchmarks.jar com.indexer.benchmark.IndexLoadReport [books] [uniqueTermsPerBook]
+ */
+public final class IndexLoadReport {
+
+    private static final int VOCABULARY = 200_000;
+    private static final int ROUNDS = 3;
+
+    public static void main(String[] args) throws Exception {
+        int books = args.length > 0 ? Integer.parseInt(args[0]) : 10_000;
+        int uniqueTerms = args.length > 1 ? Integer.parseInt(args[1]) : 2_000;
+
+        Path root = Files.createTempDirectory("index-load-report-");
+        Path jsonDir = Files.createDirectories(root.resolve("json"));
+        Path binDir = Files.createDirectories(root.resolve("bin"));
+        Gson gson = new Gson();
+
+        try {
+            System.out.printf("Corpus: %d books, %d unique terms per book%n", books, uniqueTerms);
+            double[] zipf = zipfCdf(VOCABULARY);
+            String[] words = vocabulary(VOCABULARY);
+            Random rnd = new Random(42);
+            for (int bookId = 1; bookId <= books; bookId++) {
+                TermCounter counts = bookTerms(rnd, zipf, words, uniqueTerms);
+                String hash = Long.toHexString(rnd.nextLong());
+
+                Map<String, Object> file = new LinkedHashMap<>();
+                file.put("bookId", bookId);
+                file.put("sourceBookId", String.valueOf(bookId));
+                file.put("lakePath", "20260101/00/" + bookId + ".json");
+                file.put("tokensTotal", counts.total());
+                file.put("termsUnique", counts.size());
+                file.put("hash", hash);
+                file.put("terms", counts);
+                IndexFileWriter.writePrettyWithBlankLines(IndexSegment.jsonPath(jsonDir, bookId), file);
+
+                new IndexSegment(bookId, hash, counts.total(), String.valueOf(bookId),
+                        "20260101/00/" + bookId + ".json", counts).write(IndexSegment.binaryPath(binDir, bookId));
+            }
+
+            System.out.printf("%-28s %14s %14s%n", "", ".index.json", ".idx");
+            System.out.printf("%-28s %,14d %,14d%n", "bytes on disk", dirSize(jsonDir), dirSize(binDir));
+            for (int round = 1; round <= ROUNDS; round++) {
+                long t0 = System.nanoTime();
+                long jsonTerms = 0;
+                try (DirectoryStream<Path> ds = Files.newDirectoryStream(jsonDir)) {
+                    for (Path p : ds) jsonTerms += IndexSegment.readJson(p, gson).terms().size();
+                }
+                long t1 = System.nanoTime();
+                long binTerms = 0;
+                try (DirectoryStream<Path> ds = Files.newDirectoryStream(binDir)) {
+                    for (Path p : ds) binTerms += IndexSegment.read(p).terms().size();
+                }
+                long t2 = System.nanoTime();
+                if (jsonTerms != binTerms) throw new IllegalStateException("term count mismatch");
+                System.out.printf("%-28s %,14d %,14d%n", "load ms (round " + round + ")",
+                        (t1 - t0) / 1_000_000, (t2 - t1) / 1_000_000);
+            }
+        } finally {
+            try (Stream<Path> walk = Files.walk(root)) {
+                walk.sorted(Comparator.reverseOrder()).forEach(p -> p.toFile().delete());
+            }
+        }
+    }
+
+    private static long dirSize(Path dir) throws IOException {
+        try (Stream<Path> files = Files.list(dir)) {
+            return files.mapToLong(p -> p.toFile().length()).sum();
+        }
+    }
+
+    // Pseudo-words, 2-10 letters, so the term dictionary has realistic prefixes
+    private static String[] vocabulary(int n) {
+        Random rnd = new Random(1);
+        Set<String> seen = new HashSet<>();
+        String[] out = new String[n];
+        int i = 0;
+        while (i < n) {
+            int len = 2 + Math.min(8, (int) Math.abs(rnd.nextGaussian() * 3) + i * 4 / n);
+            StringBuilder sb = new StringBuilder(len);
+            for (int k = 0; k < len; k++) sb.append((char) ('a' + rnd.nextInt(26)));
+            if (seen.add(sb.toString())) out[i++] = sb.toString();
+        }
+        return out;
+    }
+
+    private static TermCounter bookTerms(Random rnd, double[] cdf, String[] words, int uniqueTerms) {
+        TermCounter counts = new TermCounter(uniqueTerms);
+        while (counts.size() < uniqueTerms) {
+            int idx = Arrays.binarySearch(cdf, rnd.nextDouble());
+            int rank = idx >= 0 ? idx : Math.min(-idx - 1, cdf.length - 1);
+            counts.add(words[rank], 1 + rnd.nextInt(3));
+        }
+        return counts;
+    }
+
+    private static double[] zipfCdf(int n) {
+        double[] cdf = new double[n];
+        double sum = 0;
+        for (int i = 0; i < n; i++) {
+            sum += 1.0 / (i + 1);
+            cdf[i] = sum;
+        }
+        for (int i = 0; i < n; i++) cdf[i] /= sum;
+        return cdf;
+    }
+}
@@ -0,0 +1,121 @@
+package com.indexer.benchmark;
+
+import com.google.gson.Gson;
+import com.indexer.core.BookParser;
+import com.indexer.core.TermCounter;
+import com.indexer.core.Tokenizer;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Arrays;
+import java.util.Map;
+import java.util.Random;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Parse + tokenize + count of one large book (streamed from a lake json file):
+ * serial Analyzer pass vs. segments counted on a ForkJoinPool and merged.
+ * The words follow a Zipf distribution over a 100k vocabulary, so the merge
+ * of the per-segment counters is part of the cost.
+ *
+ * java -jar target/benchmarks.jar ParallelTokenizeBenchmark -p megabytes=32 -p threads=4
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class ParallelTokenizeBenchmark {
+
+    private static final int VOCABULARY = 100_000;
+
+    @Param({"16"})
+    public int megabytes;
+
+    @Param({"0"})
+    public int threads;
+
+    private Path book;
+    private long size;
+    private BookParser parser;
+    private Tokenizer serial;
+    private Tokenizer parallel;
+    private ForkJoinPool pool;
+
+    @Setup(Level.Trial)
+    public void setUp() throws Exception {
+        book = Files.createTempFile("parallel-tokenize-", ".json");
+        Files.writeString(book, new Gson().toJson(Map.of(
+                "id", "1",
+                "header", "Collected Works",
+                "content", zipfText(megabytes << 20),
+                "footer", "End"
+        )));
+        size = Files.size(book);
+        parser = new BookParser(new Gson());
+        pool = new ForkJoinPool(threads > 0 ? threads : Runtime.getRuntime().availableProcessors());
+        serial = new Tokenizer();
+        parallel = new Tokenizer(pool, 0);
+
+        TermCounter a = serial();
+        TermCounter b = parallel();
+        if (a.total() != b.total() || a.size() != b.size() || !a.toMap().equals(b.toMap())) {
+            throw new IllegalStateException("parallel counts differ from serial counts");
+        }
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() throws Exception {
+        pool.shutdownNow();
+        Files.deleteIfExists(book);
+    }
+
+    @Benchmark
+    public TermCounter serial() throws Exception {
+        Tokenizer.Counting counting = serial.counting(size);
+        parser.stream(book, counting);
+        return counting.counts();
+    }
+
+    @Benchmark
+    public TermCounter parallel() throws Exception {
+        Tokenizer.Counting counting = parallel.counting(size);
+        parser.stream(book, counting);
+        return counting.counts();
+    }
+
+    private static String zipfText(int chars) {
+        double[] cdf = new double[VOCABULARY];
+        double sum = 0;
+        for (int i = 0; i < VOCABULARY; i++) {
+            sum += 1.0 / (i + 1);
+            cdf[i] = sum;
+        }
+        for (int i = 0; i < VOCABULARY; i++) cdf[i] /= sum;
+
+        Random rnd = new Random(7);
+        StringBuilder sb = new StringBuilder(chars + 32);
+        while (sb.length() < chars) {
+            int idx = Arrays.binarySearch(cdf, rnd.nextDouble());
+            sb.append("word").append(idx < 0 ? -idx - 1 : idx);
+            int r = rnd.nextInt(20);
+            sb.append(r == 0 ? ".\n" : r == 1 ? ", " : " ");
+        }
+        return sb.toString();
+    }
+}
@@ -0,0 +1,185 @@
+package com.indexer.benchmark;
+
+import com.google.gson.Gson;
+import com.hazelcast.config.Config;
+import com.hazelcast.core.DistributedObject;
+import com.hazelcast.core.Hazelcast;
+import com.hazelcast.core.HazelcastInstance;
+import com.hazelcast.map.IMap;
+import com.indexer.core.BookParser;
+import com.indexer.core.IndexManifest;
+import com.indexer.core.IndexPipeline;
+import com.indexer.core.IndexService;
+import com.indexer.core.PathResolver;
+import com.indexer.core.StagedPipeline;
+import com.indexer.core.Tokenizer;
+import com.indexer.core.XxHash64Fingerprint;
+import com.indexer.dto.IndexResponse;
+import com.indexer.index.ClaimStore;
+import com.indexer.index.DocStatsStore;
+import com.indexer.index.DocumentMetadataStore;
+import com.indexer.index.IndexedStore;
+import com.indexer.index.InvertedIndexStore;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.stream.Stream;
+
+/**
+ * End-to-end indexing throughput (books/sec) of the single-call path, one
+ * IndexService.index per worker thread as IndexJobs runs it, against the
+ * staged IndexPipeline, on a synthetic lake and an embedded Hazelcast member.
+ * Every round starts from empty maps and an empty index directory, so both
+ * paths do the full parse, grid and disk work for every book.
+ *
+ * java -cp target/benchmarks.jar com.indexer.benchmark.PipelineReport [books] [wordsPerBook] [threads]
+ */
+public final class PipelineReport {
+
+    private static final int VOCABULARY = 50_000;
+    private static final int ROUNDS = 3;
+
+    public static void main(String[] args) throws Exception {
+        int books = args.length > 0 ? Integer.parseInt(args[0]) : 2_000;
+        int words = args.length > 1 ? Integer.parseInt(args[1]) : 20_000;
+        int threads = args.length > 2 ? Integer.parseInt(args[2]) : Runtime.getRuntime().availableProcessors();
+
+        Config config = new Config();
+        config.setClusterName("pipeline-report");
+        config.getNetworkConfig().getJoin().getMulticastConfig().setEnabled(false);
+        config.getNetworkConfig().getJoin().getTcpIpConfig().setEnabled(false);
+        HazelcastInstance hz = Hazelcast.newHazelcastInstance(config);
+
+        Path root = Files.createTempDirectory("pipeline-report-");
+        try {
+            Path lake = Files.createDirectories(root.resolve("lake"));
+            List<String> lakePaths = writeLake(lake, books, words);
+            System.out.printf("Lake: %d books, %d words per book, %d threads for the single-call path%n",
+                    books, words, threads);
+
+            for (int round = 1; round <= ROUNDS; round++) {
+                double serial = run(hz, lake, root.resolve("serial-" + round), lakePaths,
+                        svc -> serial(svc, lakePaths, threads));
+                double staged = run(hz, lake, root.resolve("pipeline-" + round), lakePaths,
+                        svc -> pipelined(svc, lakePaths));
+                System.out.printf("round %d: single-call %,8.1f books/s   pipeline %,8.1f books/s   (%.2fx)%n",
+                        round, serial, staged, staged / serial);
+            }
+        } finally {
+            hz.shutdown();
+            deleteTree(root);
+        }
+    }
+
+    private interface Mode {
+        List<IndexResponse> index(IndexService svc) throws Exception;
+    }
+
+    private static double run(HazelcastInstance hz, Path lake, Path indexRoot, List<String> lakePaths, Mode mode)
+            throws Exception {
+        for (DistributedObject o : hz.getDistributedObjects()) {
+            if (o instanceof IMap<?, ?> map) map.clear();
+        }
+        IndexService svc = new IndexService(
+                new PathResolver(lake),
+                indexRoot,
+                new ClaimStore(hz),
+                new InvertedIndexStore(hz),
+                new IndexedStore(hz),
+                new DocumentMetadataStore(hz),
+                new DocStatsStore(hz),
+                "report",
+                new BookParser(new Gson()),
+                new Tokenizer(),
+                new IndexManifest(Files.createDirectories(indexRoot), "report"),
+                new XxHash64Fingerprint(),
+                false
+        );
+        long t0 = System.nanoTime();
+        List<IndexResponse> responses = mode.index(svc);
+        double seconds = (System.nanoTime() - t0) / 1e9;
+        long ok = responses.stream().filter(r -> "ok".equals(r.status())).count();
+        if (ok != lakePaths.size()) {
+            throw new IllegalStateException(ok + " of " + lakePaths.size() + " books indexed");
+        }
+        return lakePaths.size() / seconds;
+    }
+
+    private static List<IndexResponse> serial(IndexService svc, List<String> lakePaths, int threads) throws Exception {
+        ExecutorService pool = Executors.newFixedThreadPool(threads);
+        try {
+            List<Future<IndexResponse>> futures = new ArrayList<>();
+            for (String p : lakePaths) futures.add(pool.submit(() -> svc.index(p, false)));
+            List<IndexResponse> out = new ArrayList<>();
+            for (Future<IndexResponse> f : futures) out.add(f.get());
+            return out;
+        } finally {
+            pool.shutdownNow();
+        }
+    }
+
+    private static List<IndexResponse> pipelined(IndexService svc, List<String> lakePaths) throws Exception {
+        try (IndexPipeline pipeline = new IndexPipeline(svc, IndexPipeline.Config.defaults())) {
+            List<CompletableFuture<IndexResponse>> futures = new ArrayList<>();
+            for (String p : lakePaths) futures.add(pipeline.submit(p, false));
+            List<IndexResponse> out = new ArrayList<>();
+            for (CompletableFuture<IndexResponse> f : futures) out.add(f.get());
+            for (StagedPipeline.StageStats s : pipeline.stats()) {
+                System.out.printf("  %-8s threads %2d  avg service %,8d us  avg queue %,8d us%n",
+                        s.stage(), s.threads(), s.avgServiceMicros(), s.avgQueueMicros());
+            }
+            return out;
+        }
+    }
+
+    private static List<String> writeLake(Path lake, int books, int words) throws IOException {
+        double[] cdf = zipfCdf(VOCABULARY);
+        Random rnd = new Random(42);
+        Gson gson = new Gson();
+        List<String> paths = new ArrayList<>(books);
+        for (int bookId = 1; bookId <= books; bookId++) {
+            StringBuilder content = new StringBuilder(words * 8);
+            for (int i = 0; i < words; i++) {
+                int idx = Arrays.binarySearch(cdf, rnd.nextDouble());
+                content.append('w').append(idx < 0 ? -idx - 1 : idx).append(' ');
+            }
+            String name = bookId + ".json";
+            Files.writeString(lake.resolve(name), gson.toJson(Map.of(
+                    "id", String.valueOf(bookId),
+                    "header", "Book " + bookId,
+                    "content", content.toString(),
+                    "footer", "End"
+            )));
+            paths.add(name);
+        }
+        return paths;
+    }
+
+    private static double[] zipfCdf(int n) {
+        double[] cdf = new double[n];
+        double sum = 0;
+        for (int i = 0; i < n; i++) {
+            sum += 1.0 / (i + 1);
+            cdf[i] = sum;
+        }
+        for (int i = 0; i < n; i++) cdf[i] /= sum;
+        return cdf;
+    }
+
+    private static void deleteTree(Path root) throws IOException {
+        try (Stream<Path> s = Files.walk(root)) {
+            for (Path p : s.sorted(Comparator.reverseOrder()).toList()) Files.deleteIfExists(p);
+        }
+    }
+}
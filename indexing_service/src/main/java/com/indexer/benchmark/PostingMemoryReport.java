@@ -0,0 +1,175 @@
+package com.indexer.benchmark;
+
+import com.hazelcast.config.Config;
+import com.hazelcast.core.Hazelcast;
+import com.hazelcast.core.HazelcastInstance;
+import com.hazelcast.internal.serialization.SerializationService;
+import com.hazelcast.multimap.MultiMap;
+import com.hazelcast.spi.impl.SerializationServiceSupport;
+import com.hazelcast.map.IMap;
+import com.indexer.index.InvertedIndexStore;
+import com.stage3.index.AppendPostingsProcessor;
+import com.stage3.index.PostingKeys;
+import com.stage3.index.Postings;
+import com.stage3.index.TermDictionary;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+
+/**
+ * Memory comparison of the old MultiMap<String, Integer> posting layout, the
+ * bitmap-backed IMap<String, Postings> keyed by term (the default), and
+ * IMap<Integer, Postings> keyed by TermDictionary id (INDEX_TERM_IDS=true),
+ * on a synthetic Zipf corpus.
+ * Measures member heap growth and owned entry cost per layout (plus the
+ * dictionary the id layout needs), the bytes one get() of the most frequent
+ * term puts on the wire, and the write payload of one book's postings.
+ *
+ * java -Xmx4g -cp target/benchmarks.jar com.indexer.benchmark.PostingMemoryReport [books] [uniqueTermsPerBook]
+ */
+public final class PostingMemoryReport {
+
+    private static final int VOCABULARY = 200_000;
+    private static final int MAX_BOOK_ID = 75_000;
+
+    public static void main(String[] args) throws Exception {
+        int books = args.length > 0 ? Integer.parseInt(args[0]) : 10_000;
+        int uniqueTerms = args.length > 1 ? Integer.parseInt(args[1]) : 500;
+
+        Config config = new Config();
+        config.setClusterName("posting-memory-report");
+        config.getNetworkConfig().getJoin().getMulticastConfig().setEnabled(false);
+        config.getNetworkConfig().getJoin().getTcpIpConfig().setEnabled(false);
+        config.getMultiMapConfig("legacy-index").setBackupCount(0);
+        config.getMapConfig("term-keyed-index").setBackupCount(0);
+        config.getMapConfig(InvertedIndexStore.MAP_NAME).setBackupCount(0);
+        config.getMapConfig(TermDictionary.MAP_NAME).setBackupCount(0);
+        HazelcastInstance hz = Hazelcast.newHazelcastInstance(config);
+        SerializationService serialization = ((SerializationServiceSupport) hz).getSerializationService();
+
+        try {
+            int[] bookIds = bookIds(books);
+            double[] zipf = zipfCdf(VOCABULARY);
+            String topTerm = "t0";
+
+            System.out.printf("Corpus: %d books, %d unique terms per book, %,d postings%n",
+                    books, uniqueTerms, (long) books * uniqueTerms);
+
+            // Old layout: one boxed Integer per (term, book)
+            MultiMap<String, Integer> legacy = hz.getMultiMap("legacy-index");
+            long base = usedHeap();
+            Random rnd = new Random(42);
+            for (int bookId : bookIds) {
+                Map<String, Collection<? extends Integer>> batch = new HashMap<>();
+                List<Integer> value = List.of(bookId);
+                for (String term : bookTerms(rnd, zipf, uniqueTerms).keySet()) {
+                    batch.put(term, value);
+                }
+                legacy.putAllAsync(batch).toCompletableFuture().join();
+            }
+            long legacyBytes = usedHeap() - base;
+            long legacyWire = 0;
+            for (Integer v : legacy.get(topTerm)) {
+                legacyWire += serialization.toData(v).totalSize();
+            }
+            int legacyTopSize = legacy.valueCount(topTerm);
+            legacy.destroy();
+
+            // Postings keyed by the term string, built locally and put in one go
+            base = usedHeap();
+            Map<String, Postings> local = new HashMap<>();
+            rnd = new Random(42);
+            for (int bookId : bookIds) {
+                bookTerms(rnd, zipf, uniqueTerms).forEach((term, tf) ->
+                        local.computeIfAbsent(term, t -> new Postings()).put(bookId, tf));
+            }
+            IMap<String, Postings> byTerm = hz.getMap("term-keyed-index");
+            byTerm.putAll(local);
+            local.clear();
+            long byTermBytes = usedHeap() - base;
+            long byTermCost = byTerm.getLocalMapStats().getOwnedEntryMemoryCost();
+            long byTermWire = serialization.toData(topTerm).totalSize() + serialization.toData(byTerm.get(topTerm)).totalSize();
+            byTerm.destroy();
+
+            // Postings keyed by term id, plus the term-ids dictionary
+            TermDictionary dictionary = new TermDictionary(hz);
+            InvertedIndexStore store = new InvertedIndexStore(hz, PostingKeys.byId(dictionary));
+            base = usedHeap();
+            rnd = new Random(42);
+            for (int bookId : bookIds) {
+                store.putAll(bookId, bookTerms(rnd, zipf, uniqueTerms));
+            }
+            long byIdBytes = usedHeap() - base;
+            long byIdCost = hz.getMap(InvertedIndexStore.MAP_NAME).getLocalMapStats().getOwnedEntryMemoryCost();
+            long dictionaryCost = hz.getMap(TermDictionary.MAP_NAME).getLocalMapStats().getOwnedEntryMemoryCost();
+            Postings top = store.get(topTerm);
+            int topId = dictionary.idOf(topTerm);
+            long byIdWire = serialization.toData(topId).totalSize() + serialization.toData(top).totalSize();
+
+            // One book's posting write, as a single batch keyed by term vs. by term id
+            Map<String, Integer> sample = bookTerms(new Random(1), zipf, uniqueTerms);
+            String[] terms = sample.keySet().toArray(new String[0]);
+            int[] tfs = new int[terms.length];
+            for (int i = 0; i < terms.length; i++) tfs[i] = sample.get(terms[i]);
+            Object[] termIds = store.keys().assign(terms, terms.length);
+            long termWrite = serialization.toData(new AppendPostingsProcessor(1, terms, tfs, tfs.length)).totalSize();
+            long idWrite = serialization.toData(new AppendPostingsProcessor(1, termIds, tfs, tfs.length)).totalSize();
+
+            System.out.printf("%-36s %14s %14s %14s%n", "", "MultiMap", "by term", "by term id");
+            System.out.printf("%-36s %,14d %,14d %,14d%n", "member heap growth (bytes)", legacyBytes, byTermBytes, byIdBytes);
+            System.out.printf("%-36s %14s %,14d %,14d%n", "inverted-index entry cost (bytes)", "-", byTermCost, byIdCost);
+            System.out.printf("%-36s %14s %14s %,14d%n", "term-ids entry cost (bytes)", "-", "-", dictionaryCost);
+            System.out.printf("%-36s %,14d %,14d %,14d%n", "get('" + topTerm + "') key+value (bytes)", legacyWire, byTermWire, byIdWire);
+            System.out.printf("%-36s %14s %,14d %,14d%n", "one book's posting write (bytes)", "-", termWrite, idWrite);
+            System.out.printf("%-36s %,14d %14s %,14d%n", "books in '" + topTerm + "'", legacyTopSize, "", top.size());
+        } finally {
+            hz.shutdown();
+        }
+    }
+
+    private static int[] bookIds(int books) {
+        Random rnd = new Random(7);
+        List<Integer> ids = new ArrayList<>(MAX_BOOK_ID);
+        for (int i = 1; i <= MAX_BOOK_ID; i++) ids.add(i);
+        Collections.shuffle(ids, rnd);
+        int[] out = new int[Math.min(books, MAX_BOOK_ID)];
+        for (int i = 0; i < out.length; i++) out[i] = ids.get(i);
+        return out;
+    }
+
+    private static Map<String, Integer> bookTerms(Random rnd, double[] cdf, int uniqueTerms) {
+        Map<String, Integer> counts = new HashMap<>(uniqueTerms * 2);
+        while (counts.size() < uniqueTerms) {
+            int idx = Arrays.binarySearch(cdf, rnd.nextDouble());
+            int rank = idx >= 0 ? idx : Math.min(-idx - 1, cdf.length - 1);
+            counts.merge("t" + rank, 1, Integer::sum);
+        }
+        return counts;
+    }
+
+    private static double[] zipfCdf(int n) {
+        double[] cdf = new double[n];
+        double sum = 0;
+        for (int i = 0; i < n; i++) {
+            sum += 1.0 / (i + 1);
+            cdf[i] = sum;
+        }
+        for (int i = 0; i < n; i++) cdf[i] /= sum;
+        return cdf;
+    }
+
+    private static long usedHeap() throws InterruptedException {
+        Runtime rt = Runtime.getRuntime();
+        for (int i = 0; i < 3; i++) {
+            System.gc();
+            Thread.sleep(200);
+        }
+        return rt.totalMemory() - rt.freeMemory();
+    }
+}
@@ -0,0 +1,91 @@
+package com.indexer.benchmark;
+
+import com.hazelcast.client.HazelcastClient;
+import com.hazelcast.client.config.ClientConfig;
+import com.hazelcast.config.Config;
+import com.hazelcast.core.Hazelcast;
+import com.hazelcast.core.HazelcastInstance;
+import com.indexer.index.InvertedIndexStore;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OperationsPerInvocation;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.HashMap;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Compares a one-call-per-term loop with InvertedIndexStore.putAll.
+ * Runs a local member plus a client so every call pays a real loopback round-trip.
+ * Scores are terms/sec.
+ *
+ * java -jar target/benchmarks.jar PostingWriteBenchmark
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 2, time = 5)
+@Measurement(iterations = 5, time = 5)
+@Fork(1)
+public class PostingWriteBenchmark {
+
+    private static final int TERMS_PER_BOOK = 20_000;
+
+    private HazelcastInstance member;
+    private HazelcastInstance client;
+    private InvertedIndexStore store;
+    private Map<String, Integer> terms;
+    private int nextBookId;
+
+    @Setup(Level.Trial)
+    public void setUp() {
+        Config config = new Config();
+        config.setClusterName("posting-write-bench");
+        config.getNetworkConfig().getJoin().getMulticastConfig().setEnabled(false);
+        config.getNetworkConfig().getJoin().getTcpIpConfig().setEnabled(false);
+        config.getNetworkConfig().setPort(5801).setPortAutoIncrement(true);
+        member = Hazelcast.newHazelcastInstance(config);
+
+        ClientConfig clientConfig = new ClientConfig();
+        clientConfig.setClusterName("posting-write-bench");
+        clientConfig.getNetworkConfig().addAddress("127.0.0.1:" + member.getCluster().getLocalMember().getAddress().getPort());
+        client = HazelcastClient.newHazelcastClient(clientConfig);
+
+        store = new InvertedIndexStore(client);
+        terms = new HashMap<>(TERMS_PER_BOOK * 2);
+        for (int i = 0; i < TERMS_PER_BOOK; i++) {
+            terms.put("term" + i, 1 + (i % 7));
+        }
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() {
+        if (client != null) client.shutdown();
+        if (member != null) member.shutdown();
+    }
+
+    @Benchmark
+    @OperationsPerInvocation(TERMS_PER_BOOK)
+    public void perTermPut() {
+        int bookId = nextBookId++;
+        for (Map.Entry<String, Integer> e : terms.entrySet()) {
+            store.put(e.getKey(), bookId, e.getValue());
+        }
+    }
+
+    @Benchmark
+    @OperationsPerInvocation(TERMS_PER_BOOK)
+    public int batchedPutAll() {
+        return store.putAll(nextBookId++, terms);
+    }
+}
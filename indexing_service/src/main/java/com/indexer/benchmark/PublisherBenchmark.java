@@ -0,0 +1,107 @@
+package com.indexer.benchmark;
+
+import com.stage3.messaging.ActiveMqPublisher;
+import org.apache.activemq.ActiveMQConnectionFactory;
+import org.apache.activemq.broker.BrokerService;
+import org.apache.activemq.broker.TransportConnector;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Threads;
+import org.openjdk.jmh.annotations.Warmup;
+
+import javax.jms.Connection;
+import javax.jms.MessageConsumer;
+import javax.jms.MessageProducer;
+import javax.jms.Session;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Publish throughput against an embedded broker on a local TCP port:
+ * a connection + session + producer per message (the old publisher) vs. the
+ * pooled long-lived ActiveMqPublisher, with sync and async sends.
+ * A listener drains the queue so producer flow control never kicks in.
+ *
+ * activemq-broker is a provided dependency, so it has to be put on the classpath:
+ * mvn -q dependency:build-classpath -Dmdep.outputFile=cp.txt
+ * java -cp "target/benchmarks.jar:$(cat cp.txt)" org.openjdk.jmh.Main PublisherBenchmark
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+@Threads(4)
+public class PublisherBenchmark {
+
+    private static final String QUEUE = "bench.indexed";
+    private static final String PAYLOAD =
+            "{\"eventType\":\"document_indexed\",\"bookId\":1342,\"lakePath\":\"20260112/23/1342.json\","
+                    + "\"status\":\"ok\",\"reindex\":false,\"nodeId\":\"indexer-bench\"}";
+
+    private BrokerService broker;
+    private String brokerUrl;
+    private Connection drain;
+    private ActiveMqPublisher pooled;
+    private ActiveMqPublisher pooledAsync;
+
+    @Setup(Level.Trial)
+    public void setUp() throws Exception {
+        broker = new BrokerService();
+        broker.setPersistent(false);
+        broker.setUseJmx(false);
+        broker.setBrokerName("publisher-bench");
+        TransportConnector connector = broker.addConnector("tcp://127.0.0.1:0");
+        broker.start();
+        broker.waitUntilStarted();
+        brokerUrl = connector.getPublishableConnectString();
+
+        drain = new ActiveMQConnectionFactory(brokerUrl).createConnection();
+        Session session = drain.createSession(false, Session.AUTO_ACKNOWLEDGE);
+        MessageConsumer consumer = session.createConsumer(session.createQueue(QUEUE));
+        consumer.setMessageListener(msg -> { });
+        drain.start();
+
+        pooled = new ActiveMqPublisher(brokerUrl, QUEUE, 4, false);
+        pooledAsync = new ActiveMqPublisher(brokerUrl, QUEUE, 4, true);
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() throws Exception {
+        pooled.close();
+        pooledAsync.close();
+        drain.close();
+        broker.stop();
+        broker.waitUntilStopped();
+    }
+
+    @Benchmark
+    public void connectionPerMessage() throws Exception {
+        try (Connection connection = new ActiveMQConnectionFactory(brokerUrl).createConnection()) {
+            connection.start();
+            try (Session session = connection.createSession(false, Session.AUTO_ACKNOWLEDGE)) {
+                MessageProducer producer = session.createProducer(session.createQueue(QUEUE));
+                producer.send(session.createTextMessage(PAYLOAD));
+            }
+        }
+    }
+
+    @Benchmark
+    public void pooledSync() {
+        pooled.publish(PAYLOAD);
+    }
+
+    @Benchmark
+    public void pooledAsyncSend() {
+        pooledAsync.publish(PAYLOAD);
+    }
+}
@@ -0,0 +1,66 @@
+package com.indexer.benchmark;
+
+import com.indexer.core.TermCounter;
+import com.stage3.text.Analyzer;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Counting one book's tokens: HashMap merge (String + boxed Integer per token)
+ * vs. TermCounter (lookup from the analyzer buffer, String only per new term).
+ * Both run behind the same Analyzer, so the difference is the counting alone.
+ *
+ * java -jar target/benchmarks.jar TermCountBenchmark -prof gc
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class TermCountBenchmark {
+
+    @Param({""})
+    public String textPath;
+
+    private String text;
+    private Analyzer analyzer;
+
+    @Setup
+    public void setUp() throws Exception {
+        text = textPath.isEmpty()
+                ? TokenizerBenchmark.syntheticText(2_000_000)
+                : Files.readString(Path.of(textPath), StandardCharsets.UTF_8);
+        analyzer = new Analyzer();
+    }
+
+    @Benchmark
+    public Map<String, Integer> hashMapMerge() {
+        Map<String, Integer> counts = new HashMap<>();
+        analyzer.analyze(text, (buf, len) -> counts.merge(new String(buf, 0, len), 1, Integer::sum));
+        return counts;
+    }
+
+    @Benchmark
+    public TermCounter termCounter() {
+        TermCounter counts = new TermCounter();
+        analyzer.analyze(text, counts::add);
+        return counts;
+    }
+}
@@ -0,0 +1,116 @@
+package com.indexer.benchmark;
+
+import com.indexer.core.Tokenizer;
+import com.stage3.text.Analyzer;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.infra.Blackhole;
+
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Locale;
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Regex Tokenizer (before the shared analyzer) vs. the single-pass Analyzer,
+ * and the Analyzer's scalar vs. vector (jdk.incubator.vector) backend fed in
+ * 8K char chunks the way BookParser streams a book.
+ * Uses the content of a datalake book if textPath is set, otherwise ~2 MB of synthetic English.
+ *
+ * java -jar target/benchmarks.jar TokenizerBenchmark -prof gc
+ * java -jar target/benchmarks.jar TokenizerBenchmark -p textPath=data_repository/datalake_node1/.../1342.json
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(value = 1, jvmArgsAppend = "--add-modules=jdk.incubator.vector")
+public class TokenizerBenchmark {
+
+    private static final int CHUNK = 8_192;
+
+    @Param({""})
+    public String textPath;
+
+    private String text;
+    private char[] chars;
+    private Tokenizer tokenizer;
+    private Analyzer scalar;
+    private Analyzer vector;
+
+    @Setup
+    public void setUp() throws Exception {
+        text = textPath.isEmpty()
+                ? syntheticText(2_000_000)
+                : Files.readString(Path.of(textPath), StandardCharsets.UTF_8);
+        chars = text.toCharArray();
+        tokenizer = new Tokenizer();
+        scalar = Analyzer.scalar();
+        vector = Analyzer.vector();
+    }
+
+    @Benchmark
+    public List<String> legacyRegex() {
+        String cleaned = text.toLowerCase(Locale.ROOT)
+                .replaceAll("[^\\p{L}\\p{Nd}]+", " ")
+                .trim();
+        String[] parts = cleaned.split("\\s+");
+        List<String> out = new ArrayList<>(parts.length);
+        for (String p : parts) {
+            if (p.length() < 2) continue;
+            out.add(p);
+        }
+        return out;
+    }
+
+    @Benchmark
+    public void analyzer(Blackhole bh) {
+        tokenizer.analyze(text, (buf, len) -> bh.consume(buf[len - 1]));
+    }
+
+    @Benchmark
+    public void scalarChunks(Blackhole bh) {
+        feedChunks(scalar, bh);
+    }
+
+    @Benchmark
+    public void vectorChunks(Blackhole bh) {
+        feedChunks(vector, bh);
+    }
+
+    private void feedChunks(Analyzer analyzer, Blackhole bh) {
+        for (int off = 0; off < chars.length; off += CHUNK) {
+            analyzer.feed(chars, off, Math.min(CHUNK, chars.length - off), (buf, len) -> bh.consume(buf[len - 1]));
+        }
+        analyzer.finish((buf, len) -> bh.consume(buf[len - 1]));
+    }
+
+    static String syntheticText(int chars) {
+        String[] words = {
+                "the", "of", "and", "to", "a", "in", "that", "was", "he", "his", "elizabeth", "darcy",
+                "Bennet", "Mr.", "letter", "sister", "would", "could", "Netherfield", "ball", "café", "1813"
+        };
+        Random rnd = new Random(11);
+        StringBuilder sb = new StringBuilder(chars + 32);
+        while (sb.length() < chars) {
+            sb.append(words[rnd.nextInt(words.length)]);
+            int r = rnd.nextInt(20);
+            sb.append(r == 0 ? ".\n" : r == 1 ? ", " : " ");
+        }
+        return sb.toString();
+    }
+}
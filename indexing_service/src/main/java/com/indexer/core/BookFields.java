@@ -0,0 +1,98 @@
+package com.indexer.core;
+
+import com.stage3.index.Fields;
+import com.stage3.text.Analyzer;
+
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+/**
+ * Title and author of a book, taken from the "Title:" / "Author:" lines of
+ * its Gutenberg header while the book is streamed for counting, and the
+ * term -> Fields bitmask table the field postings are written from.
+ */
+public final class BookFields {
+
+    // Only the start of the header is kept; the Gutenberg preamble is a few KB
+    static final int MAX_HEADER_CHARS = 64 * 1024;
+    static final int MAX_VALUE_CHARS = 512;
+
+    private static final Pattern TITLE = Pattern.compile("^\\s*Title:[ \\t]*(.+?)[ \\t\\r]*$", Pattern.MULTILINE);
+    private static final Pattern AUTHOR = Pattern.compile("^\\s*Author:[ \\t]*(.+?)[ \\t\\r]*$", Pattern.MULTILINE);
+
+    private BookFields() {}
+
+    /** Term -> Fields bits (TITLE, AUTHOR or both) of the analyzed title and author. */
+    public static TermCounter terms(String title, String author) {
+        TermCounter masks = new TermCounter(32);
+        for (String term : Analyzer.tokens(title)) {
+            if (masks.get(term) == 0) masks.add(term, Fields.TITLE);
+        }
+        for (String term : Analyzer.tokens(author)) {
+            if ((masks.get(term) & Fields.AUTHOR) == 0) masks.add(term, Fields.AUTHOR);
+        }
+        return masks;
+    }
+
+    /** First value of "label:" in the header text, "" if there is none. */
+    static String value(Pattern label, CharSequence header) {
+        Matcher m = label.matcher(header);
+        if (!m.find()) return "";
+        String v = m.group(1);
+        if (v.length() <= MAX_VALUE_CHARS) return v;
+        // don't split a surrogate pair
+        int end = Character.isHighSurrogate(v.charAt(MAX_VALUE_CHARS - 1)) ? MAX_VALUE_CHARS - 1 : MAX_VALUE_CHARS;
+        return v.substring(0, end);
+    }
+
+    /**
+     * Counting wrapper that also keeps the start of the header field and
+     * reads title and author from it once the header ends.
+     */
+    static final class Collector implements Tokenizer.Counting {
+        private final Tokenizer.Counting counting;
+        private final StringBuilder header = new StringBuilder();
+        private String title = "";
+        private String author = "";
+
+        Collector(Tokenizer.Counting counting) {
+            this.counting = counting;
+        }
+
+        String title() {
+            return title;
+        }
+
+        String author() {
+            return author;
+        }
+
+        @Override
+        public void chunk(String field, char[] buf, int len) {
+            if (BookParser.HEADER.equals(field) && header.length() < MAX_HEADER_CHARS) {
+                header.append(buf, 0, Math.min(len, MAX_HEADER_CHARS - header.length()));
+            }
+            counting.chunk(field, buf, len);
+        }
+
+        @Override
+        public void fieldEnd(String field) {
+            if (BookParser.HEADER.equals(field)) {
+                title = value(TITLE, header);
+                author = value(AUTHOR, header);
+                header.setLength(0);
+            }
+            counting.fieldEnd(field);
+        }
+
+        @Override
+        public boolean hasText() {
+            return counting.hasText();
+        }
+
+        @Override
+        public TermCounter counts() {
+            return counting.counts();
+        }
+    }
+}
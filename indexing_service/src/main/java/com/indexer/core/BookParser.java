@@ -11,6 +11,12 @@ import java.nio.file.Path;
 
 public final class BookParser {
 
+    public static final String HEADER = "header";
+    public static final String CONTENT = "content";
+    public static final String FOOTER = "footer";
+
+    private static final int CHUNK = 8_192;
+
     private final Gson gson;
 
     public BookParser(Gson gson) {
@@ -23,14 +29,26 @@ public final class BookParser {
             if (obj == null) throw new IOException("invalid json");
 
             String id = getString(obj, "id");
-            String header = getString(obj, "header");
-            String content = getString(obj, "content");
-            String footer = getString(obj, "footer");
+            String header = getString(obj, HEADER);
+            String content = getString(obj, CONTENT);
+            String footer = getString(obj, FOOTER);
 
             return new ParsedBook(id, header, content, footer);
         }
     }
 
+    /**
+     * Streaming mode: walks the book json once and hands header/content/footer
+     * to the visitor in chunks of at most 8K chars, in file order, without ever
+     * holding a whole field in memory. Other fields are skipped.
+     * Returns the "id" field ("" if missing).
+     */
+    public String stream(Path file, TextVisitor visitor) throws IOException {
+        try (Reader r = Files.newBufferedReader(file, StandardCharsets.UTF_8)) {
+            return new Scanner(r, visitor).readBook();
+        }
+    }
+
     private static String getString(JsonObject obj, String key) {
         if (!obj.has(key) || obj.get(key).isJsonNull()) return "";
         try {
@@ -47,4 +65,169 @@ public final class BookParser {
                     + (footer == null ? "" : footer);
         }
     }
-}
\ No newline at end of file
+
+    /**
+     * Receives the text fields of a book.
+     * The chunk buffer is reused, copy what you need to keep.
+     */
+    public interface TextVisitor {
+        void chunk(String field, char[] buf, int len);
+
+        void fieldEnd(String field);
+    }
+
+    // Minimal pull scanner for the top-level object of a datalake file.
+    // Gson's JsonReader only hands out whole string values, which is exactly
+    // what we are trying to avoid for multi-megabyte content fields.
+    private static final class Scanner {
+        private final Reader in;
+        private final TextVisitor visitor;
+        private final char[] buf = new char[CHUNK];
+        private final char[] out = new char[CHUNK];
+        private int pos;
+        private int limit;
+
+        Scanner(Reader in, TextVisitor visitor) {
+            this.in = in;
+            this.visitor = visitor;
+        }
+
+        String readBook() throws IOException {
+            String id = "";
+            expect('{');
+            if (peekNonWs() == '}') {
+                return id;
+            }
+            while (true) {
+                expect('"');
+                String key = readSmallString();
+                expect(':');
+                int c = peekNonWs();
+                if (c == '"' && (HEADER.equals(key) || CONTENT.equals(key) || FOOTER.equals(key))) {
+                    pos++;
+                    streamString(key);
+                    visitor.fieldEnd(key);
+                } else if (c == '"' && "id".equals(key)) {
+                    pos++;
+                    id = readSmallString();
+                } else {
+                    skipValue();
+                }
+                int sep = nextNonWs();
+                if (sep == '}') return id;
+                if (sep != ',') throw new IOException("invalid json: expected ',' or '}'");
+            }
+        }
+
+        private void streamString(String field) throws IOException {
+            int n = 0;
+            while (true) {
+                int c = read();
+                if (c == '"') break;
+                if (c == '\\') c = readEscape();
+                out[n++] = (char) c;
+                if (n == out.length) {
+                    visitor.chunk(field, out, n);
+                    n = 0;
+                }
+            }
+            if (n > 0) visitor.chunk(field, out, n);
+        }
+
+        private String readSmallString() throws IOException {
+            StringBuilder sb = new StringBuilder();
+            while (true) {
+                int c = read();
+                if (c == '"') return sb.toString();
+                sb.append((char) (c == '\\' ? readEscape() : c));
+            }
+        }
+
+        private int readEscape() throws IOException {
+            int c = read();
+            switch (c) {
+                case 'n': return '\n';
+                case 't': return '\t';
+                case 'r': return '\r';
+                case 'b': return '\b';
+                case 'f': return '\f';
+                case 'u': {
+                    int v = 0;
+                    for (int i = 0; i < 4; i++) {
+                        int d = Character.digit(read(), 16);
+                        if (d < 0) throw new IOException("invalid json: bad \\u escape");
+                        v = (v << 4) | d;
+                    }
+                    return v;
+                }
+                default: return c; // \" \\ \/
+            }
+        }
+
+        private void skipValue() throws IOException {
+            int depth = 0;
+            do {
+                int c = nextNonWs();
+                if (c == '"') {
+                    skipString();
+                } else if (c == '{' || c == '[') {
+                    depth++;
+                } else if (c == '}' || c == ']') {
+                    depth--;
+                } else {
+                    // number / true / false / null
+                    while (true) {
+                        int p = peek();
+                        if (p < 0 || p == ',' || p == '}' || p == ']' || Character.isWhitespace(p)) break;
+                        pos++;
+                    }
+                }
+                if (depth > 0 && peekNonWs() == ',') pos++;
+            } while (depth > 0);
+        }
+
+        private void skipString() throws IOException {
+            while (true) {
+                int c = read();
+                if (c == '"') return;
+                if (c == '\\') read();
+            }
+        }
+
+        private void expect(char expected) throws IOException {
+            if (nextNonWs() != expected) throw new IOException("invalid json: expected '" + expected + "'");
+        }
+
+        private int nextNonWs() throws IOException {
+            int c = peekNonWs();
+            if (c >= 0) pos++;
+            return c;
+        }
+
+        private int peekNonWs() throws IOException {
+            while (true) {
+                int c = peek();
+                if (c < 0 || !Character.isWhitespace(c)) return c;
+                pos++;
+            }
+        }
+
+        private int peek() throws IOException {
+            if (pos == limit && !fill()) return -1;
+            return buf[pos];
+        }
+
+        private int read() throws IOException {
+            if (pos == limit && !fill()) throw new IOException("invalid json: unexpected end of file");
+            return buf[pos++];
+        }
+
+        private boolean fill() throws IOException {
+            int n = in.read(buf, 0, buf.length);
+            if (n <= 0) return false;
+            pos = 0;
+            limit = n;
+            return true;
+        }
+    }
+}
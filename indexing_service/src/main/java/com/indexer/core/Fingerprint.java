@@ -0,0 +1,54 @@
+package com.indexer.core;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+
+/**
+ * Content fingerprint of a datalake file, computed over the raw file bytes in
+ * one streaming read, before and without any JSON parsing. IndexService uses
+ * it for change detection; values carry an algorithm prefix ("xxh64:...",
+ * "sha256:..."), so switching algorithms re-indexes books instead of
+ * comparing incompatible values.
+ */
+public interface Fingerprint {
+
+    int BUFFER_SIZE = 64 * 1024;
+
+    String name();
+
+    /** Fresh incremental hasher; not thread-safe, one per computation. */
+    Hasher newHasher();
+
+    default String of(Path file) throws IOException {
+        Hasher h = newHasher();
+        ByteBuffer buf = ByteBuffer.allocate(BUFFER_SIZE);
+        try (FileChannel ch = FileChannel.open(file, StandardOpenOption.READ)) {
+            while (ch.read(buf) >= 0) {
+                buf.flip();
+                h.update(buf.array(), 0, buf.limit());
+                buf.clear();
+            }
+        }
+        return name() + ":" + h.hexDigest();
+    }
+
+    interface Hasher {
+        void update(byte[] b, int off, int len);
+
+        String hexDigest();
+    }
+
+    /** "xxh64" (default, fast non-cryptographic) or "sha256". */
+    static Fingerprint forName(String name) {
+        if (name == null || name.isBlank() || "xxh64".equalsIgnoreCase(name)) {
+            return new XxHash64Fingerprint();
+        }
+        if ("sha256".equalsIgnoreCase(name)) {
+            return new Sha256Fingerprint();
+        }
+        throw new IllegalArgumentException("unknown fingerprint: " + name);
+    }
+}
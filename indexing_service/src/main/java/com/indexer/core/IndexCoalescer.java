@@ -0,0 +1,180 @@
+package com.indexer.core;
+
+import com.indexer.dto.CoalescingStats;
+import com.indexer.dto.IndexResponse;
+import com.indexer.index.IndexedStore;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.Duration;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Collapses duplicate index requests for the same book (ingestion retries,
+ * several crawlers, replicas, repeated reindex requests) into one run of
+ * IndexService.index.
+ *
+ * On this node a request for a book that is already being indexed waits for
+ * that run and shares its result. Across the cluster, a finished run leaves a
+ * marker in IndexedStore that expires after the window; a request that finds
+ * a marker for a lake file with the same size and fingerprint is answered
+ * without a claim or a parse. A forced reindex only accepts a run that
+ * actually rebuilt the postings. Deleting a book removes its marker.
+ *
+ * Absorbed duplicates are answered with status "coalesced".
+ */
+public final class IndexCoalescer {
+
+    public static final String STATUS_COALESCED = "coalesced";
+
+    private static final String INDEXED = "indexed";
+    private static final String CHECKED = "checked";
+
+    private final IndexService indexService;
+    private final IndexedStore markers;
+    private final long windowMs;
+
+    private final ConcurrentHashMap<Integer, Run> inFlight = new ConcurrentHashMap<>();
+    private final LongAdder runs = new LongAdder();
+    private final LongAdder joinedInFlight = new LongAdder();
+    private final LongAdder recentlyDone = new LongAdder();
+
+    /** markers: where the cluster-wide markers live, null (or a zero window) to coalesce on this node only. */
+    public IndexCoalescer(IndexService indexService, IndexedStore markers, Duration window) {
+        this.indexService = indexService;
+        this.markers = window.isZero() || window.isNegative() ? null : markers;
+        this.windowMs = window.toMillis();
+    }
+
+    public IndexResponse index(String lakePath, boolean forceReindex) throws InterruptedException {
+        Path file = lakePath == null || lakePath.isBlank() ? null : indexService.resolve(lakePath);
+        Integer bookId = PathResolver.bookIdOf(file);
+        long size = sizeOf(file);
+        if (bookId == null || size < 0) {
+            // bad request / missing file, the service reports it
+            return indexService.index(lakePath, forceReindex);
+        }
+
+        Run mine = new Run(forceReindex);
+        while (true) {
+            Run running = inFlight.putIfAbsent(bookId, mine);
+            if (running == null) {
+                break;
+            }
+            IndexResponse shared = running.await();
+            if (shared != null && running.satisfies(forceReindex)) {
+                joinedInFlight.increment();
+                return coalesced(shared, lakePath);
+            }
+            // a plain check cannot stand in for a forced reindex, run after it
+        }
+
+        IndexResponse response = null;
+        try {
+            String marker = markers != null ? markers.getRecent(bookId) : null;
+            if (marker != null && markerSatisfies(marker, size, file, forceReindex)) {
+                recentlyDone.increment();
+                response = new IndexResponse(STATUS_COALESCED, bookId, lakePath, null, size, null, 0, 0, null);
+                return response;
+            }
+
+            runs.increment();
+            response = indexService.index(lakePath, forceReindex);
+            if (markers != null) {
+                String state = "ok".equals(response.status()) ? INDEXED
+                        : "already_indexed".equals(response.status()) ? CHECKED : null;
+                // the hash the run stored is the content it indexed or found unchanged
+                String hash = state != null ? markers.getHash(bookId) : null;
+                if (hash != null) {
+                    markers.markRecent(bookId, size + ":" + hash + ":" + state, windowMs);
+                }
+            }
+            return response;
+        } finally {
+            inFlight.remove(bookId, mine);
+            mine.result.complete(response);
+        }
+    }
+
+    public CoalescingStats stats() {
+        return new CoalescingStats(
+                runs.sum(),
+                joinedInFlight.sum(),
+                recentlyDone.sum(),
+                joinedInFlight.sum() + recentlyDone.sum(),
+                windowMs
+        );
+    }
+
+    // "size:fingerprint:state"; a book replaced within the window, even by a file
+    // of the same size, no longer matches. The size is checked first, so only a
+    // likely match pays for the hash.
+    private boolean markerSatisfies(String marker, long size, Path file, boolean forceReindex) {
+        int first = marker.indexOf(':');
+        int last = marker.lastIndexOf(':');
+        if (first < 0 || last <= first) return false;
+        if (!marker.substring(0, first).equals(Long.toString(size))) return false;
+        if (forceReindex && !INDEXED.equals(marker.substring(last + 1))) return false;
+        try {
+            return marker.substring(first + 1, last).equals(indexService.fingerprint(file));
+        } catch (IOException e) {
+            return false;
+        }
+    }
+
+    private static IndexResponse coalesced(IndexResponse shared, String lakePath) {
+        return new IndexResponse(
+                STATUS_COALESCED,
+                shared.bookId(),
+                lakePath,
+                shared.resolvedPath(),
+                shared.fileSizeBytes(),
+                shared.indexFilePath(),
+                0,
+                0,
+                null
+        );
+    }
+
+    private static long sizeOf(Path file) {
+        if (file == null) return -1;
+        try {
+            return Files.size(file);
+        } catch (IOException e) {
+            return -1;
+        }
+    }
+
+    private static final class Run {
+        final boolean forced;
+        final CompletableFuture<IndexResponse> result = new CompletableFuture<>();
+
+        Run(boolean forced) {
+            this.forced = forced;
+        }
+
+        // null if the run failed with an exception
+        IndexResponse await() throws InterruptedException {
+            try {
+                return result.get();
+            } catch (ExecutionException e) {
+                return null;
+            }
+        }
+
+        boolean satisfies(boolean forceReindex) {
+            IndexResponse r = result.getNow(null);
+            if (r == null) return false;
+            return switch (r.status()) {
+                case "ok" -> true;
+                case "already_indexed" -> !forceReindex;
+                case STATUS_COALESCED -> !forceReindex || forced;
+                default -> false;
+            };
+        }
+    }
+}
@@ -27,7 +27,20 @@ public final class IndexFileWriter {
             written++;
         }
 
-        if (termsObj instanceof Map<?, ?> terms) {
+        if (termsObj instanceof TermCounter counter && !counter.isEmpty()) {
+            if (written > 0) sb.append(",\n");
+            sb.append("  \"terms\": {\n");
+
+            int n = counter.size();
+            for (int i = 0; i < n; i++) {
+                sb.append("    \"").append(escape(counter.term(i))).append("\": ").append(counter.count(i));
+
+                if (i < n - 1) sb.append(",\n\n");
+                else sb.append("\n");
+            }
+
+            sb.append("  }\n");
+        } else if (termsObj instanceof Map<?, ?> terms) {
             if (written > 0) sb.append(",\n");
             sb.append("  \"terms\": {\n");
 
@@ -0,0 +1,211 @@
+package com.indexer.core;
+
+import com.indexer.dto.IndexJobStatus;
+import com.indexer.dto.IndexResponse;
+
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Asynchronous batch indexing: a job is a list of lakePaths indexed on a
+ * fixed pool of worker threads, so a backfill is one request instead of one
+ * per book. Items of all jobs share the pool and run in submission order.
+ *
+ * With an IndexPipeline the pool only feeds the items into the pipeline
+ * (blocking while its first stage is full) and results arrive as each book
+ * leaves it, so books overlap stage by stage instead of one call per thread.
+ *
+ * The number of queued items is capped; submit returns null when a job would
+ * exceed it. The most recent jobs are kept for status queries.
+ */
+public final class IndexJobs implements AutoCloseable {
+
+    private static final int MAX_PENDING_ITEMS = 100_000;
+    private static final int MAX_RETAINED_JOBS = 200;
+
+    private final IndexService indexService;
+    private final IndexPipeline pipeline;
+    private final ExecutorService workers;
+    private final AtomicInteger pending = new AtomicInteger();
+    private final AtomicLong nextId = new AtomicLong();
+    private final Map<String, Job> jobs = new LinkedHashMap<>();
+
+    public IndexJobs(IndexService indexService, int threads) {
+        this(indexService, threads, null);
+    }
+
+    /** pipeline: indexes the items when not null; threads then only feed it, one is enough. */
+    public IndexJobs(IndexService indexService, int threads, IndexPipeline pipeline) {
+        this.indexService = indexService;
+        this.pipeline = pipeline;
+        int n = Math.max(1, threads);
+        AtomicInteger seq = new AtomicInteger();
+        this.workers = new ThreadPoolExecutor(
+                n, n, 0L, TimeUnit.MILLISECONDS,
+                new LinkedBlockingQueue<>(),
+                r -> {
+                    Thread t = new Thread(r, "index-job-" + seq.incrementAndGet());
+                    t.setDaemon(true);
+                    return t;
+                }
+        );
+    }
+
+    /** Queues the paths as a new job and returns its id, or null if the queue is full. */
+    public String submit(List<String> lakePaths, boolean forceReindex) {
+        int size = lakePaths.size();
+        if (pending.addAndGet(size) > MAX_PENDING_ITEMS) {
+            pending.addAndGet(-size);
+            return null;
+        }
+
+        Job job = new Job(Long.toString(nextId.incrementAndGet()), size);
+        synchronized (jobs) {
+            jobs.put(job.id, job);
+            if (jobs.size() > MAX_RETAINED_JOBS) {
+                jobs.values().removeIf(j -> j.isDone() && jobs.size() > MAX_RETAINED_JOBS);
+            }
+        }
+
+        for (int i = 0; i < size; i++) {
+            int item = i;
+            String lakePath = lakePaths.get(i);
+            if (pipeline != null) {
+                workers.execute(() -> feed(job, item, lakePath, forceReindex));
+                continue;
+            }
+            workers.execute(() -> {
+                IndexResponse resp;
+                try {
+                    resp = indexService.index(lakePath, forceReindex);
+                } catch (Exception e) {
+                    resp = failed(lakePath, e);
+                } finally {
+                    pending.decrementAndGet();
+                }
+                job.finish(item, resp);
+            });
+        }
+        return job.id;
+    }
+
+    private void feed(Job job, int item, String lakePath, boolean forceReindex) {
+        try {
+            pipeline.submit(lakePath, forceReindex).whenComplete((resp, e) -> {
+                pending.decrementAndGet();
+                job.finish(item, resp != null ? resp : failed(lakePath, e));
+            });
+        } catch (Exception e) {
+            pending.decrementAndGet();
+            job.finish(item, failed(lakePath, e));
+        }
+    }
+
+    private static IndexResponse failed(String lakePath, Throwable e) {
+        return new IndexResponse("error", null, lakePath, null, null, null, null, null,
+                "indexing failed: " + (e != null ? e.getMessage() : "no result"));
+    }
+
+    /** Stage metrics of the pipeline, null when items are indexed one call per thread. */
+    public List<StagedPipeline.StageStats> pipelineStats() {
+        return pipeline != null ? pipeline.stats() : null;
+    }
+
+    /** Status of a job with up to limit results starting at offset, or null if unknown. */
+    public IndexJobStatus status(String jobId, int offset, int limit) {
+        Job job;
+        synchronized (jobs) {
+            job = jobs.get(jobId);
+        }
+        return job == null ? null : job.snapshot(Math.max(0, offset), limit <= 0 ? 1000 : limit);
+    }
+
+    /** Items queued or running over all jobs. */
+    public int pendingItems() {
+        return pending.get();
+    }
+
+    @Override
+    public void close() {
+        workers.shutdownNow();
+        if (pipeline != null) {
+            pipeline.close();
+        }
+    }
+
+    private static final class Job {
+        final String id;
+        final Instant createdAt = Instant.now();
+        final long startNanos = System.nanoTime();
+        final IndexResponse[] results;
+        final AtomicInteger done = new AtomicInteger();
+        final AtomicInteger ok = new AtomicInteger();
+        final AtomicInteger alreadyIndexed = new AtomicInteger();
+        final AtomicInteger failed = new AtomicInteger();
+        volatile Instant finishedAt;
+        volatile long elapsedNanos;
+
+        Job(String id, int total) {
+            this.id = id;
+            this.results = new IndexResponse[total];
+        }
+
+        boolean isDone() {
+            return done.get() == results.length;
+        }
+
+        void finish(int item, IndexResponse resp) {
+            synchronized (results) {
+                results[item] = resp;
+            }
+            switch (resp.status()) {
+                case "ok" -> ok.incrementAndGet();
+                case "already_indexed" -> alreadyIndexed.incrementAndGet();
+                default -> failed.incrementAndGet();
+            }
+            if (done.incrementAndGet() == results.length) {
+                // elapsedNanos first: a non-null finishedAt marks the job done
+                elapsedNanos = System.nanoTime() - startNanos;
+                finishedAt = Instant.now();
+            }
+        }
+
+        IndexJobStatus snapshot(int offset, int limit) {
+            Instant finished = finishedAt;
+            int d = done.get();
+            String status = finished != null ? "done" : d == 0 ? "queued" : "running";
+            long elapsed = finished != null ? elapsedNanos : System.nanoTime() - startNanos;
+
+            List<IndexResponse> page = new ArrayList<>();
+            synchronized (results) {
+                int end = (int) Math.min(results.length, (long) offset + limit);
+                for (int i = offset; i < end; i++) {
+                    if (results[i] != null) page.add(results[i]);
+                }
+            }
+            return new IndexJobStatus(
+                    id,
+                    status,
+                    createdAt.toString(),
+                    finished != null ? finished.toString() : null,
+                    results.length,
+                    d,
+                    ok.get(),
+                    alreadyIndexed.get(),
+                    failed.get(),
+                    TimeUnit.NANOSECONDS.toMillis(elapsed),
+                    offset,
+                    page
+            );
+        }
+    }
+}
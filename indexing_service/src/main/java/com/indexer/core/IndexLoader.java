@@ -1,7 +1,8 @@
 package com.indexer.core;
 
 import com.google.gson.Gson;
-import com.google.gson.JsonObject;
+import com.indexer.index.ClaimStore;
+import com.indexer.index.DocStatsStore;
 import com.indexer.index.IndexedStore;
 import com.indexer.index.InvertedIndexStore;
 
@@ -9,104 +10,394 @@ import java.io.IOException;
 import java.nio.file.DirectoryStream;
 import java.nio.file.Files;
 import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.List;
 import java.util.Map;
+import java.util.Objects;
+import java.util.Set;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
 
 /**
  * Loads existing index files into Hazelcast on startup.
  * This ensures that if the service restarts, all previously indexed data is available.
+ *
+ * Files are decoded and written on a bounded worker pool; the hashes already in
+ * the grid are fetched up front with bulk getAll calls and new hashes are
+ * written back per group of books, so a cold start costs a handful of
+ * round-trips on top of the posting writes themselves. With an IndexManifest,
+ * files it lists as unchanged and whose hash the grid already has are not
+ * opened at all.
+ *
+ * Indexing may run while the load does (interleaved queue consumption, the
+ * HTTP endpoints). A book is therefore only written while the loader holds its
+ * claim, and only if its grid hash is still the one the load started from and
+ * its index file still exists; a book that is claimed or was reindexed or
+ * deleted in the meantime is left to whoever changed it.
  */
 public final class IndexLoader {
 
+    // bookIds per getAll on indexed-books
+    private static final int HASH_BATCH = 1_000;
+    // books whose postings go out in one multi-book putAll
+    private static final int BOOKS_PER_WRITE = 32;
+    private static final long PROGRESS_INTERVAL_SECONDS = 5;
+
     private final Path indexRoot;
     private final InvertedIndexStore invertedIndex;
+    private final DocStatsStore docStats;
     private final IndexedStore indexedStore;
+    private final ClaimStore claims;
     private final Gson gson;
+    private final IndexManifest manifest;
+    private final int threads;
+
+    private volatile LoadProgress progress;
 
     public IndexLoader(
             Path indexRoot,
             InvertedIndexStore invertedIndex,
             IndexedStore indexedStore,
             Gson gson
+    ) {
+        this(indexRoot, invertedIndex, null, indexedStore, null, gson, null, Runtime.getRuntime().availableProcessors());
+    }
+
+    /**
+     * docStats may be null, then no length stats are loaded.
+     * claims may be null when nothing indexes while the load runs.
+     * manifest may be null, then every index file is opened to compare its hash.
+     */
+    public IndexLoader(
+            Path indexRoot,
+            InvertedIndexStore invertedIndex,
+            DocStatsStore docStats,
+            IndexedStore indexedStore,
+            ClaimStore claims,
+            Gson gson,
+            IndexManifest manifest,
+            int threads
     ) {
         this.indexRoot = indexRoot;
+        this.manifest = manifest;
         this.invertedIndex = invertedIndex;
+        this.docStats = docStats;
         this.indexedStore = indexedStore;
+        this.claims = claims;
         this.gson = gson;
+        this.threads = Math.max(1, threads);
+    }
+
+    /** Progress of the current or last loadAll run, null before the first run. */
+    public LoadProgress progress() {
+        return progress;
     }
 
     /**
-     * Loads all .index.json files from the index directory into Hazelcast.
-     * Returns the number of files successfully loaded.
+     * Runs loadAll on a background daemon thread. The future completes with
+     * the number of loaded files once the grid holds every index file.
+     */
+    public CompletableFuture<Integer> loadAllAsync() {
+        CompletableFuture<Integer> done = new CompletableFuture<>();
+        Thread t = new Thread(() -> {
+            try {
+                done.complete(loadAll());
+            } catch (Throwable e) {
+                System.err.println("[IndexLoader] Load failed: " + e.getMessage());
+                done.completeExceptionally(e);
+            }
+        }, "index-loader");
+        t.setDaemon(true);
+        t.start();
+        return done;
+    }
+
+    /**
+     * Loads all .idx segments from the index directory into Hazelcast, plus any
+     * .index.json file that has no segment next to it (books indexed before the
+     * binary format). Returns the number of files successfully loaded.
      */
     public int loadAll() {
+        LoadProgress run = new LoadProgress();
+        progress = run;
+
         if (!Files.exists(indexRoot) || !Files.isDirectory(indexRoot)) {
             System.out.println("[IndexLoader] Index directory does not exist: " + indexRoot);
+            run.finish();
             return 0;
         }
 
-        int loaded = 0;
-        int skipped = 0;
-        int errors = 0;
-
-        try (DirectoryStream<Path> stream = Files.newDirectoryStream(indexRoot, "*.index.json")) {
-            for (Path indexFile : stream) {
-                try {
-                    boolean success = loadIndexFile(indexFile);
-                    if (success) {
-                        loaded++;
-                    } else {
-                        skipped++;
-                    }
-                } catch (Exception e) {
-                    errors++;
-                    System.err.println("[IndexLoader] Error loading " + indexFile.getFileName() + ": " + e.getMessage());
-                }
-            }
+        Map<Integer, Path> files;
+        try {
+            files = listIndexFiles(run);
         } catch (IOException e) {
             System.err.println("[IndexLoader] Error reading index directory: " + e.getMessage());
+            run.finish();
             return 0;
         }
+        run.setTotalFiles(files.size() + run.errors());
+
+        Map<Integer, String> gridHashes = fetchGridHashes(new ArrayList<>(files.keySet()));
+        Map<Integer, IndexManifest.Entry> recorded = manifest != null ? IndexManifest.readAll(indexRoot) : Map.of();
+
+        ThreadPoolExecutor pool = workerPool();
+        ScheduledExecutorService reporter = Executors.newSingleThreadScheduledExecutor(r -> daemon(r, "index-loader-progress"));
+        reporter.scheduleAtFixedRate(() -> System.out.println("[IndexLoader] " + run),
+                PROGRESS_INTERVAL_SECONDS, PROGRESS_INTERVAL_SECONDS, TimeUnit.SECONDS);
+
+        try {
+            List<Path> group = new ArrayList<>(BOOKS_PER_WRITE);
+            for (Map.Entry<Integer, Path> e : files.entrySet()) {
+                // Unchanged file whose hash the grid already has: skip without opening it
+                IndexManifest.Entry entry = recorded.get(e.getKey());
+                if (entry != null && entry.hash().equals(gridHashes.get(e.getKey())) && entry.matches(e.getValue())) {
+                    run.recordSkipped();
+                    continue;
+                }
+                group.add(e.getValue());
+                if (group.size() == BOOKS_PER_WRITE) {
+                    submit(pool, group, gridHashes, run);
+                    group = new ArrayList<>(BOOKS_PER_WRITE);
+                }
+            }
+            submit(pool, group, gridHashes, run);
+            pool.shutdown();
+            pool.awaitTermination(Long.MAX_VALUE, TimeUnit.DAYS);
+        } catch (InterruptedException ie) {
+            Thread.currentThread().interrupt();
+            pool.shutdownNow();
+        } finally {
+            reporter.shutdownNow();
+            compactManifest();
+            run.finish();
+        }
 
-        System.out.println("[IndexLoader] Loaded " + loaded + " index files, skipped " + skipped + ", errors " + errors);
-        return loaded;
+        System.out.println("[IndexLoader] Done in " + String.format("%.1f", run.elapsedSeconds()) + "s: " + run);
+        return run.loaded();
+    }
+
+    private void submit(ThreadPoolExecutor pool, List<Path> group, Map<Integer, String> gridHashes, LoadProgress run) {
+        if (group.isEmpty()) return;
+        pool.execute(() -> loadGroup(group, gridHashes, run));
     }
 
     /**
-     * Loads a single index file into Hazelcast.
-     * Returns true if loaded, false if already exists or skipped.
+     * Decodes the files of one group that are missing or stale in the grid,
+     * claims those books and writes the postings and title/author postings of
+     * the ones nobody touched since the load started with a single multi-book
+     * putAll each, then their length stats and hashes.
      */
-    private boolean loadIndexFile(Path indexFile) throws IOException {
-        String content = Files.readString(indexFile);
-        JsonObject json = gson.fromJson(content, JsonObject.class);
+    private void loadGroup(List<Path> group, Map<Integer, String> gridHashes, LoadProgress run) {
+        int[] bookIds = new int[group.size()];
+        TermCounter[] counts = new TermCounter[group.size()];
+        TermCounter[] fieldTerms = new TermCounter[group.size()];
+        int[] lengths = new int[group.size()];
+        int[] uniqueTerms = new int[group.size()];
+        String[] hashes = new String[group.size()];
+        Path[] bookFiles = new Path[group.size()];
+        int n = 0;
 
-        if (!json.has("bookId") || !json.has("terms") || !json.has("hash")) {
-            System.err.println("[IndexLoader] Invalid index file format: " + indexFile.getFileName());
-            return false;
+        for (Path indexFile : group) {
+            try {
+                IndexSegment segment = readIfChanged(indexFile, gridHashes);
+                if (segment == null) {
+                    run.recordSkipped();
+                    continue;
+                }
+                bookFiles[n] = indexFile;
+                bookIds[n] = segment.bookId();
+                counts[n] = segment.terms();
+                fieldTerms[n] = BookFields.terms(segment.title(), segment.author());
+                lengths[n] = segment.tokensTotal();
+                uniqueTerms[n] = segment.terms().size();
+                hashes[n++] = segment.hash();
+            } catch (Exception ex) {
+                run.recordError();
+                System.err.println("[IndexLoader] Error loading " + indexFile.getFileName() + ": " + ex.getMessage());
+            }
         }
+        if (n == 0) return;
 
-        int bookId = json.get("bookId").getAsInt();
-        String hash = json.get("hash").getAsString();
+        boolean[] claimed = new boolean[n];
+        try {
+            n = claimUnchanged(bookIds, counts, fieldTerms, lengths, uniqueTerms, hashes, bookFiles, claimed, n,
+                    gridHashes, run);
+            if (n == 0) return;
+            write(bookIds, counts, fieldTerms, lengths, uniqueTerms, hashes, bookFiles, n, run);
+        } finally {
+            for (int i = 0; i < claimed.length; i++) {
+                if (claimed[i]) claims.release(bookIds[i]);
+            }
+        }
+    }
 
-        // Check if already loaded in Hazelcast
-        String existingHash = indexedStore.getHash(bookId);
-        if (hash.equals(existingHash)) {
-            // Already loaded with same hash, skip
-            return false;
+    /**
+     * Claims the decoded books and keeps those whose grid hash and index file
+     * are unchanged, compacted to the front of the arrays; returns their number.
+     * claimed[i] is set for every book of the compacted arrays that holds a claim.
+     */
+    private int claimUnchanged(int[] bookIds, TermCounter[] counts, TermCounter[] fieldTerms, int[] lengths,
+                               int[] uniqueTerms, String[] hashes, Path[] bookFiles, boolean[] claimed, int n,
+                               Map<Integer, String> gridHashes, LoadProgress run) {
+        Set<Integer> ids = new HashSet<>(n * 2);
+        int kept = 0;
+        for (int i = 0; i < n; i++) {
+            if (claims != null && !claims.tryClaim(bookIds[i])) {
+                // being indexed or deleted right now, that run writes the grid
+                run.recordSkipped();
+                continue;
+            }
+            move(i, kept, bookIds, counts, fieldTerms, lengths, uniqueTerms, hashes, bookFiles);
+            claimed[kept] = claims != null;
+            ids.add(bookIds[kept++]);
+        }
+        if (kept == 0) return 0;
+
+        Map<Integer, String> current = indexedStore.getHashes(ids);
+        int unchanged = 0;
+        for (int i = 0; i < kept; i++) {
+            boolean sameHash = Objects.equals(current.get(bookIds[i]), gridHashes.get(bookIds[i]));
+            if (!sameHash || !Files.exists(bookFiles[i])) {
+                // reindexed or deleted since the load started
+                if (claimed[i]) claims.release(bookIds[i]);
+                claimed[i] = false;
+                run.recordSkipped();
+                continue;
+            }
+            move(i, unchanged, bookIds, counts, fieldTerms, lengths, uniqueTerms, hashes, bookFiles);
+            claimed[i] = false;
+            claimed[unchanged++] = claims != null;
+        }
+        return unchanged;
+    }
+
+    private static void move(int from, int to, int[] bookIds, TermCounter[] counts, TermCounter[] fieldTerms,
+                             int[] lengths, int[] uniqueTerms, String[] hashes, Path[] bookFiles) {
+        if (from == to) return;
+        bookIds[to] = bookIds[from];
+        counts[to] = counts[from];
+        fieldTerms[to] = fieldTerms[from];
+        lengths[to] = lengths[from];
+        uniqueTerms[to] = uniqueTerms[from];
+        hashes[to] = hashes[from];
+        bookFiles[to] = bookFiles[from];
+    }
+
+    private void write(int[] bookIds, TermCounter[] counts, TermCounter[] fieldTerms, int[] lengths,
+                       int[] uniqueTerms, String[] hashes, Path[] bookFiles, int n, LoadProgress run) {
+        try {
+            invertedIndex.putAll(bookIds, counts, n);
+            invertedIndex.fields().putAll(bookIds, fieldTerms, n);
+            if (docStats != null) {
+                docStats.putAll(bookIds, lengths, uniqueTerms, n);
+            }
+        } catch (Exception ex) {
+            for (int i = 0; i < n; i++) run.recordError();
+            System.err.println("[IndexLoader] Error writing postings of books " + Arrays.toString(Arrays.copyOf(bookIds, n)) + ": " + ex.getMessage());
+            return;
+        }
+
+        // Postings first, then the hashes, so a crash in between reloads the books next time;
+        // still under the claims, so a reindex that follows cannot be overwritten
+        Map<Integer, String> written = new HashMap<>(n * 2);
+        for (int i = 0; i < n; i++) written.put(bookIds[i], hashes[i]);
+        indexedStore.putHashes(written);
+        for (int i = 0; i < n; i++) {
+            run.recordLoaded(counts[i].size());
+            recordInManifest(bookIds[i], hashes[i], bookFiles[i]);
+        }
+    }
+
+    /** The decoded segment, or null if the grid already has this book with the same hash. */
+    private IndexSegment readIfChanged(Path indexFile, Map<Integer, String> gridHashes) throws IOException {
+        boolean binary = indexFile.getFileName().toString().endsWith(IndexSegment.EXTENSION);
+
+        // Binary segments: check the header first, the dictionary is only decoded when needed
+        IndexSegment segment = binary ? IndexSegment.readHeader(indexFile) : IndexSegment.readJson(indexFile, gson);
+        if (segment.hash().equals(gridHashes.get(segment.bookId()))) {
+            // in the grid but not (correctly) in the manifest, record it so the next start skips it unopened
+            recordInManifest(segment.bookId(), segment.hash(), indexFile);
+            return null;
+        }
+        return binary ? IndexSegment.read(indexFile) : segment;
+    }
+
+    private void recordInManifest(int bookId, String hash, Path indexFile) {
+        if (manifest == null) return;
+        try {
+            manifest.record(bookId, hash, indexFile);
+        } catch (IOException e) {
+            System.err.println("[IndexLoader] Cannot update manifest for book " + bookId + ": " + e.getMessage());
+        }
+    }
+
+    private void compactManifest() {
+        if (manifest == null) return;
+        try {
+            manifest.compact();
+        } catch (IOException e) {
+            System.err.println("[IndexLoader] Cannot compact manifest: " + e.getMessage());
+        }
+    }
+
+    private Map<Integer, Path> listIndexFiles(LoadProgress run) throws IOException {
+        Map<Integer, Path> files = new LinkedHashMap<>();
+        try (DirectoryStream<Path> stream = Files.newDirectoryStream(indexRoot, "*" + IndexSegment.EXTENSION)) {
+            for (Path p : stream) {
+                addIndexFile(files, p, IndexSegment.EXTENSION, run);
+            }
+        }
+        try (DirectoryStream<Path> stream = Files.newDirectoryStream(indexRoot, "*" + IndexSegment.JSON_EXTENSION)) {
+            for (Path p : stream) {
+                addIndexFile(files, p, IndexSegment.JSON_EXTENSION, run);
+            }
         }
+        return files;
+    }
 
-        // Load terms into inverted index
-        JsonObject terms = json.getAsJsonObject("terms");
-        int termCount = 0;
-        for (Map.Entry<String, com.google.gson.JsonElement> entry : terms.entrySet()) {
-            String term = entry.getKey();
-            invertedIndex.put(term, bookId);
-            termCount++;
+    // First file per bookId wins, .idx is listed before .index.json
+    private static void addIndexFile(Map<Integer, Path> files, Path p, String extension, LoadProgress run) {
+        String name = p.getFileName().toString();
+        try {
+            files.putIfAbsent(Integer.parseInt(name.substring(0, name.length() - extension.length())), p);
+        } catch (NumberFormatException e) {
+            run.recordError();
+            System.err.println("[IndexLoader] Cannot parse book id from " + name);
         }
+    }
 
-        // Mark as indexed in Hazelcast
-        indexedStore.putHash(bookId, hash);
+    private Map<Integer, String> fetchGridHashes(List<Integer> bookIds) {
+        Map<Integer, String> out = new HashMap<>(bookIds.size() * 2);
+        for (int from = 0; from < bookIds.size(); from += HASH_BATCH) {
+            List<Integer> chunk = bookIds.subList(from, Math.min(bookIds.size(), from + HASH_BATCH));
+            out.putAll(indexedStore.getHashes(new HashSet<>(chunk)));
+        }
+        return out;
+    }
+
+    // Bounded queue plus caller-runs keeps at most ~3x threads decoded groups in memory
+    private ThreadPoolExecutor workerPool() {
+        AtomicInteger n = new AtomicInteger();
+        return new ThreadPoolExecutor(
+                threads, threads, 0L, TimeUnit.MILLISECONDS,
+                new ArrayBlockingQueue<>(threads * 2),
+                r -> daemon(r, "index-loader-" + n.incrementAndGet()),
+                new ThreadPoolExecutor.CallerRunsPolicy()
+        );
+    }
 
-        System.out.println("[IndexLoader] Loaded book " + bookId + " with " + termCount + " terms from " + indexFile.getFileName());
-        return true;
+    private static Thread daemon(Runnable r, String name) {
+        Thread t = new Thread(r, name);
+        t.setDaemon(true);
+        return t;
     }
 }
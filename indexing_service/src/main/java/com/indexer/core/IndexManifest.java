@@ -0,0 +1,162 @@
+package com.indexer.core;
+
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.DirectoryStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.nio.file.attribute.BasicFileAttributes;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.zip.CRC32;
+
+/**
+ * On-disk record of the index files a node has written:
+ * bookId -> (hash, file size, mtime, generation).
+ *
+ * The indexers share one index directory, so every node appends to its own
+ * "manifest-<nodeId>.tsv"; readAll merges all of them. Each update is a single
+ * append of one checksummed line, so a crash can at worst leave a torn last
+ * line, which readers drop. compact() rewrites the node's own file through a
+ * temp file and an atomic move.
+ *
+ * IndexLoader uses it to skip books whose file is unchanged and whose hash the
+ * grid already has, without opening the index file. Deleted books get a
+ * tombstone line (size -1) that hides older entries from other nodes.
+ */
+public final class IndexManifest {
+
+    private static final String PREFIX = "manifest-";
+    private static final String SUFFIX = ".tsv";
+
+    private final Path indexRoot;
+    private final Path file;
+    private long generation;
+
+    public IndexManifest(Path indexRoot, String nodeId) {
+        this.indexRoot = indexRoot;
+        this.file = indexRoot.resolve(PREFIX + nodeId.replaceAll("[^A-Za-z0-9._-]", "_") + SUFFIX);
+        this.generation = read(file).values().stream().mapToLong(Entry::generation).max().orElse(0);
+    }
+
+    public record Entry(int bookId, String hash, long size, long mtimeMillis, long generation) {
+
+        /** True if the file on disk still has the size and mtime recorded here. */
+        public boolean matches(Path indexFile) {
+            try {
+                BasicFileAttributes attrs = Files.readAttributes(indexFile, BasicFileAttributes.class);
+                return attrs.size() == size && attrs.lastModifiedTime().toMillis() == mtimeMillis;
+            } catch (IOException e) {
+                return false;
+            }
+        }
+    }
+
+    /** Records that indexFile now holds bookId with the given hash. */
+    public synchronized Entry record(int bookId, String hash, Path indexFile) throws IOException {
+        BasicFileAttributes attrs = Files.readAttributes(indexFile, BasicFileAttributes.class);
+        Entry e = new Entry(bookId, hash, attrs.size(), attrs.lastModifiedTime().toMillis(), ++generation);
+        append(e);
+        return e;
+    }
+
+    /** Records that bookId was deleted; readAll no longer returns it from any node's manifest. */
+    public synchronized void remove(int bookId) throws IOException {
+        append(new Entry(bookId, "-", -1, System.currentTimeMillis(), ++generation));
+    }
+
+    /**
+     * Rewrites this node's manifest with one line per book, dropping books
+     * whose index file is gone.
+     */
+    public synchronized void compact() throws IOException {
+        Map<Integer, Entry> own = read(file);
+        StringBuilder sb = new StringBuilder(own.size() * 96);
+        for (Entry e : own.values()) {
+            boolean exists = Files.exists(IndexSegment.binaryPath(indexRoot, e.bookId()))
+                    || Files.exists(IndexSegment.jsonPath(indexRoot, e.bookId()));
+            if (exists) sb.append(format(e));
+        }
+        Path tmp = file.resolveSibling(file.getFileName() + ".tmp");
+        Files.writeString(tmp, sb, StandardCharsets.UTF_8);
+        Files.move(tmp, file, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+    }
+
+    /**
+     * Merged view of all nodes' manifests. For a book recorded by several
+     * nodes the newest file (mtime, then generation) wins.
+     */
+    public static Map<Integer, Entry> readAll(Path indexRoot) {
+        Map<Integer, Entry> merged = new HashMap<>();
+        if (!Files.isDirectory(indexRoot)) return merged;
+        try (DirectoryStream<Path> stream = Files.newDirectoryStream(indexRoot, PREFIX + "*" + SUFFIX)) {
+            for (Path p : stream) {
+                read(p).values().forEach(e -> merged.merge(e.bookId(), e, IndexManifest::newer));
+            }
+        } catch (IOException e) {
+            System.err.println("[IndexManifest] Error reading manifests: " + e.getMessage());
+        }
+        merged.values().removeIf(e -> e.size() < 0);
+        return merged;
+    }
+
+    private void append(Entry e) throws IOException {
+        byte[] line = format(e).getBytes(StandardCharsets.UTF_8);
+        try (FileChannel ch = FileChannel.open(file,
+                StandardOpenOption.CREATE, StandardOpenOption.WRITE, StandardOpenOption.APPEND)) {
+            ByteBuffer buf = ByteBuffer.wrap(line);
+            while (buf.hasRemaining()) ch.write(buf);
+        }
+    }
+
+    private static Map<Integer, Entry> read(Path p) {
+        Map<Integer, Entry> out = new HashMap<>();
+        if (!Files.exists(p)) return out;
+        try (BufferedReader r = Files.newBufferedReader(p, StandardCharsets.UTF_8)) {
+            String line;
+            while ((line = r.readLine()) != null) {
+                Entry e = parse(line);
+                if (e != null) out.merge(e.bookId(), e, IndexManifest::newer);
+            }
+        } catch (IOException e) {
+            System.err.println("[IndexManifest] Error reading " + p.getFileName() + ": " + e.getMessage());
+        }
+        return out;
+    }
+
+    private static Entry newer(Entry a, Entry b) {
+        if (a.mtimeMillis() != b.mtimeMillis()) return a.mtimeMillis() > b.mtimeMillis() ? a : b;
+        return a.generation() >= b.generation() ? a : b;
+    }
+
+    // bookId \t hash \t size \t mtime \t generation \t crc32(of the fields before it)
+    private static String format(Entry e) {
+        String fields = e.bookId() + "\t" + e.hash() + "\t" + e.size() + "\t" + e.mtimeMillis() + "\t" + e.generation();
+        return fields + "\t" + Long.toHexString(crc(fields)) + "\n";
+    }
+
+    private static Entry parse(String line) {
+        int cut = line.lastIndexOf('\t');
+        if (cut < 0) return null;
+        String fields = line.substring(0, cut);
+        try {
+            if (Long.parseLong(line.substring(cut + 1), 16) != crc(fields)) return null;
+            String[] f = fields.split("\t");
+            if (f.length != 5) return null;
+            return new Entry(Integer.parseInt(f[0]), f[1], Long.parseLong(f[2]), Long.parseLong(f[3]), Long.parseLong(f[4]));
+        } catch (NumberFormatException e) {
+            return null;
+        }
+    }
+
+    private static long crc(String s) {
+        CRC32 crc = new CRC32();
+        crc.update(s.getBytes(StandardCharsets.UTF_8));
+        return crc.getValue();
+    }
+}
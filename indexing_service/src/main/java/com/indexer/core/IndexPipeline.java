@@ -0,0 +1,71 @@
+package com.indexer.core;
+
+import com.indexer.dto.IndexResponse;
+import com.indexer.index.MetadataLock;
+
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+
+/**
+ * IndexService's indexing steps as a StagedPipeline, so tokenizing one book
+ * overlaps with the grid and disk writes of others:
+ *
+ *   read    validate, claim, fingerprint, already-indexed check (disk, grid reads)
+ *   analyze parse, tokenize and count in one streaming pass (CPU)
+ *   publish postings delta to Hazelcast (grid)
+ *   persist index files, manifest, hash and metadata (disk, grid)
+ *
+ * The claim keeps a book exclusive from read to finish, as in the single-call
+ * path; the metadata lock is only held around the check and the final
+ * writes instead of the whole run.
+ */
+public final class IndexPipeline implements AutoCloseable {
+
+    /** Threads per stage and the capacity of every stage's input queue. */
+    public record Config(int readThreads, int analyzeThreads, int publishThreads, int persistThreads, int queueCapacity) {
+
+        public static Config defaults() {
+            return new Config(2, Runtime.getRuntime().availableProcessors(), 4, 2, 16);
+        }
+    }
+
+    private final IndexService indexService;
+    private final StagedPipeline<IndexTask, IndexResponse> pipeline;
+
+    public IndexPipeline(IndexService indexService, Config config) {
+        this.indexService = indexService;
+        int cap = config.queueCapacity();
+        this.pipeline = StagedPipeline.<IndexTask, IndexResponse>builder("index", indexService::finish)
+                .stage("read", config.readThreads(), cap,
+                        t -> indexService.start(t) && indexService.prepare(t) && locked(t, indexService::check))
+                .stage("analyze", config.analyzeThreads(), cap, indexService::analyze)
+                .stage("publish", config.publishThreads(), cap, indexService::publish)
+                .stage("persist", config.persistThreads(), cap, t -> locked(t, indexService::persist))
+                .build();
+    }
+
+    /** Queues a book, blocking while the read stage is full; same responses as IndexService.index. */
+    public CompletableFuture<IndexResponse> submit(String lakePath, boolean forceReindex) throws InterruptedException {
+        return pipeline.submit(new IndexTask(lakePath, forceReindex));
+    }
+
+    public List<StagedPipeline.StageStats> stats() {
+        return pipeline.stats();
+    }
+
+    private boolean locked(IndexTask t, StagedPipeline.Stage<IndexTask> step) throws Exception {
+        MetadataLock lock = indexService.lock(t.bookId);
+        try {
+            return step.process(t);
+        } finally {
+            if (lock != null) {
+                lock.unlock();
+            }
+        }
+    }
+
+    @Override
+    public void close() {
+        pipeline.close();
+    }
+}
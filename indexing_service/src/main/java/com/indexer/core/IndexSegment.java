@@ -0,0 +1,311 @@
+package com.indexer.core;
+
+import com.google.gson.Gson;
+import com.google.gson.JsonElement;
+import com.google.gson.JsonObject;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.util.Arrays;
+import java.util.Map;
+import java.util.zip.CRC32C;
+
+/**
+ * One book's term counts plus the header fields the loader needs, and the
+ * binary "<bookId>.idx" file format they are stored in.
+ *
+ * Layout (big-endian):
+ *   int    magic "SIDX"
+ *   byte   version
+ *   int    bookId
+ *   int    tokensTotal
+ *   int    termCount
+ *   str    hash, sourceBookId, lakePath   (u16 length + UTF-8 bytes each)
+ *   str    title, author                  (version 2+)
+ *   termCount x { varint sharedPrefix, varint suffixLen, suffix bytes, varint count }
+ *   int    CRC32C of everything above
+ *
+ * Terms are sorted by their UTF-8 bytes and front-coded against the previous
+ * term. The .index.json written by IndexFileWriter is kept as an export/debug
+ * format and can still be read with readJson. Version 1 files are still
+ * read, with an empty title and author.
+ */
+public final class IndexSegment {
+
+    public static final String EXTENSION = ".idx";
+    public static final String JSON_EXTENSION = ".index.json";
+
+    private static final int MAGIC = 0x53494458; // "SIDX"
+    private static final byte VERSION = 2;
+
+    private final int bookId;
+    private final String hash;
+    private final int tokensTotal;
+    private final String sourceBookId;
+    private final String lakePath;
+    private final String title;
+    private final String author;
+    private final int termCount;
+    private final TermCounter terms;
+
+    public IndexSegment(int bookId, String hash, int tokensTotal, String sourceBookId, String lakePath, TermCounter terms) {
+        this(bookId, hash, tokensTotal, sourceBookId, lakePath, "", "", terms);
+    }
+
+    public IndexSegment(int bookId, String hash, int tokensTotal, String sourceBookId, String lakePath,
+                        String title, String author, TermCounter terms) {
+        this(bookId, hash, tokensTotal, sourceBookId, lakePath, title, author, terms.size(), terms);
+    }
+
+    private IndexSegment(int bookId, String hash, int tokensTotal, String sourceBookId, String lakePath,
+                         String title, String author, int termCount, TermCounter terms) {
+        this.bookId = bookId;
+        this.hash = hash;
+        this.tokensTotal = tokensTotal;
+        this.sourceBookId = sourceBookId;
+        this.lakePath = lakePath;
+        this.title = title == null ? "" : title;
+        this.author = author == null ? "" : author;
+        this.termCount = termCount;
+        this.terms = terms;
+    }
+
+    public int bookId() {
+        return bookId;
+    }
+
+    public String hash() {
+        return hash;
+    }
+
+    public int tokensTotal() {
+        return tokensTotal;
+    }
+
+    public String sourceBookId() {
+        return sourceBookId;
+    }
+
+    public String lakePath() {
+        return lakePath;
+    }
+
+    /** "Title:" line of the book's header, "" if it had none. */
+    public String title() {
+        return title;
+    }
+
+    /** "Author:" line of the book's header, "" if it had none. */
+    public String author() {
+        return author;
+    }
+
+    public int termCount() {
+        return termCount;
+    }
+
+    /** Term counts, null for a segment opened with readHeader. */
+    public TermCounter terms() {
+        return terms;
+    }
+
+    public static Path binaryPath(Path indexRoot, int bookId) {
+        return indexRoot.resolve(bookId + EXTENSION);
+    }
+
+    public static Path jsonPath(Path indexRoot, int bookId) {
+        return indexRoot.resolve(bookId + JSON_EXTENSION);
+    }
+
+    /** Writes the segment to a temp file next to out and moves it into place. */
+    public void write(Path out) throws IOException {
+        String[] sorted = new String[terms.size()];
+        for (int i = 0; i < sorted.length; i++) sorted[i] = terms.term(i);
+        byte[][] encoded = new byte[sorted.length][];
+        for (int i = 0; i < sorted.length; i++) encoded[i] = sorted[i].getBytes(StandardCharsets.UTF_8);
+        Integer[] order = new Integer[sorted.length];
+        for (int i = 0; i < order.length; i++) order[i] = i;
+        Arrays.sort(order, (a, b) -> Arrays.compareUnsigned(encoded[a], encoded[b]));
+
+        Buffer buf = new Buffer(64 + sorted.length * 12);
+        buf.writeInt(MAGIC);
+        buf.write(VERSION);
+        buf.writeInt(bookId);
+        buf.writeInt(tokensTotal);
+        buf.writeInt(sorted.length);
+        buf.writeShortString(hash);
+        buf.writeShortString(sourceBookId);
+        buf.writeShortString(lakePath);
+        buf.writeShortString(title);
+        buf.writeShortString(author);
+
+        byte[] prev = new byte[0];
+        for (int idx : order) {
+            byte[] term = encoded[idx];
+            int shared = Arrays.mismatch(prev, term);
+            if (shared < 0) shared = term.length;
+            buf.writeVarint(shared);
+            buf.writeVarint(term.length - shared);
+            buf.write(term, shared, term.length - shared);
+            buf.writeVarint(terms.count(idx));
+            prev = term;
+        }
+
+        CRC32C crc = new CRC32C();
+        crc.update(buf.array(), 0, buf.size());
+        buf.writeInt((int) crc.getValue());
+
+        Path tmp = out.resolveSibling(out.getFileName() + ".tmp");
+        Files.write(tmp, Arrays.copyOf(buf.array(), buf.size()));
+        Files.move(tmp, out, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+    }
+
+    /** Maps the file and decodes header and terms, verifying the checksum. */
+    public static IndexSegment read(Path file) throws IOException {
+        MappedByteBuffer mb = map(file);
+        if (mb.limit() < 4) throw new IOException("truncated index segment: " + file.getFileName());
+        CRC32C crc = new CRC32C();
+        ByteBuffer body = mb.duplicate().limit(mb.limit() - 4);
+        crc.update(body);
+        if ((int) crc.getValue() != mb.getInt(mb.limit() - 4)) {
+            throw new IOException("checksum mismatch in " + file.getFileName());
+        }
+
+        int[] head = readFixedHeader(mb, file);
+        String hash = readShortString(mb);
+        String sourceBookId = readShortString(mb);
+        String lakePath = readShortString(mb);
+        String title = head[3] >= 2 ? readShortString(mb) : "";
+        String author = head[3] >= 2 ? readShortString(mb) : "";
+
+        int termCount = head[2];
+        TermCounter terms = new TermCounter(termCount);
+        byte[] scratch = new byte[64];
+        for (int i = 0; i < termCount; i++) {
+            int shared = readVarint(mb);
+            int suffix = readVarint(mb);
+            int len = shared + suffix;
+            if (len > scratch.length) scratch = Arrays.copyOf(scratch, Math.max(len, scratch.length * 2));
+            mb.get(scratch, shared, suffix);
+            terms.add(new String(scratch, 0, len, StandardCharsets.UTF_8), readVarint(mb));
+        }
+        return new IndexSegment(head[0], hash, head[1], sourceBookId, lakePath, title, author, termCount, terms);
+    }
+
+    /** Header only, terms() is null. No checksum check, used to skip unchanged books cheaply. */
+    public static IndexSegment readHeader(Path file) throws IOException {
+        MappedByteBuffer mb = map(file);
+        int[] head = readFixedHeader(mb, file);
+        String hash = readShortString(mb);
+        String sourceBookId = readShortString(mb);
+        String lakePath = readShortString(mb);
+        String title = head[3] >= 2 ? readShortString(mb) : "";
+        String author = head[3] >= 2 ? readShortString(mb) : "";
+        return new IndexSegment(head[0], hash, head[1], sourceBookId, lakePath, title, author, head[2], null);
+    }
+
+    /** Reads a legacy/debug .index.json file into a segment. */
+    public static IndexSegment readJson(Path file, Gson gson) throws IOException {
+        JsonObject json = gson.fromJson(Files.readString(file), JsonObject.class);
+        if (json == null || !json.has("bookId") || !json.has("terms") || !json.has("hash")) {
+            throw new IOException("invalid index file format: " + file.getFileName());
+        }
+        JsonObject termsJson = json.getAsJsonObject("terms");
+        TermCounter terms = new TermCounter(termsJson.size());
+        for (Map.Entry<String, JsonElement> entry : termsJson.entrySet()) {
+            terms.add(entry.getKey(), entry.getValue().getAsInt());
+        }
+        return new IndexSegment(
+                json.get("bookId").getAsInt(),
+                json.get("hash").getAsString(),
+                json.has("tokensTotal") ? json.get("tokensTotal").getAsInt() : terms.total(),
+                json.has("sourceBookId") ? json.get("sourceBookId").getAsString() : "",
+                json.has("lakePath") ? json.get("lakePath").getAsString() : "",
+                json.has("title") ? json.get("title").getAsString() : "",
+                json.has("author") ? json.get("author").getAsString() : "",
+                terms
+        );
+    }
+
+    private static MappedByteBuffer map(Path file) throws IOException {
+        try (FileChannel ch = FileChannel.open(file, StandardOpenOption.READ)) {
+            return ch.map(FileChannel.MapMode.READ_ONLY, 0, ch.size());
+        }
+    }
+
+    // bookId, tokensTotal, termCount, version
+    private static int[] readFixedHeader(ByteBuffer mb, Path file) throws IOException {
+        if (mb.remaining() < 17 || mb.getInt() != MAGIC) {
+            throw new IOException("not an index segment: " + file.getFileName());
+        }
+        byte version = mb.get();
+        if (version < 1 || version > VERSION) {
+            throw new IOException("unsupported index segment version " + version + ": " + file.getFileName());
+        }
+        return new int[]{mb.getInt(), mb.getInt(), mb.getInt(), version};
+    }
+
+    private static String readShortString(ByteBuffer mb) {
+        int len = mb.getShort() & 0xFFFF;
+        byte[] b = new byte[len];
+        mb.get(b);
+        return new String(b, StandardCharsets.UTF_8);
+    }
+
+    private static int readVarint(ByteBuffer mb) {
+        int value = 0;
+        int shift = 0;
+        while (true) {
+            byte b = mb.get();
+            value |= (b & 0x7F) << shift;
+            if (b >= 0) return value;
+            shift += 7;
+        }
+    }
+
+    private static final class Buffer extends ByteArrayOutputStream {
+        Buffer(int size) {
+            super(size);
+        }
+
+        byte[] array() {
+            return buf;
+        }
+
+        void writeInt(int v) {
+            write(v >>> 24);
+            write(v >>> 16);
+            write(v >>> 8);
+            write(v);
+        }
+
+        void writeVarint(int v) {
+            while ((v & ~0x7F) != 0) {
+                write((v & 0x7F) | 0x80);
+                v >>>= 7;
+            }
+            write(v);
+        }
+
+        // Longer strings are cut to 0xFFFF bytes, on a code point boundary so
+        // that they still decode to a prefix of the original
+        void writeShortString(String s) {
+            byte[] b = (s == null ? "" : s).getBytes(StandardCharsets.UTF_8);
+            int len = Math.min(b.length, 0xFFFF);
+            while (len < b.length && len > 0 && (b[len] & 0xC0) == 0x80) {
+                len--;
+            }
+            write(len >>> 8);
+            write(len);
+            write(b, 0, len);
+        }
+    }
+}
@@ -1,24 +1,25 @@
 package com.indexer.core;
 
 import com.google.gson.Gson;
+import com.indexer.dto.DeleteResponse;
+import com.indexer.dto.DeletionStats;
 import com.indexer.dto.DocumentMetadata;
 import com.indexer.dto.IndexResponse;
 import com.indexer.index.ClaimStore;
+import com.indexer.index.DocStatsStore;
 import com.indexer.index.DocumentMetadataStore;
 import com.indexer.index.IndexedStore;
 import com.indexer.index.InvertedIndexStore;
 import com.indexer.index.MetadataLock;
+import com.stage3.index.CollectionStats;
 
 import java.io.IOException;
-import java.nio.charset.StandardCharsets;
 import java.nio.file.Files;
 import java.nio.file.Path;
-import java.security.MessageDigest;
 import java.time.Instant;
-import java.util.HashMap;
 import java.util.LinkedHashMap;
-import java.util.List;
 import java.util.Map;
+import java.util.concurrent.atomic.LongAdder;
 
 public final class IndexService {
 
@@ -29,13 +30,22 @@ public final class IndexService {
     private final InvertedIndexStore invertedIndex;
     private final IndexedStore indexedStore;
     private final DocumentMetadataStore metadataStore;
+    private final DocStatsStore docStats;
     private final String nodeId;
 
     private final BookParser bookParser;
     private final Tokenizer tokenizer;
+    private final IndexManifest manifest;
+    private final Fingerprint fingerprint;
+    private final boolean jsonExport;
 
     private final Gson gson = new Gson();
 
+    private final LongAdder booksDeleted = new LongAdder();
+    private final LongAdder termsRemoved = new LongAdder();
+    private final LongAdder postingBytesReclaimed = new LongAdder();
+    private final LongAdder indexFileBytesReclaimed = new LongAdder();
+
     public IndexService(
             PathResolver resolver,
             Path indexRoot,
@@ -46,6 +56,32 @@ public final class IndexService {
             String nodeId,
             BookParser bookParser,
             Tokenizer tokenizer
+    ) {
+        this(resolver, indexRoot, claims, invertedIndex, indexedStore, metadataStore, null, nodeId, bookParser, tokenizer,
+                null, new XxHash64Fingerprint(), false);
+    }
+
+    /**
+     * docStats: per-book lengths and collection totals for BM25, may be null.
+     * manifest: where written index files are recorded for IndexLoader, may be null.
+     * fingerprint: content hash used to detect unchanged books.
+     * jsonExport: also write the human-readable .index.json next to the binary
+     * segment (debugging / export); the loader only needs the .idx file.
+     */
+    public IndexService(
+            PathResolver resolver,
+            Path indexRoot,
+            ClaimStore claims,
+            InvertedIndexStore invertedIndex,
+            IndexedStore indexedStore,
+            DocumentMetadataStore metadataStore,
+            DocStatsStore docStats,
+            String nodeId,
+            BookParser bookParser,
+            Tokenizer tokenizer,
+            IndexManifest manifest,
+            Fingerprint fingerprint,
+            boolean jsonExport
     ) {
         this.resolver = resolver;
         this.indexRoot = indexRoot;
@@ -53,9 +89,23 @@ public final class IndexService {
         this.invertedIndex = invertedIndex;
         this.indexedStore = indexedStore;
         this.metadataStore = metadataStore;
+        this.docStats = docStats;
         this.nodeId = nodeId;
         this.bookParser = bookParser;
         this.tokenizer = tokenizer;
+        this.manifest = manifest;
+        this.fingerprint = fingerprint;
+        this.jsonExport = jsonExport;
+    }
+
+    /** Lake file a lakePath refers to on this node. */
+    public Path resolve(String lakePath) {
+        return resolver.resolve(lakePath);
+    }
+
+    /** Content fingerprint of a lake file, the value change detection compares. */
+    public String fingerprint(Path file) throws IOException {
+        return fingerprint.of(file);
     }
 
     public IndexResponse index(String lakePath) {
@@ -63,207 +113,375 @@ public final class IndexService {
     }
 
     public IndexResponse index(String lakePath, boolean forceReindex) {
+        IndexTask task = new IndexTask(lakePath, forceReindex);
+        Exception failure = null;
+        try {
+            if (start(task) && prepare(task)) {
+                MetadataLock lock = lock(task.bookId);
+                try {
+                    if (check(task) && analyze(task)) {
+                        publish(task);
+                        persist(task);
+                    }
+                } finally {
+                    if (lock != null) {
+                        lock.unlock();
+                    }
+                }
+            }
+        } catch (Exception e) {
+            failure = e;
+        }
+        return finish(task, failure);
+    }
+
+    // The indexing steps, run in this order by index() and by IndexPipeline's stages.
+    // Each returns false when it finished the task early (task.response is set).
 
-        if (lakePath == null || lakePath.isBlank()) {
-            return badRequest(lakePath, "lakePath missing");
+    /** Validates the lake path and claims the book. */
+    boolean start(IndexTask t) {
+        if (t.lakePath == null || t.lakePath.isBlank()) {
+            t.response = badRequest(t.lakePath, "lakePath missing");
+            return false;
         }
 
-        Path resolved = resolver.resolve(lakePath);
+        t.resolved = resolver.resolve(t.lakePath);
 
-        if (!Files.exists(resolved) || !Files.isRegularFile(resolved)) {
-            return notFound(lakePath, resolved, "file not found");
+        if (!Files.exists(t.resolved) || !Files.isRegularFile(t.resolved)) {
+            t.response = notFound(t.lakePath, t.resolved, "file not found");
+            return false;
         }
 
-        Integer bookId = tryParseBookId(resolved);
-        if (bookId == null) {
-            return error(lakePath, resolved, "cannot parse book id from filename");
+        t.bookId = tryParseBookId(t.resolved);
+        if (t.bookId == null) {
+            t.response = error(t.lakePath, t.resolved, "cannot parse book id from filename");
+            return false;
         }
 
-        boolean claimed = false;
         if (claims != null) {
-            claimed = claims.tryClaim(bookId);
-            if (!claimed) {
-                return conflict(lakePath, resolved, bookId, "book already claimed");
+            t.claimed = claims.tryClaim(t.bookId);
+            if (!t.claimed) {
+                t.response = conflict(t.lakePath, t.resolved, t.bookId, "book already claimed");
+                return false;
             }
         }
+        return true;
+    }
 
-        String hash = null;
-        int tokensTotal = 0;
-        int termsUnique = 0;
-
-        try {
-            BookParser.ParsedBook book = bookParser.parse(resolved);
-
-            String text = book.combinedText();
-            if (text == null || text.isBlank()) {
-                return error(lakePath, resolved, "no indexable text found in json");
-            }
-
-            hash = sha256Hex(text);
+    /** Fingerprints the lake file; needs no lock. */
+    boolean prepare(IndexTask t) throws IOException {
+        // Fingerprint of the raw bytes: an unchanged book is detected without parsing any json
+        t.hash = fingerprint.of(t.resolved);
 
-            Files.createDirectories(indexRoot);
-            Path out = indexRoot.resolve(bookId + ".index.json");
+        Files.createDirectories(indexRoot);
+        t.out = IndexSegment.binaryPath(indexRoot, t.bookId);
+        t.jsonOut = IndexSegment.jsonPath(indexRoot, t.bookId);
+        return true;
+    }
 
-            MetadataLock lock = metadataStore != null ? metadataStore.lockFor(bookId) : null;
-            if (lock != null) {
-                lock.lock();
+    /** Stops here when the book is indexed with the same content (unless forced). */
+    boolean check(IndexTask t) {
+        // books indexed before the binary format only have the json file
+        t.indexFileExists = Files.exists(t.out) || Files.exists(t.jsonOut);
+        String existingHash = indexedStore != null ? indexedStore.getHash(t.bookId) : null;
+        t.gridHash = existingHash;
+        DocumentMetadata existingMd = metadataStore != null ? metadataStore.get(t.bookId) : null;
+
+        boolean sameHash = t.hash != null && t.hash.equals(existingHash);
+        boolean sameMetadata = existingMd != null
+                && t.hash != null
+                && t.hash.equals(existingMd.contentHash())
+                && existingMd.status() == DocumentMetadata.Status.INDEXED;
+
+        boolean alreadyIndexed = (sameHash && t.indexFileExists) || (sameMetadata && t.indexFileExists);
+        if (alreadyIndexed && !t.forceReindex) {
+            if (metadataStore != null && existingMd == null && sameHash) {
+                metadataStore.put(t.bookId, new DocumentMetadata(
+                        t.bookId,
+                        t.hash,
+                        Instant.now().toString(),
+                        0,
+                        nodeId,
+                        DocumentMetadata.Status.INDEXED
+                ));
             }
+            long size = safeSize(t.resolved);
+            t.response = new IndexResponse(
+                    "already_indexed",
+                    t.bookId,
+                    t.lakePath,
+                    normalize(t.resolved),
+                    size,
+                    normalize(t.out),
+                    0,
+                    0,
+                    null
+            );
+            return false;
+        }
+        return true;
+    }
 
-            try {
-                boolean indexFileExists = Files.exists(out);
-                String existingHash = indexedStore != null ? indexedStore.getHash(bookId) : null;
-                DocumentMetadata existingMd = metadataStore != null ? metadataStore.get(bookId) : null;
-
-                boolean sameHash = hash != null && hash.equals(existingHash);
-                boolean sameMetadata = existingMd != null
-                        && hash != null
-                        && hash.equals(existingMd.contentHash())
-                        && existingMd.status() == DocumentMetadata.Status.INDEXED;
-
-                boolean alreadyIndexed = (sameHash && indexFileExists) || (sameMetadata && indexFileExists);
-                if (alreadyIndexed && !forceReindex) {
-                    if (metadataStore != null && existingMd == null && sameHash) {
-                        metadataStore.put(bookId, new DocumentMetadata(
-                                bookId,
-                                hash,
-                                Instant.now().toString(),
-                                0,
-                                nodeId,
-                                DocumentMetadata.Status.INDEXED
-                        ));
-                    }
-                    long size = safeSize(resolved);
-                    return new IndexResponse(
-                            "already_indexed",
-                            bookId,
-                            lakePath,
-                            normalize(resolved),
-                            size,
-                            normalize(out),
-                            0,
-                            0,
-                            null
-                    );
-                }
+    /**
+     * Parses, tokenizes and counts the book in one streaming pass (segments
+     * counted in parallel for large books), picking up title and author from the header on the way.
+     */
+    boolean analyze(IndexTask t) throws IOException {
+        BookFields.Collector text = new BookFields.Collector(tokenizer.counting(safeSize(t.resolved)));
+        t.sourceBookId = bookParser.stream(t.resolved, text);
+        t.counts = text.counts();
+        if (!text.hasText()) {
+            t.response = error(t.lakePath, t.resolved, "no indexable text found in json");
+            return false;
+        }
+        t.tokensTotal = t.counts.total();
+        if (t.tokensTotal == 0) {
+            t.response = error(t.lakePath, t.resolved, "no tokens after tokenization");
+            return false;
+        }
+        t.termsUnique = t.counts.size();
+        t.title = text.title();
+        t.author = text.author();
+        t.fieldTerms = BookFields.terms(t.title, t.author);
+        return true;
+    }
 
-                List<String> tokens = tokenizer.tokenize(text);
-                if (tokens.isEmpty()) {
-                    return error(lakePath, resolved, "no tokens after tokenization");
-                }
+    /** Writes the postings and the title/author field postings to the grid. */
+    boolean publish(IndexTask t) {
+        IndexSegment previous = t.indexFileExists ? previousSegment(t.bookId, t.out, t.jsonOut) : null;
+        TermCounter previousFields = previous != null
+                ? BookFields.terms(previous.title(), previous.author())
+                : null;
+        if (previous != null && previous.hash() != null && previous.hash().equals(t.gridHash)) {
+            // On a reindex only the difference to the version in the grid goes out
+            invertedIndex.update(t.bookId, previous.terms(), t.counts);
+            invertedIndex.fields().update(t.bookId, previousFields, t.fieldTerms);
+            return true;
+        }
+        // The grid does not hold the local file's version (fresh or restarted cluster, not
+        // loaded yet, earlier publish failed): write every term, and drop the local
+        // version's terms in case some of them made it
+        invertedIndex.putAll(t.bookId, t.counts);
+        invertedIndex.fields().putAll(t.bookId, t.fieldTerms);
+        if (previous != null) {
+            invertedIndex.removeAll(t.bookId, gone(previous.terms(), t.counts));
+            invertedIndex.fields().removeAll(t.bookId, gone(previousFields, t.fieldTerms));
+        }
+        return true;
+    }
 
-                Map<String, Integer> counts = toCounts(tokens);
-                tokensTotal = tokens.size();
-                termsUnique = counts.size();
+    // terms of previous that current does not have
+    private static TermCounter gone(TermCounter previous, TermCounter current) {
+        TermCounter out = new TermCounter();
+        for (int i = 0; i < previous.size(); i++) {
+            if (current.get(previous.term(i)) == 0) out.add(previous.term(i), 1);
+        }
+        return out;
+    }
 
-                for (String term : counts.keySet()) {
-                    invertedIndex.put(term, bookId);
-                }
+    /** Writes the index files, the hash, the metadata and the book's length stats. */
+    boolean persist(IndexTask t) throws Exception {
+        new IndexSegment(t.bookId, t.hash, t.tokensTotal, t.sourceBookId, t.lakePath, t.title, t.author, t.counts)
+                .write(t.out);
+        if (manifest != null) {
+            manifest.record(t.bookId, t.hash, t.out);
+        }
 
-                Map<String, Object> file = new LinkedHashMap<>();
-                file.put("bookId", bookId);
-                file.put("sourceBookId", book.id());
-                file.put("lakePath", lakePath);
-                file.put("resolvedPath", normalize(resolved));
-                file.put("tokensTotal", tokensTotal);
-                file.put("termsUnique", termsUnique);
-                file.put("hash", hash);
-                file.put("terms", counts);
+        if (jsonExport) {
+            Map<String, Object> file = new LinkedHashMap<>();
+            file.put("bookId", t.bookId);
+            file.put("sourceBookId", t.sourceBookId);
+            file.put("lakePath", t.lakePath);
+            file.put("title", t.title);
+            file.put("author", t.author);
+            file.put("resolvedPath", normalize(t.resolved));
+            file.put("tokensTotal", t.tokensTotal);
+            file.put("termsUnique", t.termsUnique);
+            file.put("hash", t.hash);
+            file.put("terms", t.counts);
+
+            IndexFileWriter.writePrettyWithBlankLines(t.jsonOut, file);
+        }
 
-                IndexFileWriter.writePrettyWithBlankLines(out, file);
+        if (indexedStore != null) {
+            indexedStore.putHash(t.bookId, t.hash);
+        }
+        if (metadataStore != null) {
+            metadataStore.put(t.bookId, new DocumentMetadata(
+                    t.bookId,
+                    t.hash,
+                    Instant.now().toString(),
+                    t.tokensTotal,
+                    nodeId,
+                    DocumentMetadata.Status.INDEXED
+            ));
+        }
+        if (docStats != null) {
+            docStats.put(t.bookId, t.tokensTotal, t.termsUnique);
+        }
 
-                if (indexedStore != null) {
-                    indexedStore.putHash(bookId, hash);
-                }
-                if (metadataStore != null) {
-                    metadataStore.put(bookId, new DocumentMetadata(
-                            bookId,
-                            hash,
-                            Instant.now().toString(),
-                            tokensTotal,
-                            nodeId,
-                            DocumentMetadata.Status.INDEXED
-                    ));
-                }
+        long size = safeSize(t.resolved);
+
+        t.response = new IndexResponse(
+                "ok",
+                t.bookId,
+                t.lakePath,
+                normalize(t.resolved),
+                size,
+                normalize(t.out),
+                t.tokensTotal,
+                t.termsUnique,
+                null
+        );
+        return true;
+    }
 
-                long size = safeSize(resolved);
-
-                return new IndexResponse(
-                        "ok",
-                        bookId,
-                        lakePath,
-                        normalize(resolved),
-                        size,
-                        normalize(out),
-                        tokensTotal,
-                        termsUnique,
-                        null
-                );
-            } catch (IOException e) {
-                if (metadataStore != null && bookId != null) {
-                    metadataStore.put(bookId, new DocumentMetadata(
-                            bookId,
-                            hash,
-                            Instant.now().toString(),
-                            tokensTotal,
-                            nodeId,
-                            DocumentMetadata.Status.FAILED
-                    ));
-                }
-                return error(lakePath, resolved, "io error: " + e.getMessage());
-            } catch (Exception e) {
-                if (metadataStore != null && bookId != null) {
-                    metadataStore.put(bookId, new DocumentMetadata(
-                            bookId,
-                            hash,
-                            Instant.now().toString(),
-                            tokensTotal,
-                            nodeId,
-                            DocumentMetadata.Status.FAILED
-                    ));
-                }
-                return error(lakePath, resolved, "indexing failed: " + e.getMessage());
-            } finally {
-                if (lock != null) {
-                    lock.unlock();
-                }
+    /** Response of the task; a failure marks the book FAILED. Always releases the claim. */
+    IndexResponse finish(IndexTask t, Exception failure) {
+        try {
+            if (failure == null && t.response != null) {
+                return t.response;
             }
-        } catch (IOException e) {
-            if (metadataStore != null && bookId != null) {
-                metadataStore.put(bookId, new DocumentMetadata(
-                        bookId,
-                        hash,
+            if (metadataStore != null && t.bookId != null) {
+                metadataStore.put(t.bookId, new DocumentMetadata(
+                        t.bookId,
+                        t.hash,
                         Instant.now().toString(),
-                        tokensTotal,
+                        t.tokensTotal,
                         nodeId,
                         DocumentMetadata.Status.FAILED
                 ));
             }
-            return error(lakePath, resolved, "io error: " + e.getMessage());
-        } catch (Exception e) {
-            if (metadataStore != null && bookId != null) {
-                metadataStore.put(bookId, new DocumentMetadata(
-                        bookId,
-                        hash,
-                        Instant.now().toString(),
-                        tokensTotal,
-                        nodeId,
-                        DocumentMetadata.Status.FAILED
-                ));
+            String msg = failure == null ? "indexing failed: no result"
+                    : failure instanceof IOException ? "io error: " + failure.getMessage()
+                    : "indexing failed: " + failure.getMessage();
+            return error(t.lakePath, t.resolved, msg);
+        } finally {
+            if (claims != null && t.claimed) {
+                claims.release(t.bookId);
             }
-            return error(lakePath, resolved, "indexing failed: " + e.getMessage());
+        }
+    }
+
+    /** Locks the book's metadata, null without a metadata store. */
+    MetadataLock lock(int bookId) {
+        MetadataLock lock = metadataStore != null ? metadataStore.lockFor(bookId) : null;
+        if (lock != null) {
+            lock.lock();
+        }
+        return lock;
+    }
+
+    /**
+     * Removes a book from the index: its postings and title/author postings
+     * (batched per partition, using the term list, title and author of its index file), the index files, the manifest
+     * entry, its hash, its metadata and its length stats.
+     */
+    public DeleteResponse delete(int bookId) {
+        boolean claimed = false;
+        if (claims != null) {
+            claimed = claims.tryClaim(bookId);
+            if (!claimed) {
+                return new DeleteResponse("conflict", bookId, null, null, null, "book already claimed");
+            }
+        }
+
+        MetadataLock lock = metadataStore != null ? metadataStore.lockFor(bookId) : null;
+        if (lock != null) {
+            lock.lock();
+        }
+
+        try {
+            Path out = IndexSegment.binaryPath(indexRoot, bookId);
+            Path jsonOut = IndexSegment.jsonPath(indexRoot, bookId);
+            boolean indexFileExists = Files.exists(out) || Files.exists(jsonOut);
+            String existingHash = indexedStore != null ? indexedStore.getHash(bookId) : null;
+            DocumentMetadata existingMd = metadataStore != null ? metadataStore.get(bookId) : null;
+
+            if (!indexFileExists && existingHash == null && existingMd == null) {
+                return new DeleteResponse("not_found", bookId, null, null, null, "book not indexed");
+            }
+
+            TermCounter terms = null;
+            TermCounter fieldTerms = null;
+            if (indexFileExists) {
+                IndexSegment segment = previousSegment(bookId, out, jsonOut);
+                if (segment == null) {
+                    // without the term list the postings cannot be found; keep everything for a retry
+                    return new DeleteResponse("error", bookId, null, null, null, "index file unreadable");
+                }
+                terms = segment.terms();
+                fieldTerms = BookFields.terms(segment.title(), segment.author());
+            }
+
+            long postingBytes = terms != null ? invertedIndex.removeAll(bookId, terms) : 0;
+            if (fieldTerms != null) {
+                postingBytes += invertedIndex.fields().removeAll(bookId, fieldTerms);
+            }
+            int termCount = terms != null ? terms.size() : 0;
+
+            long fileBytes = deleteFile(out) + deleteFile(jsonOut);
+            if (manifest != null) {
+                manifest.remove(bookId);
+            }
+            if (indexedStore != null) {
+                indexedStore.remove(bookId);
+            }
+            if (metadataStore != null) {
+                metadataStore.remove(bookId);
+            }
+            if (docStats != null) {
+                docStats.remove(bookId);
+            }
+
+            booksDeleted.increment();
+            termsRemoved.add(termCount);
+            postingBytesReclaimed.add(postingBytes);
+            indexFileBytesReclaimed.add(fileBytes);
+            return new DeleteResponse("ok", bookId, termCount, postingBytes, fileBytes, null);
+        } catch (Exception e) {
+            return new DeleteResponse("error", bookId, null, null, null, "delete failed: " + e.getMessage());
         } finally {
+            if (lock != null) {
+                lock.unlock();
+            }
             if (claims != null && claimed) {
                 claims.release(bookId);
             }
         }
     }
 
-    private Map<String, Integer> toCounts(List<String> tokens) {
-        Map<String, Integer> counts = new HashMap<>();
-        for (String t : tokens) {
-            counts.merge(t, 1, Integer::sum);
+    /** Book count and total length of the indexed collection, null without a stats store. */
+    public CollectionStats collectionStats() {
+        return docStats != null ? docStats.collection() : null;
+    }
+
+    public DeletionStats deletionStats() {
+        return new DeletionStats(
+                booksDeleted.sum(),
+                termsRemoved.sum(),
+                postingBytesReclaimed.sum(),
+                indexFileBytesReclaimed.sum()
+        );
+    }
+
+    // Index file of the version currently in the grid (term counts, title and
+    // author); null when that file is unreadable, so the caller falls back to a full write
+    private IndexSegment previousSegment(int bookId, Path out, Path jsonOut) {
+        try {
+            IndexSegment segment = Files.exists(out)
+                    ? IndexSegment.read(out)
+                    : IndexSegment.readJson(jsonOut, gson);
+            return segment.bookId() == bookId ? segment : null;
+        } catch (Exception e) {
+            return null;
         }
-        return counts;
+    }
+
+    // Size of the deleted file, 0 if it did not exist
+    private long deleteFile(Path p) throws IOException {
+        long size = Files.exists(p) ? safeSize(p) : 0;
+        return Files.deleteIfExists(p) ? Math.max(size, 0) : 0;
     }
 
     private long safeSize(Path p) {
@@ -274,21 +492,6 @@ public final class IndexService {
         }
     }
 
-    private String sha256Hex(String s) {
-        try {
-            MessageDigest md = MessageDigest.getInstance("SHA-256");
-            byte[] dig = md.digest(s.getBytes(StandardCharsets.UTF_8));
-            StringBuilder sb = new StringBuilder(dig.length * 2);
-            for (byte b : dig) {
-                sb.append(Character.forDigit((b >> 4) & 0xF, 16));
-                sb.append(Character.forDigit(b & 0xF, 16));
-            }
-            return sb.toString();
-        } catch (Exception e) {
-            throw new RuntimeException("hash failed", e);
-        }
-    }
-
     private IndexResponse badRequest(String lakePath, String msg) {
         return new IndexResponse("bad_request", null, lakePath, null, null, null, null, null, msg);
     }
@@ -306,14 +509,7 @@ public final class IndexService {
     }
 
     private Integer tryParseBookId(Path resolved) {
-        if (resolved == null) return null;
-        String filename = resolved.getFileName().toString();
-        if (filename.endsWith(".json")) filename = filename.substring(0, filename.length() - 5);
-        try {
-            return Integer.parseInt(filename);
-        } catch (NumberFormatException e) {
-            return null;
-        }
+        return PathResolver.bookIdOf(resolved);
     }
 
     private String normalize(Path p) {
@@ -0,0 +1,47 @@
+package com.indexer.core;
+
+import com.indexer.dto.IndexResponse;
+
+import java.nio.file.Path;
+
+/**
+ * State of one book while IndexService's indexing steps run on it, either in
+ * one call (IndexService.index) or handed from stage to stage (IndexPipeline).
+ * A step that ends the work early sets the response; finish always releases
+ * the claim.
+ */
+final class IndexTask {
+
+    final String lakePath;
+    final boolean forceReindex;
+
+    Path resolved;
+    Integer bookId;
+    boolean claimed;
+
+    String hash;
+    // hash in indexed-books when the check ran: the version whose postings the grid holds
+    String gridHash;
+    Path out;
+    Path jsonOut;
+    boolean indexFileExists;
+
+    String sourceBookId;
+    TermCounter counts;
+    int tokensTotal;
+    int termsUnique;
+    String title;
+    String author;
+    TermCounter fieldTerms;
+
+    IndexResponse response;
+
+    IndexTask(String lakePath, boolean forceReindex) {
+        this.lakePath = lakePath;
+        this.forceReindex = forceReindex;
+    }
+
+    boolean done() {
+        return response != null;
+    }
+}
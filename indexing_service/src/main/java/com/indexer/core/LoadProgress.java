@@ -0,0 +1,96 @@
+package com.indexer.core;
+
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Counters of one IndexLoader run, updated by the loader workers and read by
+ * the progress reporter.
+ */
+public final class LoadProgress {
+
+    private final long startNanos = System.nanoTime();
+    private volatile long endNanos;
+    private volatile int totalFiles;
+    private final AtomicInteger loaded = new AtomicInteger();
+    private final AtomicInteger skipped = new AtomicInteger();
+    private final AtomicInteger errors = new AtomicInteger();
+    private final AtomicLong terms = new AtomicLong();
+
+    void setTotalFiles(int totalFiles) {
+        this.totalFiles = totalFiles;
+    }
+
+    /** Freezes elapsed time and rates at the end of the run. */
+    void finish() {
+        endNanos = System.nanoTime();
+    }
+
+    void recordLoaded(int termCount) {
+        loaded.incrementAndGet();
+        terms.addAndGet(termCount);
+    }
+
+    void recordSkipped() {
+        skipped.incrementAndGet();
+    }
+
+    void recordError() {
+        errors.incrementAndGet();
+    }
+
+    public int totalFiles() {
+        return totalFiles;
+    }
+
+    public int loaded() {
+        return loaded.get();
+    }
+
+    public int skipped() {
+        return skipped.get();
+    }
+
+    public int errors() {
+        return errors.get();
+    }
+
+    public int done() {
+        return loaded() + skipped() + errors();
+    }
+
+    public long terms() {
+        return terms.get();
+    }
+
+    public double elapsedSeconds() {
+        long end = endNanos != 0 ? endNanos : System.nanoTime();
+        return (end - startNanos) / (double) TimeUnit.SECONDS.toNanos(1);
+    }
+
+    public double filesPerSecond() {
+        double s = elapsedSeconds();
+        return s > 0 ? done() / s : 0;
+    }
+
+    public double termsPerSecond() {
+        double s = elapsedSeconds();
+        return s > 0 ? terms() / s : 0;
+    }
+
+    /** Estimated seconds left at the current rate, -1 while unknown. */
+    public long etaSeconds() {
+        double rate = filesPerSecond();
+        if (rate <= 0) return -1;
+        return Math.round((totalFiles - done()) / rate);
+    }
+
+    @Override
+    public String toString() {
+        long eta = etaSeconds();
+        return String.format("%d/%d files (loaded %d, skipped %d, errors %d), %.1f files/s, %.0f terms/s, ETA %s",
+                done(), totalFiles, loaded(), skipped(), errors(),
+                filesPerSecond(), termsPerSecond(), eta < 0 ? "?" : eta + "s");
+    }
+}
@@ -0,0 +1,125 @@
+package com.indexer.core;
+
+import com.stage3.text.Analyzer;
+
+import java.util.ArrayDeque;
+import java.util.Arrays;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.ForkJoinTask;
+
+/**
+ * Term counting of a large book on a ForkJoinPool. The streamed text is cut
+ * into segments of about segmentChars, each ending on an ASCII separator so
+ * that no token spans two segments; every segment is tokenized and counted
+ * on the pool while parsing continues, and the per-segment counters are
+ * merged (smaller into larger) by the parsing thread.
+ *
+ * At most maxInFlight segments are queued or running; beyond that the parsing
+ * thread merges the oldest first, which bounds the memory held in segments.
+ */
+final class ParallelTermCounting implements Tokenizer.Counting {
+
+    // room for one more parser chunk on top of a full segment
+    private static final int SLACK = 8_192;
+
+    private final ForkJoinPool pool;
+    private final int segmentChars;
+    private final int maxInFlight;
+    private final ArrayDeque<ForkJoinTask<TermCounter>> inFlight = new ArrayDeque<>();
+
+    private char[] segment;
+    private int len;
+    private boolean hasText;
+    private TermCounter merged;
+
+    ParallelTermCounting(ForkJoinPool pool, int segmentChars) {
+        this.pool = pool;
+        this.segmentChars = segmentChars;
+        this.maxInFlight = Math.max(2, pool.getParallelism() * 2);
+        this.segment = new char[segmentChars + SLACK];
+    }
+
+    @Override
+    public void chunk(String field, char[] buf, int n) {
+        for (int i = 0; i < n && !hasText; i++) {
+            hasText = !Character.isWhitespace(buf[i]);
+        }
+        if (len + n > segment.length) {
+            segment = Arrays.copyOf(segment, Math.max(segment.length * 2, len + n));
+        }
+        System.arraycopy(buf, 0, segment, len, n);
+        len += n;
+        if (len >= segmentChars) {
+            int cut = lastSeparator();
+            if (cut >= 0) {
+                split(cut + 1);
+            }
+            // no separator yet (one giant token), keep collecting
+        }
+    }
+
+    @Override
+    public void fieldEnd(String field) {
+        // a field ends a token anyway
+        if (len > 0) {
+            split(len);
+        }
+    }
+
+    @Override
+    public boolean hasText() {
+        return hasText;
+    }
+
+    @Override
+    public TermCounter counts() {
+        while (!inFlight.isEmpty()) {
+            mergeOldest();
+        }
+        return merged != null ? merged : new TermCounter();
+    }
+
+    // Hands segment[0, end) to the pool and keeps the rest for the next segment
+    private void split(int end) {
+        char[] full = segment;
+        int rest = len - end;
+        segment = new char[Math.max(full.length, segmentChars + SLACK)];
+        System.arraycopy(full, end, segment, 0, rest);
+        len = rest;
+
+        inFlight.add(pool.submit(() -> count(full, end)));
+        if (inFlight.size() > maxInFlight) {
+            mergeOldest();
+        }
+    }
+
+    private void mergeOldest() {
+        TermCounter next = inFlight.poll().join();
+        if (merged == null) {
+            merged = next;
+        } else if (next.size() > merged.size()) {
+            next.addAll(merged);
+            merged = next;
+        } else {
+            merged.addAll(next);
+        }
+    }
+
+    private int lastSeparator() {
+        for (int i = len - 1; i >= 0; i--) {
+            char c = segment[i];
+            if (c < 0x80 && !(c >= 'a' && c <= 'z' || c >= 'A' && c <= 'Z' || c >= '0' && c <= '9')) {
+                return i;
+            }
+        }
+        return -1;
+    }
+
+    private static TermCounter count(char[] text, int n) {
+        TermCounter counts = new TermCounter(4_096);
+        Analyzer analyzer = new Analyzer();
+        analyzer.feed(text, 0, n, counts::add);
+        analyzer.finish(counts::add);
+        return counts;
+    }
+}
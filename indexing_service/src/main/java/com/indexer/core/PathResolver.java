@@ -25,4 +25,16 @@ public final class PathResolver {
 
         return lakeRoot.resolve(lakePath);
     }
+
+    /** Book id from a lake file name ("<bookId>.json"), null if it is not a number. */
+    public static Integer bookIdOf(Path lakeFile) {
+        if (lakeFile == null) return null;
+        String filename = lakeFile.getFileName().toString();
+        if (filename.endsWith(".json")) filename = filename.substring(0, filename.length() - 5);
+        try {
+            return Integer.parseInt(filename);
+        } catch (NumberFormatException e) {
+            return null;
+        }
+    }
 }
\ No newline at end of file
@@ -0,0 +1,34 @@
+package com.indexer.core;
+
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.HexFormat;
+
+public final class Sha256Fingerprint implements Fingerprint {
+
+    @Override
+    public String name() {
+        return "sha256";
+    }
+
+    @Override
+    public Hasher newHasher() {
+        MessageDigest md;
+        try {
+            md = MessageDigest.getInstance("SHA-256");
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException("SHA-256 not available", e);
+        }
+        return new Hasher() {
+            @Override
+            public void update(byte[] b, int off, int len) {
+                md.update(b, off, len);
+            }
+
+            @Override
+            public String hexDigest() {
+                return HexFormat.of().formatHex(md.digest());
+            }
+        };
+    }
+}
@@ -0,0 +1,252 @@
+package com.indexer.core;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.CancellationException;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Runs items through a fixed sequence of stages. Every stage has its own
+ * worker threads and a bounded input queue; handing an item to a full queue
+ * blocks, so a slow stage throttles the stages before it (and submit) instead
+ * of letting items pile up in memory, while the other stages keep working on
+ * other items.
+ *
+ * A stage returns false to finish an item early and throws to fail it. The
+ * finisher turns every item into its result, on the worker that finished it,
+ * whether it got through all stages, stopped early or failed. Items that
+ * close() drops are finished too, with a CancellationException as failure,
+ * so whatever a stage acquired for an item is always released.
+ *
+ * T: per-item state handed from stage to stage, R: result of an item.
+ */
+public final class StagedPipeline<T, R> implements AutoCloseable {
+
+    @FunctionalInterface
+    public interface Stage<T> {
+        boolean process(T item) throws Exception;
+    }
+
+    @FunctionalInterface
+    public interface Finisher<T, R> {
+        /** failure: what a stage threw, null if the item finished normally. */
+        R finish(T item, Exception failure);
+    }
+
+    private final List<StageRunner> stages;
+    private final Finisher<T, R> finisher;
+    private final List<Thread> threads = new ArrayList<>();
+    private volatile boolean closed;
+
+    private StagedPipeline(String name, List<StageSpec<T>> specs, Finisher<T, R> finisher) {
+        this.finisher = finisher;
+        this.stages = new ArrayList<>(specs.size());
+        for (StageSpec<T> spec : specs) {
+            stages.add(new StageRunner(spec));
+        }
+        for (int i = 0; i < stages.size(); i++) {
+            StageRunner stage = stages.get(i);
+            StageRunner next = i + 1 < stages.size() ? stages.get(i + 1) : null;
+            for (int w = 1; w <= stage.spec.threads; w++) {
+                Thread t = new Thread(() -> stage.run(next), name + "-" + stage.spec.name + "-" + w);
+                t.setDaemon(true);
+                threads.add(t);
+                t.start();
+            }
+        }
+    }
+
+    public static <T, R> Builder<T, R> builder(String name, Finisher<T, R> finisher) {
+        return new Builder<>(name, finisher);
+    }
+
+    /** Queues the item for the first stage, blocking while that stage's queue is full. */
+    public CompletableFuture<R> submit(T item) throws InterruptedException {
+        if (closed) {
+            throw new IllegalStateException("pipeline closed");
+        }
+        Ticket ticket = new Ticket(item);
+        stages.get(0).enqueue(ticket);
+        if (closed) {
+            // raced with close(), which may already have drained the queue
+            cancelQueued();
+        }
+        return ticket.result;
+    }
+
+    public List<StageStats> stats() {
+        List<StageStats> out = new ArrayList<>(stages.size());
+        for (StageRunner stage : stages) {
+            out.add(stage.stats());
+        }
+        return out;
+    }
+
+    /** Stops the workers; items still queued are finished with a CancellationException as failure. */
+    @Override
+    public void close() {
+        closed = true;
+        for (Thread t : threads) {
+            t.interrupt();
+        }
+        cancelQueued();
+    }
+
+    private void cancelQueued() {
+        for (StageRunner stage : stages) {
+            Ticket ticket;
+            while ((ticket = stage.queue.poll()) != null) {
+                complete(ticket, new CancellationException("pipeline closed"));
+            }
+        }
+    }
+
+    private void complete(Ticket ticket, Exception failure) {
+        try {
+            ticket.result.complete(finisher.finish(ticket.item, failure));
+        } catch (RuntimeException e) {
+            ticket.result.completeExceptionally(e);
+        }
+    }
+
+    private final class Ticket {
+        final T item;
+        final CompletableFuture<R> result = new CompletableFuture<>();
+        long enqueuedNanos;
+
+        Ticket(T item) {
+            this.item = item;
+        }
+    }
+
+    private final class StageRunner {
+        final StageSpec<T> spec;
+        final BlockingQueue<Ticket> queue;
+        final AtomicInteger busy = new AtomicInteger();
+        final LongAdder processed = new LongAdder();
+        final LongAdder finishedEarly = new LongAdder();
+        final LongAdder failed = new LongAdder();
+        final LongAdder serviceNanos = new LongAdder();
+        final LongAdder queueNanos = new LongAdder();
+
+        StageRunner(StageSpec<T> spec) {
+            this.spec = spec;
+            this.queue = new ArrayBlockingQueue<>(spec.capacity);
+        }
+
+        void enqueue(Ticket ticket) throws InterruptedException {
+            ticket.enqueuedNanos = System.nanoTime();
+            queue.put(ticket);
+        }
+
+        void run(StageRunner next) {
+            while (!closed) {
+                Ticket ticket;
+                try {
+                    ticket = queue.take();
+                } catch (InterruptedException e) {
+                    return;
+                }
+                long start = System.nanoTime();
+                queueNanos.add(start - ticket.enqueuedNanos);
+                busy.incrementAndGet();
+                boolean more;
+                Exception failure = null;
+                try {
+                    more = spec.work.process(ticket.item);
+                } catch (Exception e) {
+                    more = false;
+                    failure = e;
+                } finally {
+                    busy.decrementAndGet();
+                    serviceNanos.add(System.nanoTime() - start);
+                    processed.increment();
+                }
+                if (failure != null) {
+                    failed.increment();
+                } else if (!more && next != null) {
+                    finishedEarly.increment();
+                }
+
+                if (more && next != null) {
+                    try {
+                        next.enqueue(ticket);
+                        if (closed) {
+                            cancelQueued();
+                        }
+                        continue;
+                    } catch (InterruptedException e) {
+                        complete(ticket, new CancellationException("pipeline closed"));
+                        return;
+                    }
+                }
+                complete(ticket, failure);
+            }
+        }
+
+        StageStats stats() {
+            long n = processed.sum();
+            return new StageStats(
+                    spec.name,
+                    spec.threads,
+                    spec.capacity,
+                    queue.size(),
+                    busy.get(),
+                    n,
+                    finishedEarly.sum(),
+                    failed.sum(),
+                    n > 0 ? TimeUnit.NANOSECONDS.toMicros(serviceNanos.sum() / n) : 0,
+                    n > 0 ? TimeUnit.NANOSECONDS.toMicros(queueNanos.sum() / n) : 0
+            );
+        }
+    }
+
+    /**
+     * queued: items waiting for this stage now; busy: workers processing one.
+     * Averages are per processed item; a stage whose queue stays full while
+     * the next one is idle is the bottleneck and deserves more threads.
+     */
+    public record StageStats(
+            String stage,
+            int threads,
+            int capacity,
+            int queued,
+            int busy,
+            long processed,
+            long finishedEarly,
+            long failed,
+            long avgServiceMicros,
+            long avgQueueMicros
+    ) {}
+
+    private record StageSpec<T>(String name, int threads, int capacity, Stage<T> work) {}
+
+    public static final class Builder<T, R> {
+        private final String name;
+        private final Finisher<T, R> finisher;
+        private final List<StageSpec<T>> specs = new ArrayList<>();
+
+        private Builder(String name, Finisher<T, R> finisher) {
+            this.name = name;
+            this.finisher = finisher;
+        }
+
+        /** capacity: items that may wait for this stage before the previous one blocks. */
+        public Builder<T, R> stage(String stageName, int threads, int capacity, Stage<T> work) {
+            specs.add(new StageSpec<>(stageName, Math.max(1, threads), Math.max(1, capacity), work));
+            return this;
+        }
+
+        public StagedPipeline<T, R> build() {
+            if (specs.isEmpty()) {
+                throw new IllegalStateException("pipeline without stages");
+            }
+            return new StagedPipeline<>(name, List.copyOf(specs), finisher);
+        }
+    }
+}
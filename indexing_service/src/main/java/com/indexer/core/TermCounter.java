@@ -0,0 +1,200 @@
+package com.indexer.core;
+
+import java.util.Arrays;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+/**
+ * term -> count table for one book, built for the tokenize-and-count loop.
+ *
+ * Open addressing with linear probing over an int table of entry ids; terms,
+ * hashes and counts live in dense arrays in insertion order, so iteration is a
+ * plain index loop and never boxes. add(char[], int) looks the token up straight
+ * from the analyzer's buffer and only allocates a String the first time a term
+ * is seen. Not thread-safe.
+ */
+public final class TermCounter {
+
+    private static final int MIN_TABLE = 16;
+
+    private int[] table;      // entry id + 1, 0 = free slot
+    private String[] terms;
+    private int[] hashes;
+    private int[] counts;
+    private int size;
+    private int total;
+
+    public TermCounter() {
+        this(1_024);
+    }
+
+    public TermCounter(int expectedTerms) {
+        int cap = MIN_TABLE;
+        while (cap < expectedTerms * 2) cap <<= 1;
+        this.table = new int[cap];
+        this.terms = new String[Math.max(8, expectedTerms)];
+        this.hashes = new int[terms.length];
+        this.counts = new int[terms.length];
+    }
+
+    /** Counts one occurrence of the token in buf[0, len). */
+    public void add(char[] buf, int len) {
+        int h = 0;
+        for (int i = 0; i < len; i++) {
+            h = 31 * h + buf[i];
+        }
+        int mask = table.length - 1;
+        int slot = mix(h) & mask;
+        while (true) {
+            int id = table[slot] - 1;
+            if (id < 0) {
+                insert(slot, new String(buf, 0, len), h);
+                break;
+            }
+            if (hashes[id] == h && equals(terms[id], buf, len)) {
+                counts[id]++;
+                break;
+            }
+            slot = (slot + 1) & mask;
+        }
+        total++;
+    }
+
+    /** Adds n occurrences of term. */
+    public void add(String term, int n) {
+        int h = term.hashCode();
+        int mask = table.length - 1;
+        int slot = mix(h) & mask;
+        while (true) {
+            int id = table[slot] - 1;
+            if (id < 0) {
+                // insert may grow counts, index the array only after it returned
+                int added = insert(slot, term, h);
+                counts[added] = n;
+                break;
+            }
+            if (hashes[id] == h && terms[id].equals(term)) {
+                counts[id] += n;
+                break;
+            }
+            slot = (slot + 1) & mask;
+        }
+        total += n;
+    }
+
+    /** Adds all counts of other, e.g. to merge the counters of chunks of one text. */
+    public void addAll(TermCounter other) {
+        for (int i = 0; i < other.size; i++) {
+            add(other.terms[i], other.counts[i]);
+        }
+    }
+
+    /** Count of term, 0 if absent. */
+    public int get(String term) {
+        int h = term.hashCode();
+        int mask = table.length - 1;
+        for (int slot = mix(h) & mask; ; slot = (slot + 1) & mask) {
+            int id = table[slot] - 1;
+            if (id < 0) return 0;
+            if (hashes[id] == h && terms[id].equals(term)) return counts[id];
+        }
+    }
+
+    /** Number of distinct terms. */
+    public int size() {
+        return size;
+    }
+
+    public boolean isEmpty() {
+        return size == 0;
+    }
+
+    /** Sum of all counts, i.e. tokens seen. */
+    public int total() {
+        return total;
+    }
+
+    /** i-th term in insertion order, 0 <= i < size(). */
+    public String term(int i) {
+        return terms[i];
+    }
+
+    /** Count of the i-th term. */
+    public int count(int i) {
+        return counts[i];
+    }
+
+    public void forEach(TermCountConsumer action) {
+        for (int i = 0; i < size; i++) {
+            action.accept(terms[i], counts[i]);
+        }
+    }
+
+    public void clear() {
+        Arrays.fill(table, 0);
+        Arrays.fill(terms, 0, size, null);
+        size = 0;
+        total = 0;
+    }
+
+    /** Boxed copy, for callers that want a plain Map. */
+    public Map<String, Integer> toMap() {
+        Map<String, Integer> out = new LinkedHashMap<>(size * 2);
+        forEach(out::put);
+        return out;
+    }
+
+    public static TermCounter of(Map<String, Integer> counts) {
+        TermCounter c = new TermCounter(counts.size());
+        counts.forEach(c::add);
+        return c;
+    }
+
+    private int insert(int slot, String term, int h) {
+        if (size == terms.length) {
+            int n = size + (size >> 1);
+            terms = Arrays.copyOf(terms, n);
+            hashes = Arrays.copyOf(hashes, n);
+            counts = Arrays.copyOf(counts, n);
+        }
+        int id = size++;
+        terms[id] = term;
+        hashes[id] = h;
+        counts[id] = 1;
+        table[slot] = id + 1;
+        if (size * 2 > table.length) {
+            rehash(table.length << 1);
+        }
+        return id;
+    }
+
+    private void rehash(int cap) {
+        int[] next = new int[cap];
+        int mask = cap - 1;
+        for (int id = 0; id < size; id++) {
+            int slot = mix(hashes[id]) & mask;
+            while (next[slot] != 0) slot = (slot + 1) & mask;
+            next[slot] = id + 1;
+        }
+        table = next;
+    }
+
+    private static boolean equals(String term, char[] buf, int len) {
+        if (term.length() != len) return false;
+        for (int i = 0; i < len; i++) {
+            if (term.charAt(i) != buf[i]) return false;
+        }
+        return true;
+    }
+
+    // Short words have clustered String hashes, spread them before masking
+    private static int mix(int h) {
+        int x = h * 0x9E3779B9;
+        return x ^ (x >>> 16);
+    }
+
+    @FunctionalInterface
+    public interface TermCountConsumer {
+        void accept(String term, int count);
+    }
+}
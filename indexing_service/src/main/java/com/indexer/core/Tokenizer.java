@@ -1,26 +1,109 @@
 package com.indexer.core;
 
-import java.util.ArrayList;
+import com.stage3.text.Analyzer;
+import com.stage3.text.TokenSink;
+
 import java.util.List;
-import java.util.Locale;
+import java.util.concurrent.ForkJoinPool;
 
+/**
+ * Indexer side of the shared text analysis, one reusable Analyzer per thread.
+ *
+ * Books whose lake file is at least parallelThresholdBytes are counted in
+ * segments on a ForkJoinPool (ParallelTermCounting), so one huge book does
+ * not keep a single core busy for seconds while the others idle.
+ */
 public final class Tokenizer {
 
+    /** Default size from which a book is tokenized in parallel. */
+    public static final long DEFAULT_PARALLEL_THRESHOLD_BYTES = 4L << 20;
+    static final int SEGMENT_CHARS = 256 * 1024;
+
+    private final ThreadLocal<Analyzer> analyzers = ThreadLocal.withInitial(Analyzer::new);
+    private final ForkJoinPool pool;
+    private final long parallelThresholdBytes;
+
+    /** Serial tokenization only. */
+    public Tokenizer() {
+        this(null, Long.MAX_VALUE);
+    }
+
+    /** pool: where segments of large books are counted, null to always count on the calling thread. */
+    public Tokenizer(ForkJoinPool pool, long parallelThresholdBytes) {
+        this.pool = pool;
+        this.parallelThresholdBytes = parallelThresholdBytes;
+    }
+
     public List<String> tokenize(String text) {
         if (text == null || text.isBlank()) return List.of();
+        return Analyzer.tokens(text);
+    }
+
+    /** Streams tokens into sink without building a token list. */
+    public void analyze(CharSequence text, TokenSink sink) {
+        if (text == null) return;
+        analyzers.get().analyze(text, sink);
+    }
+
+    /** This thread's Analyzer, for feeding text in chunks. */
+    public Analyzer analyzer() {
+        Analyzer a = analyzers.get();
+        a.reset();
+        return a;
+    }
+
+    /** Term counting of one book streamed by BookParser; inputBytes picks the serial or parallel path. */
+    public Counting counting(long inputBytes) {
+        if (pool != null && inputBytes >= parallelThresholdBytes) {
+            return new ParallelTermCounting(pool, SEGMENT_CHARS);
+        }
+        return new SerialCounting(analyzer());
+    }
 
-        String cleaned = text.toLowerCase(Locale.ROOT)
-                .replaceAll("[^\\p{L}\\p{Nd}]+", " ")
-                .trim();
+    /** Collects the term counts of the text fields a BookParser hands it. */
+    public interface Counting extends BookParser.TextVisitor {
 
-        if (cleaned.isEmpty()) return List.of();
+        /** Whether any field had a non-whitespace char. */
+        boolean hasText();
+
+        /** Counts of all fields; call once, after parsing. */
+        TermCounter counts();
+    }
+
+    // Streams the text fields through the analyzer, one chunk at a time.
+    // Finishing at every field end splits tokens exactly like joining the
+    // fields with "\n" did.
+    private static final class SerialCounting implements Counting {
+        final TermCounter counts = new TermCounter();
+        final Analyzer analyzer;
+        final TokenSink sink = counts::add;
+        boolean hasText;
+
+        SerialCounting(Analyzer analyzer) {
+            this.analyzer = analyzer;
+        }
+
+        @Override
+        public void chunk(String field, char[] buf, int len) {
+            for (int i = 0; i < len && !hasText; i++) {
+                hasText = !Character.isWhitespace(buf[i]);
+            }
+            analyzer.feed(buf, 0, len, sink);
+        }
+
+        @Override
+        public void fieldEnd(String field) {
+            analyzer.finish(sink);
+        }
+
+        @Override
+        public boolean hasText() {
+            return hasText;
+        }
 
-        String[] parts = cleaned.split("\\s+");
-        List<String> out = new ArrayList<>(parts.length);
-        for (String p : parts) {
-            if (p.length() < 2) continue;
-            out.add(p);
+        @Override
+        public TermCounter counts() {
+            return counts;
         }
-        return out;
     }
-}
\ No newline at end of file
+}
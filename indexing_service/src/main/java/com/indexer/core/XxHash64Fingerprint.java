@@ -0,0 +1,132 @@
+package com.indexer.core;
+
+/**
+ * Streaming XXH64 (seed 0), several GB/s per core, meant for change detection
+ * only. Follows the reference algorithm: four 8-byte lanes over 32-byte
+ * stripes, then the tail and the final avalanche.
+ */
+public final class XxHash64Fingerprint implements Fingerprint {
+
+    private static final long P1 = 0x9E3779B185EBCA87L;
+    private static final long P2 = 0xC2B2AE3D27D4EB4FL;
+    private static final long P3 = 0x165667B19E3779F9L;
+    private static final long P4 = 0x85EBCA77C2B2AE63L;
+    private static final long P5 = 0x27D4EB2F165667C5L;
+
+    @Override
+    public String name() {
+        return "xxh64";
+    }
+
+    @Override
+    public Hasher newHasher() {
+        return new XxHasher();
+    }
+
+    private static final class XxHasher implements Hasher {
+        private long v1 = P1 + P2;
+        private long v2 = P2;
+        private long v3 = 0;
+        private long v4 = -P1;
+        private long total;
+        private final byte[] pending = new byte[32];
+        private int pendingLen;
+
+        @Override
+        public void update(byte[] b, int off, int len) {
+            total += len;
+            if (pendingLen > 0) {
+                int take = Math.min(32 - pendingLen, len);
+                System.arraycopy(b, off, pending, pendingLen, take);
+                pendingLen += take;
+                off += take;
+                len -= take;
+                if (pendingLen < 32) return;
+                stripe(pending, 0);
+                pendingLen = 0;
+            }
+            int end = off + len;
+            while (end - off >= 32) {
+                stripe(b, off);
+                off += 32;
+            }
+            pendingLen = end - off;
+            System.arraycopy(b, off, pending, 0, pendingLen);
+        }
+
+        @Override
+        public String hexDigest() {
+            long h;
+            if (total >= 32) {
+                h = Long.rotateLeft(v1, 1) + Long.rotateLeft(v2, 7) + Long.rotateLeft(v3, 12) + Long.rotateLeft(v4, 18);
+                h = merge(h, v1);
+                h = merge(h, v2);
+                h = merge(h, v3);
+                h = merge(h, v4);
+            } else {
+                h = P5;
+            }
+            h += total;
+
+            int i = 0;
+            for (; i + 8 <= pendingLen; i += 8) {
+                h ^= round(0, longLE(pending, i));
+                h = Long.rotateLeft(h, 27) * P1 + P4;
+            }
+            if (i + 4 <= pendingLen) {
+                h ^= (intLE(pending, i) & 0xFFFFFFFFL) * P1;
+                h = Long.rotateLeft(h, 23) * P2 + P3;
+                i += 4;
+            }
+            for (; i < pendingLen; i++) {
+                h ^= (pending[i] & 0xFFL) * P5;
+                h = Long.rotateLeft(h, 11) * P1;
+            }
+
+            h ^= h >>> 33;
+            h *= P2;
+            h ^= h >>> 29;
+            h *= P3;
+            h ^= h >>> 32;
+
+            String hex = Long.toHexString(h);
+            return "0".repeat(16 - hex.length()) + hex;
+        }
+
+        private void stripe(byte[] b, int off) {
+            v1 = round(v1, longLE(b, off));
+            v2 = round(v2, longLE(b, off + 8));
+            v3 = round(v3, longLE(b, off + 16));
+            v4 = round(v4, longLE(b, off + 24));
+        }
+    }
+
+    private static long round(long acc, long input) {
+        acc += input * P2;
+        acc = Long.rotateLeft(acc, 31);
+        return acc * P1;
+    }
+
+    private static long merge(long acc, long v) {
+        acc ^= round(0, v);
+        return acc * P1 + P4;
+    }
+
+    private static long longLE(byte[] b, int i) {
+        return (b[i] & 0xFFL)
+                | (b[i + 1] & 0xFFL) << 8
+                | (b[i + 2] & 0xFFL) << 16
+                | (b[i + 3] & 0xFFL) << 24
+                | (b[i + 4] & 0xFFL) << 32
+                | (b[i + 5] & 0xFFL) << 40
+                | (b[i + 6] & 0xFFL) << 48
+                | (b[i + 7] & 0xFFL) << 56;
+    }
+
+    private static int intLE(byte[] b, int i) {
+        return (b[i] & 0xFF)
+                | (b[i + 1] & 0xFF) << 8
+                | (b[i + 2] & 0xFF) << 16
+                | (b[i + 3] & 0xFF) << 24;
+    }
+}
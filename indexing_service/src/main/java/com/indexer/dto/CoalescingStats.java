@@ -0,0 +1,9 @@
+package com.indexer.dto;
+
+public record CoalescingStats(
+        long runs,
+        long joinedInFlight,
+        long recentlyDone,
+        long duplicatesAbsorbed,
+        long windowMs
+) {}
@@ -0,0 +1,10 @@
+package com.indexer.dto;
+
+public record DeleteResponse(
+        String status,
+        Integer bookId,
+        Integer termsRemoved,
+        Long postingBytesReclaimed,
+        Long indexFileBytesReclaimed,
+        String error
+) {}
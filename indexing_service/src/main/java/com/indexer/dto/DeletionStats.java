@@ -0,0 +1,9 @@
+package com.indexer.dto;
+
+/** Totals over all deletes served by this node since startup. */
+public record DeletionStats(
+        long booksDeleted,
+        long termsRemoved,
+        long postingBytesReclaimed,
+        long indexFileBytesReclaimed
+) {}
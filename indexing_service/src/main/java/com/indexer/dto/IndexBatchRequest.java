@@ -0,0 +1,6 @@
+package com.indexer.dto;
+
+import java.util.List;
+
+public record IndexBatchRequest(List<String> lakePaths, Boolean forceReindex) {
+}
@@ -0,0 +1,19 @@
+package com.indexer.dto;
+
+import java.util.List;
+
+/** Progress of a batch indexing job; results holds the finished items of the requested page. */
+public record IndexJobStatus(
+        String jobId,
+        String status,
+        String createdAt,
+        String finishedAt,
+        int total,
+        int done,
+        int ok,
+        int alreadyIndexed,
+        int failed,
+        long elapsedMs,
+        int offset,
+        List<IndexResponse> results
+) {}
@@ -3,6 +3,7 @@ package com.indexer.hz;
 import com.hazelcast.client.HazelcastClient;
 import com.hazelcast.client.config.ClientConfig;
 import com.hazelcast.core.HazelcastInstance;
+import com.stage3.index.GridClasses;
 
 import java.util.Arrays;
 
@@ -32,6 +33,10 @@ public final class HazelcastClientProvider {
                     });
         }
         
+        // Ship the posting classes so members can run the index entry processors
+        clientConfig.getUserCodeDeploymentConfig().setEnabled(true);
+        GridClasses.ALL.forEach(clientConfig.getUserCodeDeploymentConfig()::addClass);
+
         // Configure connection retry
         clientConfig.getConnectionStrategyConfig()
                 .getConnectionRetryConfig()
@@ -0,0 +1,107 @@
+package com.indexer.index;
+
+import com.hazelcast.core.HazelcastInstance;
+import com.hazelcast.map.IMap;
+import com.hazelcast.partition.PartitionService;
+import com.stage3.index.AddCollectionStatsProcessor;
+import com.stage3.index.CollectionStats;
+import com.stage3.index.DocStats;
+import com.stage3.index.PutDocStatsProcessor;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Per-book DocStats in "doc-stats" and the CollectionStats totals in
+ * "collection-stats". Every write reads back the length it replaced, so the
+ * totals move by exact deltas no matter whether a book is new, reindexed,
+ * reloaded or deleted.
+ */
+public final class DocStatsStore {
+
+    private final IMap<Integer, DocStats> docs;
+    private final IMap<String, CollectionStats> collection;
+    private final PartitionService partitions;
+
+    public DocStatsStore(HazelcastInstance hz) {
+        this.docs = hz.getMap(DocStats.MAP_NAME);
+        this.collection = hz.getMap(CollectionStats.MAP_NAME);
+        this.partitions = hz.getPartitionService();
+    }
+
+    public void put(int bookId, int length, int uniqueTerms) {
+        putAll(new int[]{bookId}, new int[]{length}, new int[]{uniqueTerms}, 1);
+    }
+
+    /** Stores the stats of the first n books, one entry-processor call per partition. */
+    public void putAll(int[] bookIds, int[] lengths, int[] uniqueTerms, int n) {
+        if (n == 0) return;
+
+        Map<Integer, List<Integer>> byPartition = new HashMap<>();
+        for (int i = 0; i < n; i++) {
+            int partitionId = partitions.getPartition(bookIds[i]).getPartitionId();
+            byPartition.computeIfAbsent(partitionId, p -> new ArrayList<>()).add(i);
+        }
+
+        LongAdder addedDocs = new LongAdder();
+        LongAdder addedLength = new LongAdder();
+        Map<Integer, Integer> lengthOf = new HashMap<>(n * 2);
+        for (int i = 0; i < n; i++) lengthOf.put(bookIds[i], lengths[i]);
+
+        List<CompletableFuture<?>> calls = new ArrayList<>(byPartition.size());
+        for (List<Integer> batch : byPartition.values()) {
+            int[] ids = new int[batch.size()];
+            int[] lens = new int[ids.length];
+            int[] uniq = new int[ids.length];
+            Set<Integer> keys = new HashSet<>(ids.length * 2);
+            for (int k = 0; k < ids.length; k++) {
+                int i = batch.get(k);
+                ids[k] = bookIds[i];
+                lens[k] = lengths[i];
+                uniq[k] = uniqueTerms[i];
+                keys.add(ids[k]);
+            }
+            calls.add(docs.submitToKeys(keys, new PutDocStatsProcessor(ids, lens, uniq, ids.length))
+                    .thenAccept(previous -> previous.forEach((bookId, old) -> {
+                        if (old < 0) {
+                            addedDocs.increment();
+                            addedLength.add(lengthOf.get(bookId));
+                        } else {
+                            addedLength.add(lengthOf.get(bookId) - old);
+                        }
+                    }))
+                    .toCompletableFuture());
+        }
+        CompletableFuture.allOf(calls.toArray(new CompletableFuture[0])).join();
+        addToCollection(addedDocs.sum(), addedLength.sum());
+    }
+
+    /** Drops the book's stats and takes it out of the collection totals. */
+    public void remove(int bookId) {
+        DocStats old = docs.remove(bookId);
+        if (old != null) {
+            addToCollection(-1, -old.length());
+        }
+    }
+
+    public DocStats get(int bookId) {
+        return docs.get(bookId);
+    }
+
+    /** Collection totals, empty before the first book. */
+    public CollectionStats collection() {
+        CollectionStats stats = collection.get(CollectionStats.KEY);
+        return stats != null ? stats : new CollectionStats();
+    }
+
+    private void addToCollection(long docCount, long length) {
+        if (docCount == 0 && length == 0) return;
+        collection.executeOnKey(CollectionStats.KEY, new AddCollectionStatsProcessor(docCount, length));
+    }
+}
@@ -49,6 +49,10 @@ public final class DocumentMetadataStore {
         map.set(bookId, metadata);
     }
 
+    public void remove(int bookId) {
+        map.delete(bookId);
+    }
+
     public List<DocumentMetadata> list(int offset, int limit) {
         int safeOffset = Math.max(0, offset);
         int safeLimit = limit <= 0 ? 100 : limit;
@@ -3,14 +3,22 @@ package com.indexer.index;
 import com.hazelcast.core.HazelcastInstance;
 import com.hazelcast.map.IMap;
 
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.TimeUnit;
+
 public final class IndexedStore {
 
     public static final String MAP_NAME = "indexed-books";
+    /** Short-lived "just indexed" markers, see IndexCoalescer. */
+    public static final String RECENT_MAP_NAME = "recently-indexed-books";
 
     private final IMap<Integer, String> hashes;
+    private final IMap<Integer, String> recent;
 
     public IndexedStore(HazelcastInstance hz) {
         this.hashes = hz.getMap(MAP_NAME);
+        this.recent = hz.getMap(RECENT_MAP_NAME);
     }
 
     public String getHash(int bookId) {
@@ -20,4 +28,29 @@ public final class IndexedStore {
     public void putHash(int bookId, String hash) {
         hashes.put(bookId, hash);
     }
+
+    public void remove(int bookId) {
+        hashes.delete(bookId);
+        recent.delete(bookId);
+    }
+
+    /** Marker that expires on its own after ttlMs. */
+    public void markRecent(int bookId, String marker, long ttlMs) {
+        recent.set(bookId, marker, ttlMs, TimeUnit.MILLISECONDS);
+    }
+
+    public String getRecent(int bookId) {
+        return recent.get(bookId);
+    }
+
+    /** Stored hashes of the given books in one call; books without a hash are absent. */
+    public Map<Integer, String> getHashes(Set<Integer> bookIds) {
+        if (bookIds.isEmpty()) return Map.of();
+        return hashes.getAll(bookIds);
+    }
+
+    public void putHashes(Map<Integer, String> bookHashes) {
+        if (bookHashes.isEmpty()) return;
+        hashes.putAll(bookHashes);
+    }
 }
\ No newline at end of file
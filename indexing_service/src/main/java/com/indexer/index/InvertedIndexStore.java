@@ -1,30 +1,278 @@
 package com.indexer.index;
 
 import com.hazelcast.core.HazelcastInstance;
-import com.hazelcast.multimap.MultiMap;
+import com.hazelcast.map.IMap;
+import com.hazelcast.partition.PartitionService;
+import com.indexer.core.TermCounter;
+import com.stage3.index.AppendBooksProcessor;
+import com.stage3.index.AppendPostingsProcessor;
+import com.stage3.index.Fields;
+import com.stage3.index.PostingKeys;
+import com.stage3.index.Postings;
+import com.stage3.index.RemovePostingsProcessor;
 
-import java.util.Collection;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.atomic.LongAdder;
 
+/**
+ * Postings of the "inverted-index" map, keyed as PostingKeys says: by term,
+ * or by the int id the TermDictionary gives each term. Callers always pass
+ * terms; ids are resolved here, from the dictionary's local cache for every
+ * term seen before.
+ * fields() is the same store over "field-index", where the value of each
+ * posting is a Fields bitmask rather than a tf.
+ */
 public final class InvertedIndexStore {
 
     public static final String MAP_NAME = "inverted-index";
 
-    private final MultiMap<String, Integer> mm;
+    // Upper bound of partition batches in flight at once, keeps the client's
+    // invocation queue from filling up with a single huge book
+    private static final int MAX_IN_FLIGHT = 32;
 
+    private final IMap<Object, Postings> postings;
+    private final PartitionService partitions;
+    private final PostingKeys keys;
+    private final InvertedIndexStore fields;
+
+    /** Keyed by term. */
     public InvertedIndexStore(HazelcastInstance hz) {
-        this.mm = hz.getMultiMap(MAP_NAME);
+        this(hz, PostingKeys.byTerm());
+    }
+
+    public InvertedIndexStore(HazelcastInstance hz, PostingKeys keys) {
+        this(hz, keys, MAP_NAME);
+    }
+
+    private InvertedIndexStore(HazelcastInstance hz, PostingKeys keys, String mapName) {
+        this.postings = hz.getMap(mapName);
+        this.partitions = hz.getPartitionService();
+        this.keys = keys;
+        this.fields = MAP_NAME.equals(mapName) ? new InvertedIndexStore(hz, keys, Fields.MAP_NAME) : null;
+    }
+
+    public PostingKeys keys() {
+        return keys;
+    }
+
+    /** Title/author postings, keyed like this store; null on the field store itself. */
+    public InvertedIndexStore fields() {
+        return fields;
     }
 
     public void put(String term, int bookId) {
+        put(term, bookId, 1);
+    }
+
+    public void put(String term, int bookId, int tf) {
         if (term == null || term.isBlank()) return;
-        mm.put(term, bookId);
+        Object[] key = keys.assign(new String[]{term}, 1);
+        postings.executeOnKey(key[0], new AppendPostingsProcessor(bookId, key, new int[]{tf}, 1));
+    }
+
+    public int putAll(int bookId, Map<String, Integer> termCounts) {
+        if (termCounts == null || termCounts.isEmpty()) return 0;
+        return putAll(bookId, TermCounter.of(termCounts));
+    }
+
+    /**
+     * Appends (bookId, tf) to the posting list of every term.
+     * Terms are grouped by owning partition and each group is shipped as one
+     * async entry-processor call, so a book costs a few hundred operations instead of one per term.
+     * Returns the number of terms written.
+     */
+    public int putAll(int bookId, TermCounter termCounts) {
+        if (termCounts == null || termCounts.isEmpty()) return 0;
+
+        String[] terms = new String[termCounts.size()];
+        int[] tfs = new int[terms.length];
+        int n = 0;
+        for (int i = 0; i < termCounts.size(); i++) {
+            String term = termCounts.term(i);
+            if (term == null || term.isBlank()) continue;
+            terms[n] = term;
+            tfs[n++] = termCounts.count(i);
+        }
+        Object[] termKeys = keys.assign(terms, n);
+
+        Map<Integer, Batch> byPartition = new HashMap<>();
+        for (int i = 0; i < n; i++) {
+            int partitionId = partitions.getPartition(termKeys[i]).getPartitionId();
+            byPartition.computeIfAbsent(partitionId, p -> new Batch()).add(termKeys[i], bookId, tfs[i]);
+        }
+
+        List<CompletableFuture<?>> inFlight = new ArrayList<>(MAX_IN_FLIGHT);
+        for (Batch batch : byPartition.values()) {
+            AppendPostingsProcessor processor = new AppendPostingsProcessor(bookId, batch.keys, batch.tfs, batch.size);
+            inFlight.add(postings.submitToKeys(Set.of(processor.keys()), processor).toCompletableFuture());
+            if (inFlight.size() >= MAX_IN_FLIGHT) {
+                awaitAll(inFlight);
+            }
+        }
+        awaitAll(inFlight);
+        return n;
     }
 
-    public Collection<Integer> get(String term) {
-        return mm.get(term);
+    /**
+     * Bulk-load variant of putAll for several books at once: one partition
+     * operation carries the postings of all of them, which matters when each
+     * book only has a term or two per partition.
+     * Returns the number of (term, book) postings written.
+     */
+    public int putAll(int[] bookIds, TermCounter[] termCounts, int books) {
+        int total = 0;
+        for (int b = 0; b < books; b++) total += termCounts[b].size();
+        String[] terms = new String[total];
+        int[] bookOf = new int[total];
+        int[] tfs = new int[total];
+        int n = 0;
+        for (int b = 0; b < books; b++) {
+            TermCounter counts = termCounts[b];
+            for (int i = 0; i < counts.size(); i++) {
+                String term = counts.term(i);
+                if (term == null || term.isBlank()) continue;
+                terms[n] = term;
+                bookOf[n] = bookIds[b];
+                tfs[n++] = counts.count(i);
+            }
+        }
+        Object[] termKeys = keys.assign(terms, n);
+
+        Map<Integer, Batch> byPartition = new HashMap<>();
+        for (int i = 0; i < n; i++) {
+            int partitionId = partitions.getPartition(termKeys[i]).getPartitionId();
+            byPartition.computeIfAbsent(partitionId, p -> new Batch()).add(termKeys[i], bookOf[i], tfs[i]);
+        }
+
+        List<CompletableFuture<?>> inFlight = new ArrayList<>(MAX_IN_FLIGHT);
+        for (Batch batch : byPartition.values()) {
+            AppendBooksProcessor processor = new AppendBooksProcessor(batch.keys, batch.bookIds, batch.tfs, batch.size);
+            inFlight.add(postings.submitToKeys(Set.of(processor.keys()), processor).toCompletableFuture());
+            if (inFlight.size() >= MAX_IN_FLIGHT) {
+                awaitAll(inFlight);
+            }
+        }
+        awaitAll(inFlight);
+        return n;
+    }
+
+    /** Removes bookId from the posting list of every term in termCounts, see removeAll(int, String[], int). */
+    public long removeAll(int bookId, TermCounter termCounts) {
+        if (termCounts == null || termCounts.isEmpty()) return 0;
+        String[] terms = new String[termCounts.size()];
+        for (int i = 0; i < terms.length; i++) terms[i] = termCounts.term(i);
+        return removeAll(bookId, terms, terms.length);
+    }
+
+    /**
+     * Removes bookId from the posting list of the first n terms, batched per
+     * partition like putAll; posting lists left empty are deleted. Terms
+     * without an id in the dictionary have no postings and are skipped.
+     * Returns the serialized bytes freed in the map.
+     */
+    public long removeAll(int bookId, String[] terms, int n) {
+        Set<String> wanted = new HashSet<>(n * 2);
+        for (int i = 0; i < n; i++) {
+            if (terms[i] != null && !terms[i].isBlank()) wanted.add(terms[i]);
+        }
+        Map<Integer, Batch> byPartition = new HashMap<>();
+        for (Object key : keys.keysOf(wanted).values()) {
+            int partitionId = partitions.getPartition(key).getPartitionId();
+            byPartition.computeIfAbsent(partitionId, p -> new Batch()).add(key, bookId, 0);
+        }
+
+        LongAdder freed = new LongAdder();
+        List<CompletableFuture<?>> inFlight = new ArrayList<>(MAX_IN_FLIGHT);
+        for (Batch batch : byPartition.values()) {
+            RemovePostingsProcessor processor = new RemovePostingsProcessor(bookId, batch.keys, batch.size);
+            inFlight.add(postings.submitToKeys(Set.of(processor.keys()), processor).toCompletableFuture()
+                    .thenAccept(result -> result.values().forEach(freed::add)));
+            if (inFlight.size() >= MAX_IN_FLIGHT) {
+                awaitAll(inFlight);
+            }
+        }
+        awaitAll(inFlight);
+        return freed.sum();
+    }
+
+    /**
+     * Moves bookId's postings from previous to current, sending only the
+     * difference: terms that are new or whose tf changed are appended, terms
+     * that disappeared are removed, unchanged terms cost nothing.
+     * previous may be null when the old term set is unknown, which degrades to putAll.
+     */
+    public Delta update(int bookId, TermCounter previous, TermCounter current) {
+        if (previous == null) {
+            return new Delta(putAll(bookId, current), 0, 0);
+        }
+
+        TermCounter added = new TermCounter();
+        int unchanged = 0;
+        for (int i = 0; i < current.size(); i++) {
+            String term = current.term(i);
+            int tf = current.count(i);
+            if (previous.get(term) == tf) {
+                unchanged++;
+            } else {
+                added.add(term, tf);
+            }
+        }
+
+        String[] removed = new String[16];
+        int removedCount = 0;
+        for (int i = 0; i < previous.size(); i++) {
+            String term = previous.term(i);
+            if (current.get(term) != 0) continue;
+            if (removedCount == removed.length) removed = Arrays.copyOf(removed, removedCount * 2);
+            removed[removedCount++] = term;
+        }
+
+        removeAll(bookId, removed, removedCount);
+        return new Delta(putAll(bookId, added), removedCount, unchanged);
+    }
+
+    /** Terms written, removed and left untouched by update. */
+    public record Delta(int added, int removed, int unchanged) {
+    }
+
+    public Postings get(String term) {
+        Object key = keys.keyOf(term);
+        return key == null ? null : postings.get(key);
     }
 
     public long valueCount(String term) {
-        return mm.valueCount(term);
+        Postings p = get(term);
+        return p == null ? 0 : p.size();
+    }
+
+    private static final class Batch {
+        Object[] keys = new Object[16];
+        int[] bookIds = new int[16];
+        int[] tfs = new int[16];
+        int size;
+
+        void add(Object key, int bookId, int tf) {
+            if (size == keys.length) {
+                keys = Arrays.copyOf(keys, size * 2);
+                bookIds = Arrays.copyOf(bookIds, size * 2);
+                tfs = Arrays.copyOf(tfs, size * 2);
+            }
+            keys[size] = key;
+            bookIds[size] = bookId;
+            tfs[size++] = tf;
+        }
+    }
+
+    private static void awaitAll(List<CompletableFuture<?>> futures) {
+        if (futures.isEmpty()) return;
+        CompletableFuture.allOf(futures.toArray(new CompletableFuture[0])).join();
+        futures.clear();
     }
-}
\ No newline at end of file
+}
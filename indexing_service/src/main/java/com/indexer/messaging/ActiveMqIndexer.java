@@ -1,40 +1,79 @@
 package com.indexer.messaging;
 
 import com.google.gson.Gson;
+import com.indexer.core.IndexCoalescer;
 import com.indexer.core.IndexService;
+import com.indexer.dto.DeleteResponse;
 import com.indexer.dto.IndexResponse;
-import com.indexer.messaging.ActiveMqPublisher;
+import com.stage3.messaging.ActiveMqPublisher;
 import org.apache.activemq.ActiveMQConnectionFactory;
+import org.apache.activemq.RedeliveryPolicy;
 
 import javax.jms.Connection;
-import javax.jms.ConnectionFactory;
 import javax.jms.Destination;
 import javax.jms.JMSException;
 import javax.jms.Message;
 import javax.jms.MessageConsumer;
+import javax.jms.MessageProducer;
 import javax.jms.Session;
 import javax.jms.TextMessage;
 import java.time.Duration;
 import java.time.Instant;
+import java.util.ArrayList;
 import java.util.HashMap;
+import java.util.List;
 import java.util.Map;
-import java.util.function.Consumer;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
 
+/**
+ * Consumes the ingest and reindex queues with a pool of JMS sessions per
+ * queue. Every session is polled by its own consumer thread, so a node
+ * indexes up to consumersPerQueue books per queue
+ * at once. Both queues share a node-wide pool of maxConcurrency slots through
+ * a LaneScheduler: ingest and reindex get the free slots by weight (or ingest
+ * strictly first) and reindex never holds more than reindexMaxConcurrency, so
+ * new books stay quick to index during a full reindex. The prefetch limit
+ * keeps one node from hoarding messages other nodes could take.
+ *
+ * Sessions are transacted: a batch of up to batchSize messages is committed
+ * at once, so a crash redelivers the batch instead of losing it. A batch also
+ * ends when no further message arrives within batchIdleMs. A retriable
+ * failure (claimed by another node, io/grid error) rolls the batch back and
+ * the broker redelivers it with exponential backoff. The messages of the
+ * batch that were already done are remembered by id and committed without
+ * any work when they come back, so a forced reindex is not run twice.
+ * Poison messages, and messages still failing after maxAttempts deliveries,
+ * are moved to "<queue>.DLQ" inside the same transaction.
+ */
 public final class ActiveMqIndexer implements AutoCloseable {
 
     private static final Duration RECONNECT_DELAY = Duration.ofSeconds(3);
     private static final String EVENT_INGESTED = "document_ingested";
     private static final String EVENT_INDEXED = "document_indexed";
     private static final String EVENT_REINDEX = "reindex_request";
+    private static final String EVENT_DELETED = "document_deleted";
+    private static final int INGEST_LANE = 0;
+    private static final int REINDEX_LANE = 1;
+    // Bound of the remembered ids; ids whose redelivery went to another node are never removed
+    private static final int MAX_FINISHED_IDS = 10_000;
 
     private final Gson gson;
     private final IndexService indexService;
+    private final IndexCoalescer coalescer;
     private final String brokerUrl;
     private final String ingestQueue;
     private final String reindexQueue;
-    private final String indexedQueue;
     private final String nodeId;
     private final ActiveMqPublisher indexedPublisher;
+    private final ConsumerSettings settings;
+    private final LaneScheduler lanes;
+    private final ConsumerMetrics ingestMetrics;
+    private final ConsumerMetrics reindexMetrics;
+    // Ids of messages done in a transaction that was rolled back, skipped on redelivery
+    private final Set<String> finishedBeforeRollback = ConcurrentHashMap.newKeySet();
 
     private volatile boolean running;
     private Thread ingestWorker;
@@ -48,15 +87,43 @@ public final class ActiveMqIndexer implements AutoCloseable {
             String reindexQueue,
             String indexedQueue,
             String nodeId
+    ) {
+        this(gson, indexService, new IndexCoalescer(indexService, null, Duration.ZERO), brokerUrl, ingestQueue,
+                reindexQueue, new ActiveMqPublisher(brokerUrl, indexedQueue), nodeId, ConsumerSettings.defaults());
+    }
+
+    /**
+     * coalescer: front of indexService that absorbs duplicate ingest/reindex events.
+     * indexedPublisher: where document_indexed events go, closed with this indexer.
+     */
+    public ActiveMqIndexer(
+            Gson gson,
+            IndexService indexService,
+            IndexCoalescer coalescer,
+            String brokerUrl,
+            String ingestQueue,
+            String reindexQueue,
+            ActiveMqPublisher indexedPublisher,
+            String nodeId,
+            ConsumerSettings settings
     ) {
         this.gson = gson;
         this.indexService = indexService;
+        this.coalescer = coalescer;
         this.brokerUrl = brokerUrl;
         this.ingestQueue = ingestQueue;
         this.reindexQueue = reindexQueue;
-        this.indexedQueue = indexedQueue;
         this.nodeId = nodeId;
-        this.indexedPublisher = new ActiveMqPublisher(brokerUrl, indexedQueue);
+        this.indexedPublisher = indexedPublisher;
+        this.settings = settings;
+        this.lanes = new LaneScheduler(
+                settings.laneMode(),
+                settings.maxConcurrency(),
+                new String[]{ingestQueue, reindexQueue},
+                new int[]{settings.ingestWeight(), settings.reindexWeight()},
+                new int[]{0, settings.reindexMaxConcurrency()});
+        this.ingestMetrics = new ConsumerMetrics(ingestQueue, settings.consumersPerQueue(), settings.prefetch());
+        this.reindexMetrics = new ConsumerMetrics(reindexQueue, settings.consumersPerQueue(), settings.prefetch());
     }
 
     public void start() {
@@ -64,19 +131,33 @@ public final class ActiveMqIndexer implements AutoCloseable {
             return;
         }
         running = true;
-        ingestWorker = new Thread(() -> runLoop(ingestQueue, this::handleIngestMessage), "activemq-indexer-ingest");
+        ingestWorker = new Thread(() -> runLoop(ingestQueue, INGEST_LANE, false, ingestMetrics), "activemq-indexer-ingest");
         ingestWorker.setDaemon(true);
         ingestWorker.start();
 
-        reindexWorker = new Thread(() -> runLoop(reindexQueue, this::handleReindexMessage), "activemq-indexer-reindex");
+        reindexWorker = new Thread(() -> runLoop(reindexQueue, REINDEX_LANE, true, reindexMetrics), "activemq-indexer-reindex");
         reindexWorker.setDaemon(true);
         reindexWorker.start();
     }
 
-    private void runLoop(String queueName, Consumer<Message> handler) {
+    /** Consumer counters of the ingest and reindex queue. */
+    public List<ConsumerMetrics.Snapshot> metrics() {
+        return List.of(ingestMetrics.snapshot(), reindexMetrics.snapshot());
+    }
+
+    /** Slot usage of the ingest and reindex lane. */
+    public LaneScheduler.Snapshot lanes() {
+        return lanes.snapshot();
+    }
+
+    // Keeps one connection with its listener sessions open, reconnecting after failures
+    private void runLoop(String queueName, int lane, boolean forceReindex, ConsumerMetrics metrics) {
         while (running) {
             try {
-                listenOnce(queueName, handler);
+                listenUntilFailure(queueName, lane, forceReindex, metrics);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                return;
             } catch (Exception e) {
                 System.out.println("[INDEXER] ActiveMQ listener error (" + queueName + "): " + e.getMessage());
                 sleepQuietly(RECONNECT_DELAY);
@@ -84,71 +165,283 @@ public final class ActiveMqIndexer implements AutoCloseable {
         }
     }
 
-    private void listenOnce(String queueName, Consumer<Message> handler) throws JMSException {
-        ConnectionFactory factory = new ActiveMQConnectionFactory(brokerUrl);
+    private void listenUntilFailure(String queueName, int lane, boolean forceReindex, ConsumerMetrics metrics)
+            throws JMSException, InterruptedException {
+        ActiveMQConnectionFactory factory = new ActiveMQConnectionFactory(brokerUrl);
+        factory.getPrefetchPolicy().setQueuePrefetch(settings.prefetch());
+        // redelivery is unlimited on the broker side, Listener moves messages to the DLQ itself
+        RedeliveryPolicy redelivery = factory.getRedeliveryPolicy();
+        redelivery.setMaximumRedeliveries(RedeliveryPolicy.NO_MAXIMUM_REDELIVERIES);
+        redelivery.setInitialRedeliveryDelay(settings.retryDelayMs());
+        redelivery.setRedeliveryDelay(settings.retryDelayMs());
+        redelivery.setUseExponentialBackOff(true);
+        redelivery.setBackOffMultiplier(2);
+        redelivery.setMaximumRedeliveryDelay(settings.maxRetryDelayMs());
+        // a message waiting for its redelivery does not hold up the rest of the queue
+        factory.setNonBlockingRedelivery(true);
+
+        CountDownLatch broken = new CountDownLatch(1);
+        List<Thread> workers = new ArrayList<>();
         try (Connection connection = factory.createConnection()) {
-            connection.start();
-            try (Session session = connection.createSession(false, Session.AUTO_ACKNOWLEDGE)) {
+            connection.setExceptionListener(e -> {
+                System.out.println("[INDEXER] ActiveMQ connection lost (" + queueName + "): " + e.getMessage());
+                broken.countDown();
+            });
+            for (int i = 0; i < settings.consumersPerQueue(); i++) {
+                // closed together with the connection
+                Session session = connection.createSession(true, Session.SESSION_TRANSACTED);
                 Destination destination = session.createQueue(queueName);
-                try (MessageConsumer consumer = session.createConsumer(destination)) {
-                    System.out.println("[INDEXER] Listening for ActiveMQ messages on " + queueName);
-                    while (running) {
-                        Message msg = consumer.receive(1000);
-                        if (msg == null) {
-                            continue;
-                        }
-                        handler.accept(msg);
+                MessageConsumer consumer = session.createConsumer(destination);
+                MessageProducer deadLetters = session.createProducer(session.createQueue(queueName + ".DLQ"));
+                Listener listener = new Listener(session, consumer, deadLetters, queueName, lane, forceReindex, metrics);
+                Thread worker = new Thread(() -> listener.run(broken), "activemq-indexer-" + queueName + "-" + i);
+                worker.setDaemon(true);
+                workers.add(worker);
+            }
+            connection.start();
+            workers.forEach(Thread::start);
+            System.out.println("[INDEXER] Listening for ActiveMQ messages on " + queueName
+                    + " with " + settings.consumersPerQueue() + " consumers, prefetch " + settings.prefetch()
+                    + ", batch " + settings.batchSize());
+            while (running && !broken.await(1, TimeUnit.SECONDS)) {
+                // listeners run on the worker threads, which stop once the connection is closed
+            }
+        }
+    }
+
+    // One per session, only ever called on that session's worker thread
+    private final class Listener {
+        private final Session session;
+        private final MessageConsumer consumer;
+        private final MessageProducer deadLetters;
+        private final String queueName;
+        private final int lane;
+        private final boolean forceReindex;
+        private final ConsumerMetrics metrics;
+        // ids of the DONE messages in the open transaction
+        private final List<String> finished = new ArrayList<>();
+        private int uncommitted;
+
+        Listener(Session session, MessageConsumer consumer, MessageProducer deadLetters,
+                 String queueName, int lane, boolean forceReindex, ConsumerMetrics metrics) {
+            this.session = session;
+            this.consumer = consumer;
+            this.deadLetters = deadLetters;
+            this.queueName = queueName;
+            this.lane = lane;
+            this.forceReindex = forceReindex;
+            this.metrics = metrics;
+        }
+
+        // Receives until the session fails or the indexer stops. An open batch is
+        // committed once no message arrived for batchIdleMs.
+        void run(CountDownLatch broken) {
+            try {
+                while (running) {
+                    Message msg = consumer.receive(uncommitted > 0 ? settings.batchIdleMs() : 1_000);
+                    if (msg != null) {
+                        onMessage(msg);
+                    } else if (uncommitted > 0) {
+                        commit();
                     }
                 }
+            } catch (JMSException e) {
+                // the broker rolls the open transaction back when the connection goes
+                if (running) {
+                    System.out.println("[INDEXER] ActiveMQ transaction error (" + queueName + "): " + e.getMessage());
+                }
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            } finally {
+                broken.countDown();
+            }
+        }
+
+        private void onMessage(Message msg) throws JMSException, InterruptedException {
+            // a redelivered message is likely to fail again, don't let it roll back finished work
+            if (uncommitted > 0 && msg.getJMSRedelivered()) {
+                commit();
+            }
+            metrics.received(msg.getJMSTimestamp());
+
+            // done before its batch was rolled back: only the commit is missing
+            Outcome outcome = msg.getJMSRedelivered() && finishedBeforeRollback.remove(msg.getJMSMessageID())
+                    ? Outcome.DONE
+                    : process(msg);
+            if (outcome.kind() == Outcome.Kind.RETRY && deliveryCount(msg) < settings.maxAttempts()) {
+                System.out.println("[INDEXER] Retrying message (" + queueName + ", delivery "
+                        + deliveryCount(msg) + "): " + outcome.reason());
+                metrics.retried();
+                rollback();
+                return;
+            }
+            if (outcome.kind() != Outcome.Kind.DONE) {
+                deadLetter(msg, outcome.reason());
+            } else if (msg.getJMSMessageID() != null) {
+                finished.add(msg.getJMSMessageID());
+            }
+            uncommitted++;
+            if (uncommitted >= settings.batchSize()) {
+                commit();
+            }
+        }
+
+        private Outcome process(Message msg) throws InterruptedException {
+            long waitStart = System.nanoTime();
+            lanes.acquire(lane);
+            metrics.waited(TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - waitStart));
+            metrics.started();
+            long start = System.nanoTime();
+            Outcome outcome = Outcome.retry("not processed");
+            try {
+                outcome = handleMessage(msg, forceReindex);
+            } catch (RuntimeException e) {
+                outcome = Outcome.retry("unexpected error: " + e.getMessage());
+            } finally {
+                metrics.finished(TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - start),
+                        outcome.kind() == Outcome.Kind.DONE);
+                lanes.release(lane);
+            }
+            return outcome;
+        }
+
+        private void deadLetter(Message msg, String reason) throws JMSException {
+            Message copy = msg instanceof TextMessage text
+                    ? session.createTextMessage(text.getText())
+                    : session.createMessage();
+            copy.setStringProperty("dlqReason", reason);
+            copy.setStringProperty("dlqOriginalQueue", queueName);
+            copy.setStringProperty("dlqNodeId", nodeId);
+            copy.setIntProperty("dlqDeliveries", deliveryCount(msg));
+            deadLetters.send(copy);
+            metrics.deadLettered();
+            System.out.println("[INDEXER] Moved message to " + queueName + ".DLQ: " + reason);
+        }
+
+        private void commit() throws JMSException {
+            session.commit();
+            uncommitted = 0;
+            finished.clear();
+        }
+
+        private void rollback() throws JMSException {
+            if (finishedBeforeRollback.size() + finished.size() > MAX_FINISHED_IDS) {
+                finishedBeforeRollback.clear();
             }
+            finishedBeforeRollback.addAll(finished);
+            finished.clear();
+            session.rollback();
+            uncommitted = 0;
         }
     }
 
-    private void handleIngestMessage(Message msg) {
-        handleMessage(msg, false);
+    private static int deliveryCount(Message msg) {
+        try {
+            return Math.max(1, msg.getIntProperty("JMSXDeliveryCount"));
+        } catch (JMSException | NumberFormatException e) {
+            return 1;
+        }
     }
 
-    private void handleReindexMessage(Message msg) {
-        handleMessage(msg, true);
+    /** What to do with a consumed message: commit it, redeliver it later, or dead-letter it. */
+    private record Outcome(Kind kind, String reason) {
+        enum Kind { DONE, RETRY, POISON }
+
+        static final Outcome DONE = new Outcome(Kind.DONE, null);
+
+        static Outcome retry(String reason) {
+            return new Outcome(Kind.RETRY, reason);
+        }
+
+        static Outcome poison(String reason) {
+            return new Outcome(Kind.POISON, reason);
+        }
     }
 
-    private void handleMessage(Message msg, boolean forceReindex) {
+    private Outcome handleMessage(Message msg, boolean forceReindex) throws InterruptedException {
         if (!(msg instanceof TextMessage textMessage)) {
-            System.out.println("[INDEXER] Ignoring non-text message: " + msg);
-            return;
+            return Outcome.poison("not a text message");
         }
 
+        String payload;
+        Map<?, ?> event;
         try {
-            String payload = textMessage.getText();
-            Map<?, ?> event = gson.fromJson(payload, Map.class);
-            Object eventTypeRaw = event != null ? event.get("eventType") : null;
-            String eventType = eventTypeRaw != null ? eventTypeRaw.toString() : EVENT_INGESTED;
-            Object lakePath = event != null ? event.get("lakePath") : null;
+            payload = textMessage.getText();
+            event = gson.fromJson(payload, Map.class);
+        } catch (Exception e) {
+            return Outcome.poison("invalid json: " + e.getMessage());
+        }
+        Object eventTypeRaw = event != null ? event.get("eventType") : null;
+        String eventType = eventTypeRaw != null ? eventTypeRaw.toString() : EVENT_INGESTED;
+        Object lakePath = event != null ? event.get("lakePath") : null;
 
-            if (EVENT_INDEXED.equals(eventType)) {
-                return;
-            }
+        if (EVENT_INDEXED.equals(eventType)) {
+            return Outcome.DONE;
+        }
 
-            if (!EVENT_INGESTED.equals(eventType) && !EVENT_REINDEX.equals(eventType)) {
-                System.out.println("[INDEXER] Unknown event type: " + eventType + " payload=" + payload);
-                return;
-            }
+        if (EVENT_DELETED.equals(eventType)) {
+            return handleDeleted(event);
+        }
 
-            if (lakePath == null) {
-                System.out.println("[INDEXER] Missing lakePath in message: " + payload);
-                return;
-            }
+        if (!EVENT_INGESTED.equals(eventType) && !EVENT_REINDEX.equals(eventType)) {
+            return Outcome.poison("unknown event type: " + eventType);
+        }
+
+        if (lakePath == null) {
+            return Outcome.poison("missing lakePath");
+        }
 
-            IndexResponse response = indexService.index(lakePath.toString(), forceReindex);
-            System.out.println("[INDEXER] Indexed from queue: " + response.status()
-                    + " bookId=" + response.bookId()
-                    + " lakePath=" + response.lakePath());
+        IndexResponse response = coalescer.index(lakePath.toString(), forceReindex);
+        System.out.println("[INDEXER] Indexed from queue: " + response.status()
+                + " bookId=" + response.bookId()
+                + " lakePath=" + response.lakePath());
 
-            if ("ok".equals(response.status()) || "already_indexed".equals(response.status())) {
+        return switch (response.status()) {
+            case "ok", "already_indexed" -> {
                 publishIndexedEvent(response, forceReindex);
+                yield Outcome.DONE;
             }
-        } catch (Exception e) {
-            System.out.println("[INDEXER] Failed to process message: " + e.getMessage());
+            // a duplicate of a run that already published its document_indexed
+            case IndexCoalescer.STATUS_COALESCED -> Outcome.DONE;
+            // not_found: the crawler publishes only after the file is stored, a missing file will not appear later
+            case "bad_request", "not_found" -> Outcome.poison(response.status() + ": " + response.error());
+            // conflict: claimed by another node right now; error: io / grid failure
+            default -> Outcome.retry(response.status() + ": " + response.error());
+        };
+    }
+
+    // document_deleted carries the bookId, or a lakePath whose file name is the bookId
+    private Outcome handleDeleted(Map<?, ?> event) {
+        Integer bookId = bookIdOf(event);
+        if (bookId == null) {
+            return Outcome.poison("missing bookId in delete event");
+        }
+        DeleteResponse response = indexService.delete(bookId);
+        System.out.println("[INDEXER] Deleted from queue: " + response.status()
+                + " bookId=" + bookId
+                + " terms=" + response.termsRemoved()
+                + " postingBytes=" + response.postingBytesReclaimed()
+                + " fileBytes=" + response.indexFileBytesReclaimed());
+        return switch (response.status()) {
+            case "ok", "not_found" -> Outcome.DONE;
+            default -> Outcome.retry(response.status() + ": " + response.error());
+        };
+    }
+
+    private static Integer bookIdOf(Map<?, ?> event) {
+        Object raw = event.get("bookId");
+        if (raw == null && event.get("lakePath") != null) {
+            String name = event.get("lakePath").toString();
+            name = name.substring(Math.max(name.lastIndexOf('/'), name.lastIndexOf('\\')) + 1);
+            raw = name.endsWith(".json") ? name.substring(0, name.length() - 5) : name;
+        }
+        if (raw instanceof Number n) {
+            return n.intValue();
+        }
+        try {
+            return raw != null ? Integer.parseInt(raw.toString()) : null;
+        } catch (NumberFormatException e) {
+            return null;
         }
     }
 
@@ -177,5 +470,6 @@ public final class ActiveMqIndexer implements AutoCloseable {
         running = false;
         if (ingestWorker != null) ingestWorker.interrupt();
         if (reindexWorker != null) reindexWorker.interrupt();
+        indexedPublisher.close();
     }
 }
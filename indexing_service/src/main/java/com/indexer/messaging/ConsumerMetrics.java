@@ -0,0 +1,107 @@
+package com.indexer.messaging;
+
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Counters of one consumed queue. Lag is the age of a message when it is
+ * handed to a listener (now - JMSTimestamp), i.e. how far this node trails
+ * the producers; a growing lag means too few consumers for the ingest rate.
+ */
+public final class ConsumerMetrics {
+
+    private final String queue;
+    private final int consumers;
+    private final int prefetch;
+    private final long startNanos = System.nanoTime();
+
+    private final LongAdder received = new LongAdder();
+    private final LongAdder failed = new LongAdder();
+    private final LongAdder retried = new LongAdder();
+    private final LongAdder deadLettered = new LongAdder();
+    private final AtomicInteger inFlight = new AtomicInteger();
+    private final LongAdder lagTotalMs = new LongAdder();
+    private final AtomicLong lastLagMs = new AtomicLong();
+    private final AtomicLong maxLagMs = new AtomicLong();
+    private final LongAdder processingTotalMs = new LongAdder();
+    private final LongAdder waitTotalMs = new LongAdder();
+
+    public ConsumerMetrics(String queue, int consumers, int prefetch) {
+        this.queue = queue;
+        this.consumers = consumers;
+        this.prefetch = prefetch;
+    }
+
+    /** Called on delivery; jmsTimestamp 0 means the producer did not set one. */
+    void received(long jmsTimestamp) {
+        received.increment();
+        if (jmsTimestamp <= 0) return;
+        long lag = Math.max(0, System.currentTimeMillis() - jmsTimestamp);
+        lagTotalMs.add(lag);
+        lastLagMs.set(lag);
+        maxLagMs.accumulateAndGet(lag, Math::max);
+    }
+
+    /** Time spent waiting for a slot of the node-wide concurrency limit. */
+    void waited(long ms) {
+        waitTotalMs.add(ms);
+    }
+
+    void started() {
+        inFlight.incrementAndGet();
+    }
+
+    void finished(long processingMs, boolean ok) {
+        inFlight.decrementAndGet();
+        processingTotalMs.add(processingMs);
+        if (!ok) failed.increment();
+    }
+
+    /** The batch was rolled back for a redelivery. */
+    void retried() {
+        retried.increment();
+    }
+
+    void deadLettered() {
+        deadLettered.increment();
+    }
+
+    public Snapshot snapshot() {
+        long n = received.sum();
+        double elapsedSeconds = (System.nanoTime() - startNanos) / 1e9;
+        return new Snapshot(
+                queue,
+                consumers,
+                prefetch,
+                n,
+                failed.sum(),
+                retried.sum(),
+                deadLettered.sum(),
+                inFlight.get(),
+                elapsedSeconds > 0 ? Math.round(n / elapsedSeconds * 100) / 100.0 : 0,
+                lastLagMs.get(),
+                maxLagMs.get(),
+                n > 0 ? lagTotalMs.sum() / n : 0,
+                n > 0 ? processingTotalMs.sum() / n : 0,
+                n > 0 ? waitTotalMs.sum() / n : 0
+        );
+    }
+
+    public record Snapshot(
+            String queue,
+            int consumers,
+            int prefetch,
+            long received,
+            long failed,
+            long retried,
+            long deadLettered,
+            int inFlight,
+            double messagesPerSecond,
+            long lastLagMs,
+            long maxLagMs,
+            long avgLagMs,
+            long avgProcessingMs,
+            long avgLimitWaitMs
+    ) {}
+}
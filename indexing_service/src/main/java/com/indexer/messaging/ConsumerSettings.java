@@ -0,0 +1,70 @@
+package com.indexer.messaging;
+
+/**
+ * Tuning of ActiveMqIndexer's consumers.
+ *
+ * consumersPerQueue: sessions (and consumer threads) per queue.
+ * prefetch: messages the broker pushes ahead to each consumer, at least 1
+ *   (with 0 every receive is a round trip to the broker).
+ * maxConcurrency: books indexed at once on this node over both queues, 0 for no limit.
+ * batchSize: messages per committed transaction.
+ * batchIdleMs: an open batch is committed early once no message arrived for this long.
+ * maxAttempts: deliveries of a failing message before it goes to the dead-letter queue.
+ * retryDelayMs / maxRetryDelayMs: first redelivery delay, doubled per attempt up to the max.
+ * laneMode, ingestWeight, reindexWeight: how the maxConcurrency slots are shared
+ *   between the ingest and reindex queue, see LaneScheduler.
+ * reindexMaxConcurrency: slots the reindex queue may hold at once, 0 for no cap.
+ */
+public record ConsumerSettings(
+        int consumersPerQueue,
+        int prefetch,
+        int maxConcurrency,
+        int batchSize,
+        long batchIdleMs,
+        int maxAttempts,
+        long retryDelayMs,
+        long maxRetryDelayMs,
+        LaneScheduler.Mode laneMode,
+        int ingestWeight,
+        int reindexWeight,
+        int reindexMaxConcurrency
+) {
+
+    public ConsumerSettings {
+        consumersPerQueue = Math.max(1, consumersPerQueue);
+        prefetch = Math.max(1, prefetch);
+        batchSize = Math.max(1, batchSize);
+        batchIdleMs = Math.max(1, batchIdleMs);
+        maxAttempts = Math.max(1, maxAttempts);
+        ingestWeight = Math.max(1, ingestWeight);
+        reindexWeight = Math.max(1, reindexWeight);
+    }
+
+    public static ConsumerSettings defaults() {
+        return new ConsumerSettings(1, 1, 0, 1, 50, 5, 1_000, 60_000, LaneScheduler.Mode.WEIGHTED, 1, 1, 0);
+    }
+
+    public static ConsumerSettings fromEnv() {
+        int consumers = intEnv("INDEXER_CONSUMERS", Runtime.getRuntime().availableProcessors());
+        int maxConcurrency = intEnv("INDEXER_MAX_CONCURRENCY", consumers);
+        return new ConsumerSettings(
+                consumers,
+                intEnv("ACTIVEMQ_PREFETCH", 1),
+                maxConcurrency,
+                intEnv("ACTIVEMQ_BATCH_SIZE", 10),
+                intEnv("ACTIVEMQ_BATCH_IDLE_MS", 50),
+                intEnv("ACTIVEMQ_MAX_ATTEMPTS", 5),
+                intEnv("ACTIVEMQ_RETRY_DELAY_MS", 1_000),
+                intEnv("ACTIVEMQ_MAX_RETRY_DELAY_MS", 60_000),
+                LaneScheduler.Mode.parse(System.getenv().getOrDefault("INDEXER_LANE_MODE", "weighted")),
+                intEnv("INDEXER_INGEST_WEIGHT", 3),
+                intEnv("INDEXER_REINDEX_WEIGHT", 1),
+                // by default a reindex campaign leaves half of the slots to fresh books
+                intEnv("INDEXER_REINDEX_MAX_CONCURRENCY", Math.max(1, maxConcurrency / 2))
+        );
+    }
+
+    private static int intEnv(String name, int fallback) {
+        return Integer.parseInt(System.getenv().getOrDefault(name, String.valueOf(fallback)));
+    }
+}
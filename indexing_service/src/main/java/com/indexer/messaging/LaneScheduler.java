@@ -0,0 +1,150 @@
+package com.indexer.messaging;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Locale;
+import java.util.concurrent.locks.Condition;
+import java.util.concurrent.locks.ReentrantLock;
+
+/**
+ * Shares a node-wide pool of indexing slots between lanes (one lane per
+ * consumed queue). A listener takes a slot before handling its message; when
+ * lanes compete for a free slot, STRICT gives it to the lowest lane index
+ * with a waiter, WEIGHTED splits the slots in proportion to the lane weights
+ * (smooth weighted round robin). A lane never holds more than its cap, so
+ * capped lanes always leave room for the others.
+ */
+public final class LaneScheduler {
+
+    public enum Mode {
+        WEIGHTED, STRICT;
+
+        public static Mode parse(String s) {
+            return Mode.valueOf(s.trim().toUpperCase(Locale.ROOT));
+        }
+    }
+
+    private final Mode mode;
+    private final int slots;
+    private final String[] names;
+    private final int[] weights;
+    private final int[] caps;
+
+    private final ReentrantLock lock = new ReentrantLock();
+    private final Condition changed = lock.newCondition();
+    private final int[] waiting;
+    private final int[] inFlight;
+    private final long[] granted;
+    private final long[] credits;
+    private int used;
+
+    /** slots or a cap of 0 means unlimited; weights below 1 count as 1. */
+    public LaneScheduler(Mode mode, int slots, String[] names, int[] weights, int[] caps) {
+        this.mode = mode;
+        this.slots = slots > 0 ? slots : Integer.MAX_VALUE;
+        this.names = names.clone();
+        this.weights = new int[names.length];
+        this.caps = new int[names.length];
+        for (int i = 0; i < names.length; i++) {
+            this.weights[i] = Math.max(1, weights[i]);
+            this.caps[i] = caps[i] > 0 ? caps[i] : Integer.MAX_VALUE;
+        }
+        this.waiting = new int[names.length];
+        this.inFlight = new int[names.length];
+        this.granted = new long[names.length];
+        this.credits = new long[names.length];
+    }
+
+    public void acquire(int lane) throws InterruptedException {
+        lock.lockInterruptibly();
+        try {
+            waiting[lane]++;
+            try {
+                while (pick() != lane) {
+                    changed.await();
+                }
+            } finally {
+                waiting[lane]--;
+            }
+            grant(lane);
+            // the next lane in line may be runnable too
+            changed.signalAll();
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    public void release(int lane) {
+        lock.lock();
+        try {
+            inFlight[lane]--;
+            used--;
+            changed.signalAll();
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    // Lane that gets the next free slot, -1 if none can run; no side effects
+    private int pick() {
+        if (used >= slots) {
+            return -1;
+        }
+        int best = -1;
+        for (int i = 0; i < names.length; i++) {
+            if (!eligible(i)) continue;
+            if (mode == Mode.STRICT) {
+                return i;
+            }
+            if (best < 0 || credits[i] + weights[i] > credits[best] + weights[best]) {
+                best = i;
+            }
+        }
+        return best;
+    }
+
+    private boolean eligible(int lane) {
+        return waiting[lane] > 0 && inFlight[lane] < caps[lane];
+    }
+
+    private void grant(int lane) {
+        if (mode == Mode.WEIGHTED) {
+            // every competing lane earns its weight, the winner pays the round's total
+            long total = 0;
+            for (int i = 0; i < names.length; i++) {
+                if (i == lane || eligible(i)) {
+                    credits[i] += weights[i];
+                    total += weights[i];
+                }
+            }
+            credits[lane] -= total;
+        }
+        inFlight[lane]++;
+        granted[lane]++;
+        used++;
+    }
+
+    public Snapshot snapshot() {
+        lock.lock();
+        try {
+            List<LaneSnapshot> lanes = new ArrayList<>(names.length);
+            for (int i = 0; i < names.length; i++) {
+                lanes.add(new LaneSnapshot(
+                        names[i],
+                        weights[i],
+                        caps[i] == Integer.MAX_VALUE ? 0 : caps[i],
+                        inFlight[i],
+                        waiting[i],
+                        granted[i]
+                ));
+            }
+            return new Snapshot(mode.name().toLowerCase(Locale.ROOT), slots == Integer.MAX_VALUE ? 0 : slots, used, lanes);
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    public record Snapshot(String mode, int slots, int inUse, List<LaneSnapshot> lanes) {}
+
+    public record LaneSnapshot(String queue, int weight, int cap, int inFlight, int waiting, long granted) {}
+}
@@ -0,0 +1,33 @@
+package com.indexer.web;
+
+import com.google.gson.Gson;
+import com.indexer.core.IndexCoalescer;
+import com.indexer.messaging.ActiveMqIndexer;
+import io.javalin.Javalin;
+
+import java.util.Map;
+
+/**
+ * /consumers: per-queue consumer counters, lag and lane slot usage of this
+ * node's ActiveMQ listeners, plus the duplicate events the coalescer absorbed.
+ */
+public final class ConsumerController {
+
+    private final Gson gson;
+    private final ActiveMqIndexer indexer;
+    private final IndexCoalescer coalescer;
+
+    public ConsumerController(Gson gson, ActiveMqIndexer indexer, IndexCoalescer coalescer) {
+        this.gson = gson;
+        this.indexer = indexer;
+        this.coalescer = coalescer;
+    }
+
+    public void registerRoutes(Javalin app) {
+        app.get("/consumers", ctx -> ctx.result(gson.toJson(Map.of(
+                "queues", indexer.metrics(),
+                "lanes", indexer.lanes(),
+                "coalescing", coalescer.stats()
+        ))));
+    }
+}
@@ -1,21 +1,34 @@
 package com.indexer.web;
 
 import com.google.gson.Gson;
+import com.indexer.core.IndexJobs;
 import com.indexer.core.IndexService;
+import com.indexer.dto.DeleteResponse;
+import com.indexer.dto.IndexBatchRequest;
+import com.indexer.dto.IndexJobStatus;
 import com.indexer.dto.IndexRequest;
 import com.indexer.dto.IndexResponse;
+import com.stage3.index.CollectionStats;
 import io.javalin.Javalin;
 
+import java.util.LinkedHashMap;
 import java.util.Map;
 
 public final class IndexController {
 
     private final Gson gson;
     private final IndexService indexService;
+    private final IndexJobs jobs;
 
     public IndexController(Gson gson, IndexService indexService) {
+        this(gson, indexService, null);
+    }
+
+    /** jobs: worker pool behind /index/batch, null disables the batch endpoints. */
+    public IndexController(Gson gson, IndexService indexService, IndexJobs jobs) {
         this.gson = gson;
         this.indexService = indexService;
+        this.jobs = jobs;
     }
 
     public void registerRoutes(Javalin app) {
@@ -49,5 +62,109 @@ public final class IndexController {
 
             ctx.status(httpStatus).result(gson.toJson(resp));
         });
+
+        // remove postings, index file and metadata of one book
+        app.delete("/index/{bookId}", ctx -> {
+            int bookId;
+            try {
+                bookId = Integer.parseInt(ctx.pathParam("bookId"));
+            } catch (NumberFormatException e) {
+                ctx.status(400).result(gson.toJson(Map.of("error", "invalid bookId")));
+                return;
+            }
+
+            DeleteResponse resp = indexService.delete(bookId);
+
+            int httpStatus = switch (resp.status()) {
+                case "ok" -> 200;
+                case "not_found" -> 404;
+                case "conflict" -> 409;
+                default -> 500;
+            };
+
+            ctx.status(httpStatus).result(gson.toJson(resp));
+        });
+
+        app.get("/index/deletions", ctx -> ctx.result(gson.toJson(indexService.deletionStats())));
+
+        // Collection totals BM25 ranks with: indexed books and their total length in tokens
+        app.get("/index/stats", ctx -> {
+            CollectionStats stats = indexService.collectionStats();
+            if (stats == null) {
+                ctx.status(404).result(gson.toJson(Map.of("status", "not_found", "error", "no stats store")));
+                return;
+            }
+            ctx.result(gson.toJson(Map.of(
+                    "docCount", stats.docCount(),
+                    "totalLength", stats.totalLength(),
+                    "averageLength", stats.averageLength()
+            )));
+        });
+
+        if (jobs == null) {
+            return;
+        }
+
+        // many lakePaths in one call, indexed asynchronously on the job pool
+        app.post("/index/batch", ctx -> {
+            IndexBatchRequest req;
+            try {
+                req = gson.fromJson(ctx.body(), IndexBatchRequest.class);
+            } catch (Exception e) {
+                ctx.status(400).result(gson.toJson(Map.of("error", "invalid json")));
+                return;
+            }
+
+            if (req == null || req.lakePaths() == null || req.lakePaths().isEmpty()) {
+                ctx.status(400).result(gson.toJson(Map.of("error", "lakePaths missing")));
+                return;
+            }
+
+            String jobId = jobs.submit(req.lakePaths(), Boolean.TRUE.equals(req.forceReindex()));
+            if (jobId == null) {
+                ctx.status(503).result(gson.toJson(Map.of(
+                        "error", "too many pending items",
+                        "pendingItems", jobs.pendingItems()
+                )));
+                return;
+            }
+
+            Map<String, Object> body = new LinkedHashMap<>();
+            body.put("jobId", jobId);
+            body.put("total", req.lakePaths().size());
+            body.put("statusUrl", "/index/jobs/" + jobId);
+            ctx.status(202).result(gson.toJson(body));
+        });
+
+        app.get("/index/jobs/{id}", ctx -> {
+            int offset = parseQueryInt(ctx.queryParam("offset"), 0);
+            int limit = parseQueryInt(ctx.queryParam("limit"), 1000);
+
+            IndexJobStatus status = jobs.status(ctx.pathParam("id"), offset, limit);
+            if (status == null) {
+                ctx.status(404).result(gson.toJson(Map.of("error", "not_found")));
+                return;
+            }
+
+            ctx.result(gson.toJson(status));
+        });
+
+        app.get("/index/pipeline", ctx -> {
+            var stages = jobs.pipelineStats();
+            if (stages == null) {
+                ctx.status(404).result(gson.toJson(Map.of("error", "pipeline disabled")));
+                return;
+            }
+            ctx.result(gson.toJson(Map.of("stages", stages)));
+        });
+    }
+
+    private int parseQueryInt(String raw, int fallback) {
+        if (raw == null || raw.isBlank()) return fallback;
+        try {
+            return Integer.parseInt(raw);
+        } catch (NumberFormatException e) {
+            return fallback;
+        }
     }
 }
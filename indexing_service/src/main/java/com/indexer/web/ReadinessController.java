@@ -0,0 +1,60 @@
+package com.indexer.web;
+
+import com.google.gson.Gson;
+import com.indexer.core.IndexLoader;
+import com.indexer.core.LoadProgress;
+import io.javalin.Javalin;
+
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+
+/**
+ * /ready: 200 once the startup index load has finished, 503 with load
+ * progress while it is running. /health stays a pure liveness check.
+ */
+public final class ReadinessController {
+
+    private final Gson gson;
+    private final IndexLoader loader;
+    private final CompletableFuture<Integer> loading;
+
+    public ReadinessController(Gson gson, IndexLoader loader, CompletableFuture<Integer> loading) {
+        this.gson = gson;
+        this.loader = loader;
+        this.loading = loading;
+    }
+
+    public void registerRoutes(Javalin app) {
+        app.get("/ready", ctx -> {
+            String status;
+            if (!loading.isDone()) {
+                status = "loading";
+            } else if (loading.isCompletedExceptionally()) {
+                status = "failed";
+            } else {
+                status = "ready";
+            }
+
+            Map<String, Object> body = new LinkedHashMap<>();
+            body.put("status", status);
+            LoadProgress p = loader.progress();
+            if (p != null) {
+                body.put("filesTotal", p.totalFiles());
+                body.put("filesDone", p.done());
+                body.put("loaded", p.loaded());
+                body.put("skipped", p.skipped());
+                body.put("errors", p.errors());
+                body.put("terms", p.terms());
+                body.put("elapsedSeconds", Math.round(p.elapsedSeconds()));
+                body.put("filesPerSecond", Math.round(p.filesPerSecond() * 10) / 10.0);
+                body.put("termsPerSecond", Math.round(p.termsPerSecond()));
+                if (!loading.isDone()) {
+                    body.put("etaSeconds", p.etaSeconds());
+                }
+            }
+
+            ctx.status("ready".equals(status) ? 200 : 503).result(gson.toJson(body));
+        });
+    }
+}
@@ -1,5 +1,10 @@
 package com.indexer;
 
+import com.hazelcast.core.Hazelcast;
+import com.indexer.core.IndexSegment;
+import com.indexer.index.InvertedIndexStore;
+import com.stage3.index.Fields;
+import com.stage3.index.Postings;
 import io.javalin.Javalin;
 import org.junit.jupiter.api.AfterAll;
 import org.junit.jupiter.api.BeforeAll;
@@ -40,6 +45,12 @@ public final class IndexEndpointTest {
                 """;
         Files.writeString(existing, json, StandardCharsets.UTF_8);
         assertTrue(Files.exists(existing), "Test file missing at: " + existing.toAbsolutePath());
+        Files.writeString(lakeRoot.resolve("20260112/23/1347.json"), """
+                { "id": "1347", "header": "Header", "content": "Content that gets deleted again.", "footer": "Footer" }
+                """, StandardCharsets.UTF_8);
+        Files.writeString(lakeRoot.resolve("20260112/23/1348.json"), """
+                { "id": "1348", "header": "Header", "content": "Indexed through a batch job.", "footer": "Footer" }
+                """, StandardCharsets.UTF_8);
 
         app = App.start(0, lakeRoot, indexRoot);
         port = app.port();
@@ -105,4 +116,198 @@ public final class IndexEndpointTest {
         assertEquals(404, resp.statusCode());
         assertTrue(resp.body().contains("\"status\":\"not_found\""));
     }
+
+    @Test
+    void readyShouldReportLoadFinished() throws Exception {
+        HttpClient http = HttpClient.newHttpClient();
+
+        HttpRequest req = HttpRequest.newBuilder()
+                .uri(URI.create("http://localhost:" + port + "/ready"))
+                .GET()
+                .build();
+
+        // the index directory is empty, the background load finishes right away
+        HttpResponse<String> resp = http.send(req, HttpResponse.BodyHandlers.ofString());
+        for (int i = 0; i < 50 && resp.statusCode() != 200; i++) {
+            Thread.sleep(100);
+            resp = http.send(req, HttpResponse.BodyHandlers.ofString());
+        }
+
+        assertEquals(200, resp.statusCode());
+        assertTrue(resp.body().contains("\"status\":\"ready\""));
+    }
+
+    @Test
+    void deleteIndexShouldRemoveBookAndReportReclaimedBytes() throws Exception {
+        HttpClient http = HttpClient.newHttpClient();
+
+        HttpRequest index = HttpRequest.newBuilder()
+                .uri(URI.create("http://localhost:" + port + "/index"))
+                .header("Content-Type", "application/json")
+                .POST(HttpRequest.BodyPublishers.ofString("{ \"lakePath\": \"20260112/23/1347.json\" }"))
+                .build();
+        assertEquals(200, http.send(index, HttpResponse.BodyHandlers.ofString()).statusCode());
+        assertTrue(Files.exists(indexRoot.resolve("1347.idx")));
+
+        HttpRequest delete = HttpRequest.newBuilder()
+                .uri(URI.create("http://localhost:" + port + "/index/1347"))
+                .DELETE()
+                .build();
+        HttpResponse<String> resp = http.send(delete, HttpResponse.BodyHandlers.ofString());
+
+        assertEquals(200, resp.statusCode());
+        assertTrue(resp.body().contains("\"status\":\"ok\""));
+        assertTrue(resp.body().matches(".*\"termsRemoved\":[1-9].*"), resp.body());
+        assertTrue(resp.body().matches(".*\"postingBytesReclaimed\":[1-9].*"), resp.body());
+        assertTrue(Files.notExists(indexRoot.resolve("1347.idx")));
+
+        assertEquals(404, http.send(delete, HttpResponse.BodyHandlers.ofString()).statusCode());
+    }
+
+    @Test
+    void batchIndexShouldRunAsJobAndReportItems() throws Exception {
+        HttpClient http = HttpClient.newHttpClient();
+
+        String body = """
+                { "lakePaths": ["20260112/23/1348.json", "20990101/00/999998.json"] }
+                """;
+        HttpRequest submit = HttpRequest.newBuilder()
+                .uri(URI.create("http://localhost:" + port + "/index/batch"))
+                .header("Content-Type", "application/json")
+                .POST(HttpRequest.BodyPublishers.ofString(body))
+                .build();
+        HttpResponse<String> accepted = http.send(submit, HttpResponse.BodyHandlers.ofString());
+
+        assertEquals(202, accepted.statusCode());
+        String jobId = accepted.body().replaceAll(".*\"jobId\":\"([^\"]+)\".*", "$1");
+
+        HttpRequest poll = HttpRequest.newBuilder()
+                .uri(URI.create("http://localhost:" + port + "/index/jobs/" + jobId))
+                .GET()
+                .build();
+        HttpResponse<String> resp = http.send(poll, HttpResponse.BodyHandlers.ofString());
+        for (int i = 0; i < 50 && !resp.body().contains("\"status\":\"done\""); i++) {
+            Thread.sleep(100);
+            resp = http.send(poll, HttpResponse.BodyHandlers.ofString());
+        }
+
+        assertEquals(200, resp.statusCode());
+        assertTrue(resp.body().contains("\"status\":\"done\""), resp.body());
+        assertTrue(resp.body().contains("\"ok\":1"), resp.body());
+        assertTrue(resp.body().contains("\"failed\":1"), resp.body());
+        assertTrue(resp.body().contains("\"bookId\":1348"), resp.body());
+    }
+
+    @Test
+    void smokeShouldAppendPostingsUnderOneTerm() throws Exception {
+        HttpClient http = HttpClient.newHttpClient();
+
+        HttpResponse<String> resp = null;
+        for (int bookId : new int[]{41, 42}) {
+            HttpRequest req = HttpRequest.newBuilder()
+                    .uri(URI.create("http://localhost:" + port + "/hz/smoke?term=zymurgy&id=" + bookId))
+                    .POST(HttpRequest.BodyPublishers.noBody())
+                    .build();
+            resp = http.send(req, HttpResponse.BodyHandlers.ofString());
+            assertEquals(200, resp.statusCode());
+        }
+
+        assertTrue(resp.body().contains("\"count\":2"), resp.body());
+        assertTrue(resp.body().contains("\"docs\":[41,42]"), resp.body());
+    }
+
+    @Test
+    void collectionStatsShouldFollowIndexAndDelete() throws Exception {
+        HttpClient http = HttpClient.newHttpClient();
+        Files.writeString(lakeRoot.resolve("20260112/23/1349.json"), """
+                { "id": "1349", "header": "Header", "content": "Four more tokens here.", "footer": "Footer" }
+                """, StandardCharsets.UTF_8);
+        HttpRequest stats = HttpRequest.newBuilder()
+                .uri(URI.create("http://localhost:" + port + "/index/stats"))
+                .GET()
+                .build();
+
+        String before = http.send(stats, HttpResponse.BodyHandlers.ofString()).body();
+
+        HttpRequest index = HttpRequest.newBuilder()
+                .uri(URI.create("http://localhost:" + port + "/index"))
+                .header("Content-Type", "application/json")
+                .POST(HttpRequest.BodyPublishers.ofString("{ \"lakePath\": \"20260112/23/1349.json\" }"))
+                .build();
+        assertEquals(200, http.send(index, HttpResponse.BodyHandlers.ofString()).statusCode());
+        String indexed = http.send(stats, HttpResponse.BodyHandlers.ofString()).body();
+
+        assertEquals(field(before, "docCount") + 1, field(indexed, "docCount"), indexed);
+        assertEquals(field(before, "totalLength") + 6, field(indexed, "totalLength"), indexed);
+
+        HttpRequest delete = HttpRequest.newBuilder()
+                .uri(URI.create("http://localhost:" + port + "/index/1349"))
+                .DELETE()
+                .build();
+        assertEquals(200, http.send(delete, HttpResponse.BodyHandlers.ofString()).statusCode());
+        String deleted = http.send(stats, HttpResponse.BodyHandlers.ofString()).body();
+
+        assertEquals(field(before, "docCount"), field(deleted, "docCount"), deleted);
+        assertEquals(field(before, "totalLength"), field(deleted, "totalLength"), deleted);
+    }
+
+    @Test
+    void indexShouldKeepTitleAndAuthorOfHeader() throws Exception {
+        HttpClient http = HttpClient.newHttpClient();
+        Files.writeString(lakeRoot.resolve("20260112/23/1350.json"), """
+                { "id": "1350", "header": "The Project Gutenberg eBook\\n\\nTitle: Brewing at Home\\r\\nAuthor: Ada Zymurgist\\n", "content": "Malt and hops.", "footer": "Footer" }
+                """, StandardCharsets.UTF_8);
+
+        HttpRequest index = HttpRequest.newBuilder()
+                .uri(URI.create("http://localhost:" + port + "/index"))
+                .header("Content-Type", "application/json")
+                .POST(HttpRequest.BodyPublishers.ofString("{ \"lakePath\": \"20260112/23/1350.json\" }"))
+                .build();
+        assertEquals(200, http.send(index, HttpResponse.BodyHandlers.ofString()).statusCode());
+
+        IndexSegment segment = IndexSegment.read(IndexSegment.binaryPath(indexRoot, 1350));
+        assertEquals("Brewing at Home", segment.title());
+        assertEquals("Ada Zymurgist", segment.author());
+    }
+
+    @Test
+    void indexShouldWriteFieldMasksAndDeleteShouldRemoveThem() throws Exception {
+        HttpClient http = HttpClient.newHttpClient();
+        Files.writeString(lakeRoot.resolve("20260112/23/1351.json"), """
+                { "id": "1351", "header": "Title: Whale Tales\\nAuthor: Herman Whale\\n", "content": "Tales of the sea.", "footer": "Footer" }
+                """, StandardCharsets.UTF_8);
+
+        HttpRequest index = HttpRequest.newBuilder()
+                .uri(URI.create("http://localhost:" + port + "/index"))
+                .header("Content-Type", "application/json")
+                .POST(HttpRequest.BodyPublishers.ofString("{ \"lakePath\": \"20260112/23/1351.json\" }"))
+                .build();
+        assertEquals(200, http.send(index, HttpResponse.BodyHandlers.ofString()).statusCode());
+
+        // App.start without HZ_MEMBERS runs an embedded member named after NODE_ID
+        InvertedIndexStore fields = new InvertedIndexStore(Hazelcast.getHazelcastInstanceByName("indexer-0")).fields();
+        assertEquals(Fields.TITLE | Fields.AUTHOR, mask(fields, "whale", 1351));
+        assertEquals(Fields.TITLE, mask(fields, "tales", 1351));
+        assertEquals(Fields.AUTHOR, mask(fields, "herman", 1351));
+        assertEquals(0, mask(fields, "sea", 1351));
+
+        HttpRequest delete = HttpRequest.newBuilder()
+                .uri(URI.create("http://localhost:" + port + "/index/1351"))
+                .DELETE()
+                .build();
+        assertEquals(200, http.send(delete, HttpResponse.BodyHandlers.ofString()).statusCode());
+
+        for (String term : new String[] {"whale", "tales", "herman"}) {
+            assertEquals(0, mask(fields, term, 1351), term);
+        }
+    }
+
+    private static int mask(InvertedIndexStore fields, String term, int bookId) {
+        Postings postings = fields.get(term);
+        return postings != null ? postings.tfOf(bookId) : 0;
+    }
+
+    private static long field(String json, String name) {
+        return Long.parseLong(json.replaceAll(".*\"" + name + "\":(\\d+).*", "$1"));
+    }
 }
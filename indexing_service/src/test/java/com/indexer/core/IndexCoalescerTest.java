@@ -0,0 +1,82 @@
+package com.indexer.core;
+
+import com.google.gson.Gson;
+import com.hazelcast.config.Config;
+import com.hazelcast.core.Hazelcast;
+import com.hazelcast.core.HazelcastInstance;
+import com.indexer.dto.IndexResponse;
+import com.indexer.index.IndexedStore;
+import com.indexer.index.InvertedIndexStore;
+import org.junit.jupiter.api.AfterAll;
+import org.junit.jupiter.api.BeforeAll;
+import org.junit.jupiter.api.Test;
+
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.Duration;
+import java.util.Comparator;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+public final class IndexCoalescerTest {
+
+    private static HazelcastInstance hz;
+    private static Path tempRoot;
+
+    @BeforeAll
+    static void start() throws Exception {
+        Config config = new Config();
+        config.setClusterName("index-coalescer-test");
+        config.getNetworkConfig().getJoin().getMulticastConfig().setEnabled(false);
+        config.getNetworkConfig().getJoin().getTcpIpConfig().setEnabled(false);
+        hz = Hazelcast.newHazelcastInstance(config);
+
+        tempRoot = Files.createTempDirectory("index-coalescer-test-");
+    }
+
+    @AfterAll
+    static void stop() throws Exception {
+        if (hz != null) hz.shutdown();
+        if (tempRoot != null) {
+            try (var paths = Files.walk(tempRoot)) {
+                paths.sorted(Comparator.reverseOrder()).forEach(p -> p.toFile().delete());
+            }
+        }
+    }
+
+    @Test
+    void sameSizeReplacementIsNotCoalesced() throws Exception {
+        Path lakeRoot = tempRoot.resolve("datalake");
+        Path book = lakeRoot.resolve("20260112/23/1400.json");
+        Files.createDirectories(book.getParent());
+        writeBook(book, "alpha");
+
+        IndexedStore indexedStore = new IndexedStore(hz);
+        IndexService indexService = new IndexService(new PathResolver(lakeRoot), tempRoot.resolve("indexes"), null,
+                new InvertedIndexStore(hz), indexedStore, null, "coalescer-test", new BookParser(new Gson()),
+                new Tokenizer());
+        IndexCoalescer coalescer = new IndexCoalescer(indexService, indexedStore, Duration.ofMinutes(1));
+        String lakePath = "20260112/23/1400.json";
+
+        assertEquals("ok", coalescer.index(lakePath, false).status());
+        assertEquals(IndexCoalescer.STATUS_COALESCED, coalescer.index(lakePath, false).status());
+
+        long size = Files.size(book);
+        writeBook(book, "gamma");
+        assertEquals(size, Files.size(book));
+
+        IndexResponse replaced = coalescer.index(lakePath, false);
+        assertEquals("ok", replaced.status());
+        assertEquals(IndexCoalescer.STATUS_COALESCED, coalescer.index(lakePath, true).status());
+
+        writeBook(book, "delta");
+        assertEquals("ok", coalescer.index(lakePath, true).status());
+        assertEquals(2, coalescer.stats().recentlyDone());
+    }
+
+    private static void writeBook(Path book, String word) throws Exception {
+        Files.writeString(book, "{ \"id\": \"1400\", \"header\": \"Header\", \"content\": \"The " + word
+                + " book.\", \"footer\": \"Footer\" }", StandardCharsets.UTF_8);
+    }
+}
@@ -0,0 +1,69 @@
+package com.indexer.core;
+
+import com.google.gson.Gson;
+import com.hazelcast.config.Config;
+import com.hazelcast.core.Hazelcast;
+import com.hazelcast.core.HazelcastInstance;
+import com.indexer.index.ClaimStore;
+import com.indexer.index.IndexedStore;
+import com.indexer.index.InvertedIndexStore;
+import org.junit.jupiter.api.AfterAll;
+import org.junit.jupiter.api.BeforeAll;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.nio.file.Path;
+import java.util.Map;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+public final class IndexLoaderTest {
+
+    private static HazelcastInstance hz;
+
+    @TempDir
+    Path indexRoot;
+
+    @BeforeAll
+    static void start() {
+        Config config = new Config();
+        config.setClusterName("index-loader-test");
+        config.getNetworkConfig().getJoin().getMulticastConfig().setEnabled(false);
+        config.getNetworkConfig().getJoin().getTcpIpConfig().setEnabled(false);
+        hz = Hazelcast.newHazelcastInstance(config);
+    }
+
+    @AfterAll
+    static void stop() {
+        if (hz != null) hz.shutdown();
+    }
+
+    @Test
+    void loadLeavesClaimedBooksToTheirIndexer() throws Exception {
+        new IndexSegment(10, "xxh64:10", 2, "10", "20260112/23/10.json",
+                TermCounter.of(Map.of("loaded", 2))).write(IndexSegment.binaryPath(indexRoot, 10));
+        new IndexSegment(11, "xxh64:11", 3, "11", "20260112/23/11.json",
+                TermCounter.of(Map.of("stale", 3))).write(IndexSegment.binaryPath(indexRoot, 11));
+
+        InvertedIndexStore invertedIndex = new InvertedIndexStore(hz);
+        IndexedStore indexedStore = new IndexedStore(hz);
+        ClaimStore claims = new ClaimStore(hz);
+        // book 11 is being reindexed while the loader runs
+        assertTrue(claims.tryClaim(11));
+
+        IndexLoader loader = new IndexLoader(indexRoot, invertedIndex, null, indexedStore, claims, new Gson(), null, 2);
+        assertEquals(1, loader.loadAll());
+
+        assertEquals(2, invertedIndex.get("loaded").tfOf(10));
+        assertEquals("xxh64:10", indexedStore.getHash(10));
+        assertNull(invertedIndex.get("stale"));
+        assertNull(indexedStore.getHash(11));
+
+        // the loader released its own claim, not the indexer's
+        assertTrue(claims.tryClaim(10));
+        assertFalse(claims.tryClaim(11));
+    }
+}
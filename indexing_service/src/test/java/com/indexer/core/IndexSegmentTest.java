@@ -0,0 +1,30 @@
+package com.indexer.core;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.nio.file.Path;
+import java.util.Map;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+public final class IndexSegmentTest {
+
+    @TempDir
+    Path dir;
+
+    @Test
+    void longStringsAreCutOnACodePointBoundary() throws Exception {
+        // 0xFFFF falls inside the second byte of an "é" and the third byte of a "€"
+        String title = "é".repeat(40_000);
+        String author = "ab" + "€".repeat(30_000);
+        Path out = IndexSegment.binaryPath(dir, 7);
+        new IndexSegment(7, "xxh64:0", 3, "7", "20260112/23/7.json", title, author,
+                TermCounter.of(Map.of("whale", 2, "sea", 1))).write(out);
+
+        IndexSegment read = IndexSegment.read(out);
+        assertEquals("é".repeat(32_767), read.title());
+        assertEquals("ab" + "€".repeat(21_844), read.author());
+        assertEquals(Map.of("whale", 2, "sea", 1), read.terms().toMap());
+    }
+}
@@ -0,0 +1,142 @@
+package com.indexer.core;
+
+import com.google.gson.Gson;
+import com.hazelcast.config.Config;
+import com.hazelcast.core.Hazelcast;
+import com.hazelcast.core.HazelcastInstance;
+import com.indexer.index.IndexedStore;
+import com.indexer.index.InvertedIndexStore;
+import com.stage3.index.Fields;
+import com.stage3.index.PostingKeys;
+import com.stage3.index.Postings;
+import com.stage3.index.TermDictionary;
+import org.junit.jupiter.api.AfterAll;
+import org.junit.jupiter.api.BeforeAll;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+
+public final class IndexServiceTest {
+
+    private static final String LAKE_PATH = "20260112/23/1500.json";
+
+    private static HazelcastInstance hz;
+
+    @TempDir
+    Path tempRoot;
+
+    private Path lakeRoot;
+    private Path book;
+    private InvertedIndexStore invertedIndex;
+    private IndexService indexService;
+
+    @BeforeAll
+    static void start() {
+        Config config = new Config();
+        config.setClusterName("index-service-test");
+        config.getNetworkConfig().getJoin().getMulticastConfig().setEnabled(false);
+        config.getNetworkConfig().getJoin().getTcpIpConfig().setEnabled(false);
+        hz = Hazelcast.newHazelcastInstance(config);
+    }
+
+    @AfterAll
+    static void stop() {
+        if (hz != null) hz.shutdown();
+    }
+
+    @BeforeEach
+    void setUp() throws Exception {
+        clearGrid();
+        lakeRoot = tempRoot.resolve("datalake");
+        book = lakeRoot.resolve(LAKE_PATH);
+        Files.createDirectories(book.getParent());
+        useKeys(PostingKeys.byTerm());
+    }
+
+    @Test
+    void reindexRemovesDroppedTermsAndKeepsUnchangedOnes() throws Exception {
+        writeBook("Title: Whale Tales", "whale ship ship harbour");
+        assertEquals("ok", indexService.index(LAKE_PATH).status());
+
+        writeBook("Title: Whale Tales", "whale ship ship ship storm");
+        assertEquals("ok", indexService.index(LAKE_PATH).status());
+
+        // the header is counted with the body
+        assertEquals(2, tf("whale"));
+        assertEquals(3, tf("ship"));
+        assertEquals(1, tf("storm"));
+        assertEquals(0, tf("harbour"));
+        assertEquals(Fields.TITLE, fieldMask("tales"));
+    }
+
+    @Test
+    void reindexByTermIdRemovesDroppedTerms() throws Exception {
+        useKeys(PostingKeys.byId(new TermDictionary(hz)));
+        writeBook("Title: Whale Tales", "whale ship ship harbour");
+        assertEquals("ok", indexService.index(LAKE_PATH).status());
+
+        writeBook("Title: Whale Tales", "whale ship ship ship storm");
+        assertEquals("ok", indexService.index(LAKE_PATH).status());
+
+        assertEquals(3, tf("ship"));
+        assertEquals(1, tf("storm"));
+        assertEquals(0, tf("harbour"));
+        assertEquals(Fields.TITLE, fieldMask("tales"));
+        assertNull(hz.getMap(InvertedIndexStore.MAP_NAME).get("ship"));
+    }
+
+    @Test
+    void reindexWritesEveryTermWhenTheGridLostThePreviousVersion() throws Exception {
+        writeBook("Title: Whale Tales", "whale ship ship harbour");
+        assertEquals("ok", indexService.index(LAKE_PATH).status());
+
+        // restarted cluster: the index file is still on disk, the grid is empty
+        clearGrid();
+
+        writeBook("Title: Whale Tales", "whale ship ship storm");
+        assertEquals("ok", indexService.index(LAKE_PATH).status());
+
+        // the header is counted with the body
+        assertEquals(2, tf("whale"));
+        assertEquals(2, tf("ship"));
+        assertEquals(1, tf("storm"));
+        assertEquals(0, tf("harbour"));
+        assertEquals(Fields.TITLE, fieldMask("whale"));
+        assertEquals(Fields.TITLE, fieldMask("tales"));
+    }
+
+    private void useKeys(PostingKeys keys) {
+        invertedIndex = new InvertedIndexStore(hz, keys);
+        indexService = new IndexService(new PathResolver(lakeRoot), tempRoot.resolve("indexes"), null,
+                invertedIndex, new IndexedStore(hz), null, "index-service-test", new BookParser(new Gson()),
+                new Tokenizer());
+    }
+
+    private int tf(String term) {
+        Postings postings = invertedIndex.get(term);
+        return postings != null ? postings.tfOf(1500) : 0;
+    }
+
+    private int fieldMask(String term) {
+        Postings postings = invertedIndex.fields().get(term);
+        return postings != null ? postings.tfOf(1500) : 0;
+    }
+
+    private static void clearGrid() {
+        hz.getMap(InvertedIndexStore.MAP_NAME).clear();
+        hz.getMap(Fields.MAP_NAME).clear();
+        hz.getMap(IndexedStore.MAP_NAME).clear();
+    }
+
+    private void writeBook(String header, String content) throws Exception {
+        Files.writeString(book, "{ \"id\": \"1500\", \"header\": \"" + header + "\", \"content\": \"" + content
+                + "\", \"footer\": \"\" }", StandardCharsets.UTF_8);
+    }
+}
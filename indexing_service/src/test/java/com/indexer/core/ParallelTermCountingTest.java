@@ -0,0 +1,70 @@
+package com.indexer.core;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.Random;
+import java.util.concurrent.ForkJoinPool;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+public final class ParallelTermCountingTest {
+
+    private static final String[] WORDS = {
+            "whale", "Ishmael", "café", "naïve", "sea-going", "don't", "1851", "x", "harpoooooooooooooooooon",
+            "ÆTHER", "über", "e-mail", "MOBY", "dick's", "3.14", "straße"
+    };
+
+    @Test
+    void segmentsCountLikeOneSerialPass() {
+        Random random = new Random(42);
+        String header = text(random, 200);
+        String content = text(random, 5_000);
+        String footer = text(random, 100);
+
+        ForkJoinPool pool = new ForkJoinPool(2);
+        try {
+            // segments far smaller than the words and chunks, so tokens keep crossing both boundaries
+            for (int segmentChars : new int[] {1, 5, 16, 97}) {
+                for (int chunk : new int[] {1, 7, 64, 4_096}) {
+                    Tokenizer.Counting serial = new Tokenizer().counting(0);
+                    Tokenizer.Counting parallel = new ParallelTermCounting(pool, segmentChars);
+                    for (Tokenizer.Counting counting : new Tokenizer.Counting[] {serial, parallel}) {
+                        feed(counting, BookParser.HEADER, header, chunk);
+                        feed(counting, "content", content, chunk);
+                        feed(counting, "footer", footer, chunk);
+                    }
+
+                    TermCounter expected = serial.counts();
+                    TermCounter actual = parallel.counts();
+                    assertTrue(parallel.hasText());
+                    assertEquals(expected.toMap(), actual.toMap(), "segmentChars=" + segmentChars + " chunk=" + chunk);
+                    assertEquals(expected.total(), actual.total());
+                }
+            }
+        } finally {
+            pool.shutdown();
+        }
+    }
+
+    private static String text(Random random, int words) {
+        StringBuilder sb = new StringBuilder();
+        for (int i = 0; i < words; i++) {
+            sb.append(WORDS[random.nextInt(WORDS.length)]);
+            sb.append(random.nextInt(8) == 0 ? "\n" : random.nextInt(8) == 0 ? ", " : " ");
+        }
+        // the field ends in the middle of a token
+        return sb.append("tail").toString();
+    }
+
+    private static void feed(Tokenizer.Counting counting, String field, String text, int chunk) {
+        char[] chars = text.toCharArray();
+        for (int off = 0; off < chars.length; off += chunk) {
+            int n = Math.min(chunk, chars.length - off);
+            char[] buf = new char[n];
+            System.arraycopy(chars, off, buf, 0, n);
+            counting.chunk(field, buf, n);
+        }
+        counting.fieldEnd(field);
+    }
+}
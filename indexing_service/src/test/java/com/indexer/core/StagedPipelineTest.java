@@ -0,0 +1,56 @@
+package com.indexer.core;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+public final class StagedPipelineTest {
+
+    @Test
+    void closeFinishesItemsInFlight() throws Exception {
+        Set<Integer> claimed = ConcurrentHashMap.newKeySet();
+        CountDownLatch never = new CountDownLatch(1);
+
+        StagedPipeline<Integer, String> pipeline = StagedPipeline.<Integer, String>builder("close-test",
+                        (item, failure) -> {
+                            claimed.remove(item);
+                            return failure == null ? "done" : failure.getClass().getSimpleName();
+                        })
+                .stage("claim", 1, 8, item -> claimed.add(item))
+                .stage("hold", 1, 1, item -> {
+                    never.await();
+                    return true;
+                })
+                .build();
+
+        List<CompletableFuture<String>> results = new ArrayList<>();
+        for (int i = 0; i < 5; i++) {
+            results.add(pipeline.submit(i));
+        }
+        // 0 held in "hold", 1 queued for it, 2 claimed and blocked handing over, 3 and 4 queued for "claim"
+        long deadline = System.nanoTime() + TimeUnit.SECONDS.toNanos(10);
+        while (claimed.size() < 3 || pipeline.stats().get(1).queued() < 1) {
+            assertTrue(System.nanoTime() < deadline, "items did not reach their stages");
+            Thread.sleep(10);
+        }
+
+        pipeline.close();
+
+        List<String> finished = new ArrayList<>();
+        for (CompletableFuture<String> r : results) {
+            finished.add(r.get(10, TimeUnit.SECONDS));
+        }
+        assertEquals(Set.of(), claimed);
+        assertEquals(List.of("InterruptedException", "CancellationException", "CancellationException",
+                "CancellationException", "CancellationException"), finished);
+    }
+}
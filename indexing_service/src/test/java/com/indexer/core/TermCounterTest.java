@@ -0,0 +1,35 @@
+package com.indexer.core;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.HashMap;
+import java.util.Map;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+public final class TermCounterTest {
+
+    @Test
+    void addKeepsEveryCountAcrossGrowth() {
+        // starts with 8 entry slots and a 16-slot table, so both grow many times
+        TermCounter counts = new TermCounter(1);
+        Map<String, Integer> expected = new HashMap<>();
+        int total = 0;
+        for (int i = 0; i < 5_000; i++) {
+            String term = "t" + i;
+            int n = i % 7 + 2;
+            counts.add(term, n);
+            expected.put(term, n);
+            total += n;
+        }
+        char[] buf = "t42".toCharArray();
+        counts.add(buf, buf.length);
+        expected.merge("t42", 1, Integer::sum);
+        total++;
+
+        assertEquals(expected.size(), counts.size());
+        assertEquals(total, counts.total());
+        expected.forEach((term, n) -> assertEquals(n, counts.get(term), term));
+        assertEquals(expected, counts.toMap());
+    }
+}
@@ -0,0 +1,56 @@
+package com.indexer.core;
+
+import org.junit.jupiter.api.Test;
+
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+public final class XxHash64FingerprintTest {
+
+    private final XxHash64Fingerprint xxh64 = new XxHash64Fingerprint();
+
+    @Test
+    void matchesReferenceVectors() {
+        assertEquals("ef46db3751d8e999", digest(""));
+        assertEquals("d24ec4f1a98c6e5b", digest("a"));
+        assertEquals("44bc2cf5ad770999", digest("abc"));
+        // 39 and 43 bytes: one full 32-byte stripe plus a tail
+        assertEquals("fbcea83c8a378bf1", digest("Nobody inspects the spammish repetition"));
+        assertEquals("0b242d361fda71bc", digest("The quick brown fox jumps over the lazy dog"));
+    }
+
+    @Test
+    void chunkedUpdatesMatchOneUpdate() throws Exception {
+        byte[] data = new byte[1_000];
+        for (int i = 0; i < data.length; i++) data[i] = (byte) (i * 31 + 7);
+        String whole = digest(data, data.length);
+
+        for (int chunk = 1; chunk <= 70; chunk++) {
+            assertEquals(whole, digest(data, chunk), "chunk " + chunk);
+        }
+
+        Path file = Files.createTempFile("xxh64-", ".json");
+        try {
+            Files.write(file, data);
+            assertEquals("xxh64:" + whole, xxh64.of(file));
+        } finally {
+            Files.deleteIfExists(file);
+        }
+    }
+
+    private String digest(String s) {
+        byte[] b = s.getBytes(StandardCharsets.UTF_8);
+        return digest(b, Math.max(1, b.length));
+    }
+
+    private String digest(byte[] data, int chunk) {
+        Fingerprint.Hasher h = xxh64.newHasher();
+        for (int off = 0; off < data.length; off += chunk) {
+            h.update(data, off, Math.min(chunk, data.length - off));
+        }
+        return h.hexDigest();
+    }
+}
@@ -0,0 +1,124 @@
+package com.indexer.messaging;
+
+import com.google.gson.Gson;
+import com.hazelcast.config.Config;
+import com.hazelcast.core.Hazelcast;
+import com.hazelcast.core.HazelcastInstance;
+import com.indexer.core.BookParser;
+import com.indexer.core.IndexCoalescer;
+import com.indexer.core.IndexService;
+import com.indexer.core.PathResolver;
+import com.indexer.core.Tokenizer;
+import com.indexer.index.InvertedIndexStore;
+import com.stage3.messaging.ActiveMqPublisher;
+import org.apache.activemq.ActiveMQConnectionFactory;
+import org.apache.activemq.broker.BrokerService;
+import org.junit.jupiter.api.AfterAll;
+import org.junit.jupiter.api.BeforeAll;
+import org.junit.jupiter.api.Test;
+
+import javax.jms.Connection;
+import javax.jms.Message;
+import javax.jms.MessageConsumer;
+import javax.jms.MessageProducer;
+import javax.jms.Session;
+import javax.jms.TextMessage;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNotNull;
+
+public final class ActiveMqIndexerTest {
+
+    private static final String BROKER_URL = "vm://indexer-test?create=false";
+
+    private static BrokerService broker;
+    private static HazelcastInstance hz;
+    private static Path tempRoot;
+
+    @BeforeAll
+    static void start() throws Exception {
+        broker = new BrokerService();
+        broker.setBrokerName("indexer-test");
+        broker.setPersistent(false);
+        broker.setUseJmx(false);
+        broker.start();
+
+        Config config = new Config();
+        config.setClusterName("activemq-indexer-test");
+        config.getNetworkConfig().getJoin().getMulticastConfig().setEnabled(false);
+        config.getNetworkConfig().getJoin().getTcpIpConfig().setEnabled(false);
+        hz = Hazelcast.newHazelcastInstance(config);
+
+        tempRoot = Files.createTempDirectory("activemq-indexer-test-");
+    }
+
+    @AfterAll
+    static void stop() throws Exception {
+        if (hz != null) hz.shutdown();
+        if (broker != null) broker.stop();
+        if (tempRoot != null) {
+            try (var paths = Files.walk(tempRoot)) {
+                paths.sorted(Comparator.reverseOrder()).forEach(p -> p.toFile().delete());
+            }
+        }
+    }
+
+    @Test
+    void rolledBackReindexIsNotRunAgainForFinishedBooks() throws Exception {
+        Path lakeRoot = tempRoot.resolve("datalake");
+        Files.createDirectories(lakeRoot.resolve("20260112/23"));
+        Files.writeString(lakeRoot.resolve("20260112/23/1346.json"), """
+                { "id": "1346", "header": "Header", "content": "Reindexed exactly once.", "footer": "Footer" }
+                """, StandardCharsets.UTF_8);
+        // no book id in the file name: "error", which is retried and finally dead-lettered
+        Files.writeString(lakeRoot.resolve("20260112/23/broken.json"), "{}", StandardCharsets.UTF_8);
+
+        IndexService indexService = new IndexService(new PathResolver(lakeRoot), tempRoot.resolve("indexes"), null,
+                new InvertedIndexStore(hz), null, null, "indexer-test", new BookParser(new Gson()), new Tokenizer());
+        ConsumerSettings settings = new ConsumerSettings(1, 10, 0, 10, 200, 2, 50, 50,
+                LaneScheduler.Mode.WEIGHTED, 1, 1, 0);
+
+        ActiveMQConnectionFactory factory = new ActiveMQConnectionFactory(BROKER_URL);
+        try (Connection connection = factory.createConnection()) {
+            connection.start();
+            Session session = connection.createSession(false, Session.AUTO_ACKNOWLEDGE);
+            // both in the queue before the consumer starts, so they land in one transacted batch
+            MessageProducer producer = session.createProducer(session.createQueue("books.reindex"));
+            producer.send(session.createTextMessage(
+                    "{\"eventType\":\"reindex_request\",\"lakePath\":\"20260112/23/1346.json\"}"));
+            producer.send(session.createTextMessage(
+                    "{\"eventType\":\"reindex_request\",\"lakePath\":\"20260112/23/broken.json\"}"));
+
+            ActiveMqIndexer indexer = new ActiveMqIndexer(new Gson(), indexService,
+                    new IndexCoalescer(indexService, null, Duration.ZERO), BROKER_URL, "books.ingested",
+                    "books.reindex", new ActiveMqPublisher(BROKER_URL, "books.indexed"), "indexer-test", settings);
+            indexer.start();
+            try {
+                MessageConsumer dlq = session.createConsumer(session.createQueue("books.reindex.DLQ"));
+                Message dead = dlq.receive(30_000);
+                assertNotNull(dead, "broken book was not dead-lettered");
+                assertEquals(2, dead.getIntProperty("dlqDeliveries"));
+
+                MessageConsumer indexed = session.createConsumer(session.createQueue("books.indexed"));
+                List<String> events = new ArrayList<>();
+                for (Message m; (m = indexed.receive(1_000)) != null; ) {
+                    events.add(((TextMessage) m).getText());
+                }
+                assertEquals(1, events.size(), events.toString());
+
+                ConsumerMetrics.Snapshot reindex = indexer.metrics().get(1);
+                assertEquals(1, reindex.retried());
+                assertEquals(1, reindex.deadLettered());
+            } finally {
+                indexer.close();
+            }
+        }
+    }
+}
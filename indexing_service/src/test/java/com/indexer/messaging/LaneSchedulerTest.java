@@ -0,0 +1,119 @@
+package com.indexer.messaging;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+public final class LaneSchedulerTest {
+
+    private static final String[] LANES = {"books.ingested", "books.reindex"};
+    private static final int WAITERS_PER_LANE = 24;
+
+    @Test
+    void weightedSplitsOneSlotByWeight() throws Exception {
+        List<Integer> order = contendForOneSlot(LaneScheduler.Mode.WEIGHTED, new int[]{3, 1});
+
+        // while both lanes have waiters every 4 grants go 3:1; ingest runs out after 8 rounds
+        for (int round = 0; round < 8; round++) {
+            List<Integer> four = order.subList(round * 4, round * 4 + 4);
+            assertEquals(3, Collections.frequency(four, 0), "round " + round + ": " + four);
+        }
+    }
+
+    @Test
+    void strictServesLowerLaneFirst() throws Exception {
+        List<Integer> order = contendForOneSlot(LaneScheduler.Mode.STRICT, new int[]{1, 1});
+
+        // every ingest waiter is served before the first reindex one
+        assertEquals(WAITERS_PER_LANE, order.indexOf(1), order.toString());
+    }
+
+    @Test
+    void capLimitsLaneButLeavesSlotsToOthers() throws Exception {
+        LaneScheduler lanes = new LaneScheduler(LaneScheduler.Mode.WEIGHTED, 4, LANES, new int[]{1, 1}, new int[]{0, 1});
+        List<Thread> reindex = new ArrayList<>();
+        for (int i = 0; i < 3; i++) {
+            Thread t = new Thread(() -> {
+                try {
+                    lanes.acquire(1);
+                } catch (InterruptedException ignored) {
+                    // test teardown
+                }
+            });
+            t.start();
+            reindex.add(t);
+        }
+        awaitWaiting(lanes, 1, 2);
+        assertEquals(1, lanes.snapshot().lanes().get(1).inFlight());
+
+        // the three slots the capped lane cannot take all go to ingest without blocking
+        for (int i = 0; i < 3; i++) {
+            lanes.acquire(0);
+        }
+        LaneScheduler.Snapshot full = lanes.snapshot();
+        assertEquals(4, full.inUse());
+        assertEquals(3, full.lanes().get(0).inFlight());
+
+        // a released ingest slot stays unused while reindex is at its cap
+        lanes.release(0);
+        assertEquals(3, lanes.snapshot().inUse());
+        assertEquals(2, lanes.snapshot().lanes().get(1).waiting());
+
+        // releasing the reindex slot lets exactly one more reindex waiter in
+        lanes.release(1);
+        awaitWaiting(lanes, 1, 1);
+        assertEquals(1, lanes.snapshot().lanes().get(1).inFlight());
+
+        reindex.forEach(Thread::interrupt);
+        for (Thread t : reindex) t.join(5_000);
+    }
+
+    // One slot, held by the test until all waiters of both lanes are queued;
+    // each waiter then takes and returns it once. Returns the lane of each grant.
+    private static List<Integer> contendForOneSlot(LaneScheduler.Mode mode, int[] weights) throws Exception {
+        LaneScheduler lanes = new LaneScheduler(mode, 1, LANES, weights, new int[]{0, 0});
+        List<Integer> order = Collections.synchronizedList(new ArrayList<>());
+        lanes.acquire(0);
+
+        List<Thread> threads = new ArrayList<>();
+        for (int lane = 0; lane < LANES.length; lane++) {
+            for (int i = 0; i < WAITERS_PER_LANE; i++) {
+                int l = lane;
+                Thread t = new Thread(() -> {
+                    try {
+                        lanes.acquire(l);
+                        order.add(l);
+                        lanes.release(l);
+                    } catch (InterruptedException ignored) {
+                        // test teardown
+                    }
+                });
+                t.start();
+                threads.add(t);
+            }
+        }
+        awaitWaiting(lanes, 0, WAITERS_PER_LANE);
+        awaitWaiting(lanes, 1, WAITERS_PER_LANE);
+        lanes.release(0);
+
+        for (Thread t : threads) {
+            t.join(TimeUnit.SECONDS.toMillis(10));
+        }
+        assertEquals(LANES.length * WAITERS_PER_LANE, order.size());
+        return order;
+    }
+
+    private static void awaitWaiting(LaneScheduler lanes, int lane, int waiters) throws InterruptedException {
+        long deadline = System.nanoTime() + TimeUnit.SECONDS.toNanos(5);
+        while (lanes.snapshot().lanes().get(lane).waiting() != waiters) {
+            assertTrue(System.nanoTime() < deadline, "lane " + lane + " never had " + waiters + " waiters");
+            Thread.sleep(5);
+        }
+    }
+}
@@ -3,6 +3,7 @@ package com.example.crawler;
 import com.google.gson.Gson;
 import com.hazelcast.collection.ISet;
 import com.hazelcast.core.HazelcastInstance;
+import com.stage3.messaging.ActiveMqPublisher;
 import io.javalin.Javalin;
 
 import java.io.IOException;
@@ -26,6 +27,8 @@ public class App {
     // ActiveMQ
     //   ACTIVEMQ_URL=tcp://activemq:61616
     //   ACTIVEMQ_QUEUE=books.ingested
+    //   ACTIVEMQ_PUBLISHER_CHANNELS=4   (concurrent sends over the one long-lived connection)
+    //   ACTIVEMQ_ASYNC_SEND=false       (true: no broker ack per message)
     // Replication
     //   REPLICA_PEERS=http://crawler2:7001,http://crawler3:7001
     //   REPLICATION_FACTOR=2   (counts local as 1; so R=2 -> replicate to 1 peer)
@@ -41,7 +44,9 @@ public class App {
                 ? new HazelcastClaimService(claimedBooks, new LocalClaimService())
                 : new LocalClaimService();
 
-        ActiveMqPublisher publisher = new ActiveMqPublisher(config.brokerUrl, config.queueName);
+        ActiveMqPublisher publisher = new ActiveMqPublisher(
+                config.brokerUrl, config.queueName, config.publisherChannels, config.asyncSend);
+        Runtime.getRuntime().addShutdownHook(new Thread(publisher::close));
         HttpClient http = HttpClient.newBuilder()
                 .followRedirects(HttpClient.Redirect.NORMAL)
                 .build();
@@ -8,6 +8,8 @@ final class IngestionConfig {
     final Path dataDir;
     final String brokerUrl;
     final String queueName;
+    final int publisherChannels;
+    final boolean asyncSend;
     final int port;
     final int replicationFactor;
     final List<String> replicaPeers;
@@ -19,6 +21,8 @@ final class IngestionConfig {
             Path dataDir,
             String brokerUrl,
             String queueName,
+            int publisherChannels,
+            boolean asyncSend,
             int port,
             int replicationFactor,
             List<String> replicaPeers,
@@ -29,6 +33,8 @@ final class IngestionConfig {
         this.dataDir = dataDir;
         this.brokerUrl = brokerUrl;
         this.queueName = queueName;
+        this.publisherChannels = publisherChannels;
+        this.asyncSend = asyncSend;
         this.port = port;
         this.replicationFactor = replicationFactor;
         this.replicaPeers = replicaPeers;
@@ -42,6 +48,8 @@ final class IngestionConfig {
         Path dataDir = Path.of(System.getProperty("dataRepo", "data_repository/datalake_v1"));
         String brokerUrl = System.getenv().getOrDefault("ACTIVEMQ_URL", "tcp://localhost:61616");
         String queueName = System.getenv().getOrDefault("ACTIVEMQ_QUEUE", "books.ingested");
+        int publisherChannels = Integer.parseInt(System.getenv().getOrDefault("ACTIVEMQ_PUBLISHER_CHANNELS", "4"));
+        boolean asyncSend = Boolean.parseBoolean(System.getenv().getOrDefault("ACTIVEMQ_ASYNC_SEND", "false"));
         int replicationFactor = Integer.parseInt(System.getenv().getOrDefault("REPLICATION_FACTOR", "2"));
         List<String> replicaPeers = parseCommaList(System.getenv().getOrDefault("REPLICA_PEERS", ""));
         String nodeId = System.getenv().getOrDefault("NODE_ID", "crawler-" + port);
@@ -51,6 +59,8 @@ final class IngestionConfig {
                 dataDir,
                 brokerUrl,
                 queueName,
+                publisherChannels,
+                asyncSend,
                 port,
                 replicationFactor,
                 replicaPeers,
@@ -1,6 +1,7 @@
 package com.example.crawler;
 
 import com.google.gson.Gson;
+import com.stage3.messaging.ActiveMqPublisher;
 
 import java.nio.file.Path;
 import java.time.LocalDateTime;
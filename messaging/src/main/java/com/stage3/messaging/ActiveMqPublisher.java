@@ -0,0 +1,161 @@
+package com.stage3.messaging;
+
+import org.apache.activemq.ActiveMQConnectionFactory;
+
+import javax.jms.Connection;
+import javax.jms.JMSException;
+import javax.jms.MessageProducer;
+import javax.jms.Session;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.Semaphore;
+
+/**
+ * Publishes to one queue over a long-lived connection. JMS sessions are not
+ * thread-safe, so publish borrows a (session, producer) channel from a small
+ * pool; at most `channels` publishes run at once, the rest wait for a channel.
+ *
+ * A broken connection (send failure or ExceptionListener) is closed and
+ * replaced on the next publish, which retries once on the new connection.
+ * With asyncSend the broker does not acknowledge each message, which trades
+ * delivery confirmation for throughput.
+ */
+public final class ActiveMqPublisher implements AutoCloseable {
+
+    private static final int DEFAULT_CHANNELS = 4;
+
+    private final String queueName;
+    private final ActiveMQConnectionFactory factory;
+    private final Semaphore permits;
+    private final BlockingQueue<Channel> idle;
+
+    private Connection connection;
+    private long generation;
+    private boolean closed;
+
+    public ActiveMqPublisher(String brokerUrl, String queueName) {
+        this(brokerUrl, queueName, DEFAULT_CHANNELS, false);
+    }
+
+    public ActiveMqPublisher(String brokerUrl, String queueName, int channels, boolean asyncSend) {
+        this.queueName = queueName;
+        this.factory = new ActiveMQConnectionFactory(brokerUrl);
+        this.factory.setUseAsyncSend(asyncSend);
+        int n = Math.max(1, channels);
+        this.permits = new Semaphore(n);
+        this.idle = new ArrayBlockingQueue<>(n);
+    }
+
+    public void publish(String jsonPayload) {
+        JMSException failure = null;
+        for (int attempt = 0; attempt < 2; attempt++) {
+            Channel channel = null;
+            try {
+                permits.acquire();
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                throw new RuntimeException("Interrupted while publishing to ActiveMQ", e);
+            }
+            try {
+                channel = borrow();
+                channel.producer.send(channel.session.createTextMessage(jsonPayload));
+                idle.offer(channel);
+                return;
+            } catch (JMSException e) {
+                failure = e;
+                if (channel != null) {
+                    channel.close();
+                    reset(channel.generation);
+                } else {
+                    reset(currentGeneration());
+                }
+            } finally {
+                permits.release();
+            }
+        }
+        throw new RuntimeException("Failed to publish message to ActiveMQ", failure);
+    }
+
+    // Idle channel of the current connection, or a new one
+    private Channel borrow() throws JMSException {
+        Channel channel;
+        while ((channel = idle.poll()) != null) {
+            if (channel.generation == currentGeneration()) {
+                return channel;
+            }
+            channel.close();
+        }
+        return open();
+    }
+
+    private synchronized Channel open() throws JMSException {
+        if (closed) {
+            throw new JMSException("publisher closed");
+        }
+        if (connection == null) {
+            Connection c = factory.createConnection();
+            long gen = ++generation;
+            c.setExceptionListener(e -> reset(gen));
+            c.start();
+            connection = c;
+        }
+        Session session = connection.createSession(false, Session.AUTO_ACKNOWLEDGE);
+        MessageProducer producer = session.createProducer(session.createQueue(queueName));
+        return new Channel(session, producer, generation);
+    }
+
+    private synchronized long currentGeneration() {
+        return generation;
+    }
+
+    // Drops the connection if it is still the one of the failed generation
+    private synchronized void reset(long failedGeneration) {
+        if (connection == null || failedGeneration != generation) {
+            return;
+        }
+        closeQuietly(connection);
+        connection = null;
+        generation++;
+    }
+
+    @Override
+    public synchronized void close() {
+        closed = true;
+        Channel channel;
+        while ((channel = idle.poll()) != null) {
+            channel.close();
+        }
+        if (connection != null) {
+            closeQuietly(connection);
+            connection = null;
+        }
+    }
+
+    private static void closeQuietly(Connection c) {
+        try {
+            c.close();
+        } catch (JMSException ignored) {
+            // connection already broken
+        }
+    }
+
+    private static final class Channel {
+        final Session session;
+        final MessageProducer producer;
+        final long generation;
+
+        Channel(Session session, MessageProducer producer, long generation) {
+            this.session = session;
+            this.producer = producer;
+            this.generation = generation;
+        }
+
+        void close() {
+            try {
+                session.close();
+            } catch (JMSException ignored) {
+                // closed with its connection
+            }
+        }
+    }
+}
@@ -10,6 +10,8 @@ import com.hazelcast.config.MaxSizePolicy;
 import com.hazelcast.config.NearCacheConfig;
 import com.hazelcast.core.Hazelcast;
 import com.hazelcast.core.HazelcastInstance;
+import com.stage3.index.DocStats;
+import com.stage3.index.Fields;
 
 final class HazelcastClientProvider {
     HazelcastInstance connect(String host, int port, String clusterName) {
@@ -29,15 +31,18 @@ final class HazelcastClientProvider {
         clientConfig.setClusterName(clusterName);
         clientConfig.getNetworkConfig().addAddress(host + ":" + port);
 
-        NearCacheConfig nearCache = new NearCacheConfig("inverted-index");
-        nearCache.setInvalidateOnChange(true);
-        nearCache.setInMemoryFormat(InMemoryFormat.BINARY);
-        nearCache.setCacheLocalEntries(true);
-        nearCache.setEvictionConfig(new EvictionConfig()
-                .setEvictionPolicy(EvictionPolicy.NONE)
-                .setMaxSizePolicy(MaxSizePolicy.PER_NODE)
-                .setSize(0));
-        clientConfig.addNearCacheConfig(nearCache);
+        // doc-stats and field-index only change when a book is reindexed or deleted
+        for (String map : new String[]{"inverted-index", DocStats.MAP_NAME, Fields.MAP_NAME}) {
+            NearCacheConfig nearCache = new NearCacheConfig(map);
+            nearCache.setInvalidateOnChange(true);
+            nearCache.setInMemoryFormat(InMemoryFormat.BINARY);
+            nearCache.setCacheLocalEntries(true);
+            nearCache.setEvictionConfig(new EvictionConfig()
+                    .setEvictionPolicy(EvictionPolicy.NONE)
+                    .setMaxSizePolicy(MaxSizePolicy.PER_NODE)
+                    .setSize(0));
+            clientConfig.addNearCacheConfig(nearCache);
+        }
         return clientConfig;
     }
 
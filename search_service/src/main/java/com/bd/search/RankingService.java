@@ -1,21 +1,46 @@
 package com.bd.search;
 
 import com.hazelcast.core.HazelcastInstance;
-import com.hazelcast.multimap.MultiMap;
+import com.hazelcast.map.IMap;
+import com.stage3.index.CollectionStats;
+import com.stage3.index.DocStats;
+import com.stage3.index.Fields;
+import com.stage3.index.PostingKeys;
+import com.stage3.index.Postings;
+import com.stage3.text.Analyzer;
 
 import java.util.*;
 import java.util.stream.Collectors;
 
 /**
- * Service for ranking search results using TF-IDF scoring
+ * Service for ranking search results using BM25 scoring
  */
 public class RankingService {
     
+    // BM25 term frequency saturation and length normalization
+    static final double K1 = 1.2;
+    static final double B = 0.75;
+    
+    // Extra idf multiples for a query term found in the title / author line,
+    // on top of its BM25 weight (at most K1 + 1 = 2.2 idf)
+    static final double TITLE_BOOST = 2.0;
+    static final double AUTHOR_BOOST = 1.5;
+    
     /**
-     * Rank books using TF-IDF scoring
+     * Rank books using BM25 scoring
      */
     public static List<RankedBook> rankBooks(List<Book> books, String query, 
                                            HazelcastInstance hazelcastClient) {
+        return rankBooks(books, query, hazelcastClient, TITLE_BOOST, AUTHOR_BOOST);
+    }
+    
+    /**
+     * Rank books using BM25 scoring plus titleBoost / authorBoost idf multiples
+     * for a query term in a book's title / author line, as SearchService does
+     */
+    public static List<RankedBook> rankBooks(List<Book> books, String query, 
+                                           HazelcastInstance hazelcastClient,
+                                           double titleBoost, double authorBoost) {
         if (books == null || books.isEmpty() || query == null || query.trim().isEmpty()) {
             return books.stream()
                 .map(RankedBook::new)
@@ -27,11 +52,13 @@ public class RankingService {
             .collect(Collectors.toList());
         
         String[] terms = tokenize(query);
-        Map<String, Integer> termFreqs = getTermFrequencies(terms, hazelcastClient);
+        TermPostings postings = getPostings(terms, hazelcastClient);
+        Scorer scorer = postings != null
+                ? scorer(rankedBooks, hazelcastClient, titleBoost, authorBoost) : null;
         
-        // Calculate TF-IDF scores for each book
+        // Calculate BM25 scores for each book
         for (RankedBook book : rankedBooks) {
-            double tfidfScore = calculateTfIdfScore(book, terms, termFreqs);
+            double tfidfScore = calculateScore(book, terms, postings, scorer);
             book.setTfidfScore(tfidfScore);
             book.setFinalScore(tfidfScore);
         }
@@ -56,24 +83,80 @@ public class RankingService {
     }
     
     /**
-     * Calculate TF-IDF score for a book
+     * BM25 IDF of a term that occurs in documentFreq of docCount books, never negative
+     */
+    static double idf(long docCount, int documentFreq) {
+        long n = Math.max(docCount, documentFreq);
+        return Math.log(1.0 + (n - documentFreq + 0.5) / (documentFreq + 0.5));
+    }
+    
+    /**
+     * BM25 length factor k1 * (1 - b + b * length / averageLength) of every
+     * DocStats norm code, so scoring a book is a table lookup
+     */
+    static double[] lengthNorms(double averageLength) {
+        double[] norms = new double[256];
+        for (int code = 0; code < norms.length; code++) {
+            int length = DocStats.decodeLength((byte) code);
+            norms[code] = averageLength > 0 ? K1 * (1 - B + B * length / averageLength) : K1;
+        }
+        return norms;
+    }
+    
+    /**
+     * BM25 length factor of a book; books without stats count as average length
+     */
+    static double lengthNorm(double[] norms, DocStats stats) {
+        return stats == null ? K1 : norms[Byte.toUnsignedInt(stats.norm())];
+    }
+    
+    /**
+     * Saturating BM25 TF weight, so a term repeated 1000 times does not drown out the others
      */
-    private static double calculateTfIdfScore(RankedBook book, String[] terms, 
-                                            Map<String, Integer> termFreqs) {
+    static double tfWeight(int tf, double lengthNorm) {
+        return tf > 0 ? tf * (K1 + 1) / (tf + lengthNorm) : 0.0;
+    }
+    
+    /**
+     * Boost of a field-index posting: the boosts of the Fields bits set in its mask
+     */
+    static double fieldWeight(int mask, double titleBoost, double authorBoost) {
+        double weight = 0.0;
+        if ((mask & Fields.TITLE) != 0) weight += titleBoost;
+        if ((mask & Fields.AUTHOR) != 0) weight += authorBoost;
+        return weight;
+    }
+    
+    /**
+     * Calculate BM25 score for a book
+     */
+    private static double calculateScore(RankedBook book, String[] terms, 
+                                         TermPostings postings, Scorer scorer) {
         double score = 0.0;
-        int totalBooks = 100000; // Approximate total books in collection
         
         for (String term : terms) {
-            int documentFreq = termFreqs.getOrDefault(term, 1);
+            if (postings == null) {
+                // Index unavailable: every term counts the same
+                score += 1.0;
+                continue;
+            }
             
-            if (documentFreq > 0) {
-                // Calculate IDF: log(total_docs / doc_freq)
-                double idf = Math.log((double) totalBooks / documentFreq);
-                
-                // For simplicity, TF is 1.0 (term appears in the document)
-                double tf = 1.0;
-                
-                score += tf * idf;
+            Postings termPostings = postings.body().get(term);
+            if (termPostings == null) {
+                continue;
+            }
+            
+            double idf = idf(scorer.docCount, termPostings.size());
+            int tf = termPostings.tfOf(book.getBookId());
+            if (tf > 0) {
+                double norm = lengthNorm(scorer.norms, scorer.stats.get(book.getBookId()));
+                score += tfWeight(tf, norm) * idf;
+            }
+            
+            // Title/author match: the field posting's "tf" is the Fields bitmask
+            Postings fieldPostings = postings.fields().get(term);
+            if (fieldPostings != null) {
+                score += fieldWeight(fieldPostings.tfOf(book.getBookId()), scorer.titleBoost, scorer.authorBoost) * idf;
             }
         }
         
@@ -84,60 +167,74 @@ public class RankingService {
         return Math.max(0.001, normalizedScore);
     }
     
+    private record Scorer(long docCount, double[] norms, Map<Integer, DocStats> stats,
+                          double titleBoost, double authorBoost) {
+    }
+    
+    /** Body postings and title/author field postings of the query terms, by term */
+    private record TermPostings(Map<String, Postings> body, Map<String, Postings> fields) {
+    }
+    
     /**
-     * Get term frequencies from inverted index
+     * Collection totals plus the DocStats of every book, fetched with one getAll
      */
-    private static Map<String, Integer> getTermFrequencies(String[] terms, 
-                                                          HazelcastInstance hazelcastClient) {
-        Map<String, Integer> frequencies = new HashMap<>();
-        
+    private static Scorer scorer(List<RankedBook> books, HazelcastInstance hazelcastClient,
+                                 double titleBoost, double authorBoost) {
+        try {
+            IMap<String, CollectionStats> collection = hazelcastClient.getMap(CollectionStats.MAP_NAME);
+            IMap<Integer, DocStats> docStats = hazelcastClient.getMap(DocStats.MAP_NAME);
+            CollectionStats totals = collection.get(CollectionStats.KEY);
+            Set<Integer> ids = books.stream().map(RankedBook::getBookId).collect(Collectors.toSet());
+            return new Scorer(
+                    totals != null ? totals.docCount() : 0,
+                    lengthNorms(totals != null ? totals.averageLength() : 0),
+                    docStats.getAll(ids),
+                    titleBoost,
+                    authorBoost);
+        } catch (Exception e) {
+            System.err.println("Error getting doc stats: " + e.getMessage());
+            return new Scorer(0, lengthNorms(0), Map.of(), titleBoost, authorBoost);
+        }
+    }
+    
+    /**
+     * Fetch the body and field posting lists of every query term: their keys (the term, or
+     * its id from the dictionary), then one getAll per map. Returns null if the index cannot be reached.
+     */
+    private static TermPostings getPostings(String[] terms, 
+                                            HazelcastInstance hazelcastClient) {
         if (hazelcastClient == null) {
-            // Fallback: use default frequency
-            for (String term : terms) {
-                frequencies.put(term, 1000);
-            }
-            return frequencies;
+            return null;
         }
         
         try {
-            MultiMap<String, Integer> invertedIndex = hazelcastClient.getMultiMap("inverted-index");
-            
-            for (String term : terms) {
-                Collection<Integer> docs = invertedIndex.get(term);
-                frequencies.put(term, docs != null ? docs.size() : 1);
-            }
-            
+            Map<String, Object> termKeys = PostingKeys.fromEnv(hazelcastClient).keysOf(Arrays.asList(terms));
+            IMap<Object, Postings> invertedIndex = hazelcastClient.getMap("inverted-index");
+            IMap<Object, Postings> fieldIndex = hazelcastClient.getMap(Fields.MAP_NAME);
+            Set<Object> keys = new HashSet<>(termKeys.values());
+            return new TermPostings(byTerm(termKeys, invertedIndex.getAll(keys)), byTerm(termKeys, fieldIndex.getAll(keys)));
         } catch (Exception e) {
-            System.err.println("Error getting term frequencies: " + e.getMessage());
-            // Fallback to default
-            for (String term : terms) {
-                frequencies.put(term, 1000);
-            }
+            System.err.println("Error getting postings: " + e.getMessage());
+            return null;
         }
-        
-        return frequencies;
+    }
+    
+    private static Map<String, Postings> byTerm(Map<String, Object> termKeys, Map<Object, Postings> postingsByKey) {
+        Map<String, Postings> postings = new HashMap<>();
+        termKeys.forEach((term, key) -> {
+            Postings p = postingsByKey.get(key);
+            if (p != null) postings.put(term, p);
+        });
+        return postings;
     }
     
     /**
-     * Tokenize query text using same logic as indexer
+     * Tokenize query text with the analyzer the indexer uses
      */
     private static String[] tokenize(String text) {
         if (text == null || text.isBlank()) {
             return new String[0];
         }
-        
-        // Normalize: lowercase, replace non-letter/digit with space
-        String cleaned = text.toLowerCase(Locale.ROOT)
-            .replaceAll("[^\\p{L}\\p{Nd}]+", " ")
-            .trim();
-        
-        if (cleaned.isEmpty()) {
-            return new String[0];
-        }
-        
-        // Split and filter by min length
-        return Arrays.stream(cleaned.split("\\s+"))
-            .filter(token -> token.length() >= 2)
-            .toArray(String[]::new);
+        return Analyzer.tokens(text).toArray(new String[0]);
     }
 }
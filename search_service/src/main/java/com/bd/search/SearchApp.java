@@ -17,10 +17,14 @@ public class SearchApp {
         int hazelcastPort = Integer.parseInt(System.getenv().getOrDefault("HAZELCAST_PORT", "5701"));
         int serverPort = Integer.parseInt(System.getenv().getOrDefault("PORT", "8080"));
         String clusterName = System.getenv().getOrDefault("HZ_CLUSTER", "search-cluster");
+        double titleBoost = Double.parseDouble(System.getenv().getOrDefault(
+                "SEARCH_TITLE_BOOST", String.valueOf(RankingService.TITLE_BOOST)));
+        double authorBoost = Double.parseDouble(System.getenv().getOrDefault(
+                "SEARCH_AUTHOR_BOOST", String.valueOf(RankingService.AUTHOR_BOOST)));
 
         HazelcastClientProvider clientProvider = new HazelcastClientProvider();
         HazelcastInstance hazelcastClient = clientProvider.connect(hazelcastHost, hazelcastPort, clusterName);
-        SearchService searchService = new SearchService(hazelcastClient);
+        SearchService searchService = new SearchService(hazelcastClient, titleBoost, authorBoost);
 
         Javalin app = Javalin.create(config -> config.http.defaultContentType = "application/json")
                 .start(serverPort);
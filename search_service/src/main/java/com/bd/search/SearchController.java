@@ -40,7 +40,10 @@ final class SearchController {
             String limitParam = ctx.queryParam("limit");
             int limit = limitParam != null ? Integer.parseInt(limitParam) : 100;
 
-            SearchResult result = searchService.search(query, limit);
+            // op=and: only books containing every term, default op=or
+            boolean matchAll = "and".equalsIgnoreCase(ctx.queryParam("op"));
+
+            SearchResult result = searchService.search(query, limit, matchAll);
 
             Map<String, Object> response = new HashMap<>();
             response.put("query", result.query);
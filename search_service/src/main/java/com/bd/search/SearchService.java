@@ -1,31 +1,64 @@
 package com.bd.search;
 
 import com.hazelcast.core.HazelcastInstance;
-import com.hazelcast.multimap.MultiMap;
+import com.hazelcast.map.IMap;
+import com.stage3.index.CollectionStats;
+import com.stage3.index.DocIdSet;
+import com.stage3.index.DocStats;
+import com.stage3.index.Fields;
+import com.stage3.index.PostingKeys;
+import com.stage3.index.Postings;
+import com.stage3.text.Analyzer;
 
 import java.util.ArrayList;
-import java.util.Arrays;
-import java.util.Collection;
 import java.util.Collections;
-import java.util.HashMap;
+import java.util.HashSet;
+import java.util.LinkedHashSet;
 import java.util.List;
-import java.util.Locale;
 import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.CompletableFuture;
+import java.util.stream.IntStream;
 
 final class SearchService {
-    private final MultiMap<String, Integer> invertedIndex;
+    private final IMap<Object, Postings> invertedIndex;
+    private final IMap<Object, Postings> fieldIndex;
+    private final IMap<Integer, DocStats> docStats;
+    private final IMap<String, CollectionStats> collectionStats;
+    private final PostingKeys keys;
+    private final double titleBoost;
+    private final double authorBoost;
 
     SearchService(HazelcastInstance hazelcastClient) {
-        this.invertedIndex = hazelcastClient.getMultiMap("inverted-index");
+        this(hazelcastClient, RankingService.TITLE_BOOST, RankingService.AUTHOR_BOOST);
+    }
+
+    /** titleBoost / authorBoost: idf multiples added for a query term in a book's title / author. */
+    SearchService(HazelcastInstance hazelcastClient, double titleBoost, double authorBoost) {
+        this.invertedIndex = hazelcastClient.getMap("inverted-index");
+        this.fieldIndex = hazelcastClient.getMap(Fields.MAP_NAME);
+        this.docStats = hazelcastClient.getMap(DocStats.MAP_NAME);
+        this.collectionStats = hazelcastClient.getMap(CollectionStats.MAP_NAME);
+        this.keys = PostingKeys.fromEnv(hazelcastClient);
+        this.titleBoost = titleBoost;
+        this.authorBoost = authorBoost;
     }
 
     SearchResult search(String query, int limit) {
+        return search(query, limit, false);
+    }
+
+    /**
+     * matchAll = true returns only books containing every query term (AND),
+     * otherwise books containing any of them (OR).
+     */
+    SearchResult search(String query, int limit, boolean matchAll) {
         if (query == null || query.trim().isEmpty()) {
             return new SearchResult("", 0, List.of(), 0);
         }
 
         long startTime = System.currentTimeMillis();
-        List<String> rankedResults = searchAndRank(query);
+        List<String> rankedResults = searchAndRank(query, matchAll);
         long searchTime = System.currentTimeMillis() - startTime;
 
         List<String> limitedResults = rankedResults.stream()
@@ -35,7 +68,7 @@ final class SearchService {
         return new SearchResult(query, rankedResults.size(), limitedResults, searchTime);
     }
 
-    private List<String> searchAndRank(String query) {
+    private List<String> searchAndRank(String query, boolean matchAll) {
         if (invertedIndex == null) {
             return Collections.emptyList();
         }
@@ -45,28 +78,105 @@ final class SearchService {
             return Collections.emptyList();
         }
 
-        Map<Integer, Integer> documentScores = new HashMap<>();
-        for (String token : tokens) {
-            Collection<Integer> docs = invertedIndex.get(token);
-            for (Integer docId : docs) {
-                documentScores.put(docId, documentScores.getOrDefault(docId, 0) + 1);
+        // Collection totals are fetched while the postings are
+        CompletableFuture<CollectionStats> totals = collectionStats.getAsync(CollectionStats.KEY).toCompletableFuture();
+
+        // Keyed by term, or by term ids from the local dictionary cache (one getAll for
+        // unseen terms), then one getAll for every posting list; the postings already carry tf
+        Set<String> terms = new LinkedHashSet<>(tokens);
+        Map<String, Object> termKeys = keys.keysOf(terms);
+        Set<Object> wanted = new HashSet<>(termKeys.values());
+        Map<Object, Postings> postingsByKey = wanted.isEmpty() ? Map.of() : invertedIndex.getAll(wanted);
+
+        // Boolean match on the compressed doc-id sets
+        List<Postings> matched = new ArrayList<>(terms.size());
+        List<Object> matchedKeys = new ArrayList<>(terms.size());
+        DocIdSet candidates = null;
+        for (String term : terms) {
+            Object key = termKeys.get(term);
+            Postings postings = key == null ? null : postingsByKey.get(key);
+            if (postings == null || postings.isEmpty()) {
+                if (matchAll) {
+                    return Collections.emptyList();
+                }
+                continue;
             }
+            matched.add(postings);
+            matchedKeys.add(key);
+            if (candidates == null) {
+                candidates = postings.docs();
+            } else {
+                candidates = matchAll
+                        ? DocIdSet.and(candidates, postings.docs())
+                        : DocIdSet.or(candidates, postings.docs());
+            }
+        }
+        if (candidates == null || candidates.isEmpty()) {
+            return Collections.emptyList();
+        }
+
+        // BM25 length factor of every candidate, from one getAll of their DocStats
+        int[] docIds = candidates.toArray();
+        Set<Integer> keys = new HashSet<>(docIds.length * 2);
+        for (int docId : docIds) {
+            keys.add(docId);
+        }
+        Map<Integer, DocStats> stats = docStats.getAll(keys);
+        CollectionStats collection = totals.join();
+        long docCount = collection != null ? collection.docCount() : 0;
+        double[] norms = RankingService.lengthNorms(collection != null ? collection.averageLength() : 0);
+        double[] lengthNorm = new double[docIds.length];
+        for (int i = 0; i < docIds.length; i++) {
+            lengthNorm[i] = RankingService.lengthNorm(norms, stats.get(docIds[i]));
         }
 
-        List<Map.Entry<Integer, Integer>> sortedEntries = new ArrayList<>(documentScores.entrySet());
-        sortedEntries.sort((a, b) -> b.getValue().compareTo(a.getValue()));
+        // Title/author postings of the matched terms; their "tf" is the Fields bitmask
+        Map<Object, Postings> fieldsByKey = fieldIndex.getAll(new HashSet<>(matchedKeys));
 
-        return sortedEntries.stream()
-                .map(entry -> "doc_" + entry.getKey())
+        // Score the candidates; both sides are in book-id order, so each term is one merge walk
+        double[] scores = new double[docIds.length];
+        for (int t = 0; t < matched.size(); t++) {
+            Postings postings = matched.get(t);
+            double idf = RankingService.idf(docCount, postings.size());
+            merge(postings, docIds, (i, tf) -> scores[i] += RankingService.tfWeight(tf, lengthNorm[i]) * idf);
+
+            Postings fields = fieldsByKey.get(matchedKeys.get(t));
+            if (fields != null) {
+                merge(fields, docIds, (i, mask) ->
+                        scores[i] += RankingService.fieldWeight(mask, titleBoost, authorBoost) * idf);
+            }
+        }
+
+        return IntStream.range(0, docIds.length)
+                .boxed()
+                .sorted((a, b) -> Double.compare(scores[b], scores[a]))
+                .map(i -> "doc_" + docIds[i])
                 .toList();
     }
 
+    // Calls hit(index into docIds, value) for every posting whose book is a candidate
+    private static void merge(Postings postings, int[] docIds, Hit hit) {
+        int[] cursor = {0};
+        postings.forEach((bookId, value) -> {
+            int i = cursor[0];
+            while (i < docIds.length && docIds[i] < bookId) {
+                i++;
+            }
+            if (i < docIds.length && docIds[i] == bookId) {
+                hit.accept(i, value);
+            }
+            cursor[0] = i;
+        });
+    }
+
+    private interface Hit {
+        void accept(int index, int value);
+    }
+
     private List<String> tokenize(String text) {
         if (text == null || text.isBlank()) {
             return List.of();
         }
-        return Arrays.stream(text.toLowerCase(Locale.ROOT).split("\\W+"))
-                .filter(token -> !token.isBlank())
-                .toList();
+        return Analyzer.tokens(text);
     }
 }
@@ -0,0 +1,66 @@
+package com.bd.search;
+
+import com.hazelcast.config.Config;
+import com.hazelcast.core.Hazelcast;
+import com.hazelcast.core.HazelcastInstance;
+import com.hazelcast.map.IMap;
+import com.stage3.index.Fields;
+import com.stage3.index.Postings;
+import org.junit.jupiter.api.AfterAll;
+import org.junit.jupiter.api.BeforeAll;
+import org.junit.jupiter.api.Test;
+
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+public final class FieldBoostTest {
+
+    private static HazelcastInstance hz;
+
+    @BeforeAll
+    static void start() {
+        Config config = new Config();
+        config.setClusterName("field-boost-test");
+        config.getNetworkConfig().getJoin().getMulticastConfig().setEnabled(false);
+        config.getNetworkConfig().getJoin().getTcpIpConfig().setEnabled(false);
+        hz = Hazelcast.newHazelcastInstance(config);
+
+        // book 1 says "whale" more often, book 2 has it in its title
+        Postings body = new Postings();
+        body.put(1, 6);
+        body.put(2, 2);
+        IMap<String, Postings> invertedIndex = hz.getMap("inverted-index");
+        invertedIndex.set("whale", body);
+
+        Postings fields = new Postings();
+        fields.put(2, Fields.TITLE);
+        IMap<String, Postings> fieldIndex = hz.getMap(Fields.MAP_NAME);
+        fieldIndex.set("whale", fields);
+    }
+
+    @AfterAll
+    static void stop() {
+        if (hz != null) hz.shutdown();
+    }
+
+    @Test
+    void titleMatchOutranksHigherBodyTf() {
+        assertEquals(List.of("doc_2", "doc_1"), new SearchService(hz).search("whale", 10).documents);
+        assertEquals(List.of("doc_1", "doc_2"), new SearchService(hz, 0, 0).search("whale", 10).documents);
+    }
+
+    @Test
+    void rankBooksAppliesTheFieldBoost() {
+        List<Book> books = List.of(
+                new Book(1, "Sea Stories", "Anon", "en", null),
+                new Book(2, "The Whale", "Anon", "en", null));
+
+        assertEquals(List.of(2, 1), bookIds(RankingService.rankBooks(books, "whale", hz)));
+        assertEquals(List.of(1, 2), bookIds(RankingService.rankBooks(books, "whale", hz, 0, 0)));
+    }
+
+    private static List<Integer> bookIds(List<RankedBook> ranked) {
+        return ranked.stream().map(RankedBook::getBookId).toList();
+    }
+}
@@ -0,0 +1,228 @@
+package com.stage3.text;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.function.Supplier;
+
+/**
+ * Single-pass tokenizer used for both indexed text and queries.
+ * Scans code points, keeps letters and decimal digits, lowercases them into a
+ * reusable buffer and emits every run of at least MIN_TOKEN_LENGTH chars.
+ * Everything else separates tokens. No per-token or per-text allocation.
+ *
+ * Text can be fed in chunks (feed ... finish); a token or surrogate pair
+ * split across chunks is carried over. Instances are not thread-safe.
+ *
+ * Optional vector backend (enableVectorBackend, needs --add-modules
+ * jdk.incubator.vector): feed(char[]) then classifies and lowercases 64-char
+ * blocks of pure ASCII with SIMD and copies whole token runs; blocks with any
+ * non-ASCII char take the scalar path. Tokens are identical either way.
+ */
+public final class Analyzer {
+
+    public static final int MIN_TOKEN_LENGTH = 2;
+
+    private static final String VECTOR_SCANNER = "com.stage3.text.VectorAsciiBlockScanner";
+    private static volatile Supplier<AsciiBlockScanner> defaultBlocks;
+
+    private final AsciiBlockScanner blocks;
+    private final char[] lowered;
+    private char[] token = new char[64];
+    private int len;
+    private char pendingHigh;
+
+    /** Uses the vector backend if enableVectorBackend succeeded, the scalar one otherwise. */
+    public Analyzer() {
+        this(defaultBlocks != null ? defaultBlocks.get() : null);
+    }
+
+    private Analyzer(AsciiBlockScanner blocks) {
+        this.blocks = blocks;
+        this.lowered = blocks != null ? new char[AsciiBlockScanner.BLOCK] : null;
+    }
+
+    /** Scalar analyzer regardless of the default backend. */
+    public static Analyzer scalar() {
+        return new Analyzer(null);
+    }
+
+    /** Analyzer on the vector backend; throws UnsupportedOperationException without jdk.incubator.vector. */
+    public static Analyzer vector() {
+        return new Analyzer(vectorScanner().get());
+    }
+
+    /**
+     * Makes new Analyzers use the vector backend. Returns false, keeping the
+     * scalar backend, when the jdk.incubator.vector module is not available.
+     */
+    public static boolean enableVectorBackend() {
+        try {
+            defaultBlocks = vectorScanner();
+            return true;
+        } catch (UnsupportedOperationException e) {
+            return false;
+        }
+    }
+
+    public static boolean vectorBackendEnabled() {
+        return defaultBlocks != null;
+    }
+
+    private static Supplier<AsciiBlockScanner> vectorScanner() {
+        try {
+            var ctor = Class.forName(VECTOR_SCANNER).getDeclaredConstructor();
+            ctor.newInstance();
+            return () -> {
+                try {
+                    return (AsciiBlockScanner) ctor.newInstance();
+                } catch (ReflectiveOperationException e) {
+                    throw new IllegalStateException(e);
+                }
+            };
+        } catch (ReflectiveOperationException | LinkageError e) {
+            throw new UnsupportedOperationException("vector backend needs --add-modules jdk.incubator.vector", e);
+        }
+    }
+
+    /** Tokenizes the whole text in one call. */
+    public void analyze(CharSequence text, TokenSink sink) {
+        reset();
+        feed(text, sink);
+        finish(sink);
+    }
+
+    public void feed(CharSequence chunk, TokenSink sink) {
+        int n = chunk.length();
+        for (int i = 0; i < n; i++) {
+            accept(chunk.charAt(i), sink);
+        }
+    }
+
+    public void feed(char[] chunk, int off, int count, TokenSink sink) {
+        int end = off + count;
+        int i = off;
+        if (blocks != null) {
+            for (; end - i >= AsciiBlockScanner.BLOCK; i += AsciiBlockScanner.BLOCK) {
+                if (pendingHigh == 0 && blocks.scan(chunk, i, lowered)) {
+                    acceptAsciiBlock(blocks.tokenMask(), sink);
+                } else {
+                    for (int k = i; k < i + AsciiBlockScanner.BLOCK; k++) {
+                        accept(chunk[k], sink);
+                    }
+                }
+            }
+        }
+        for (; i < end; i++) {
+            accept(chunk[i], sink);
+        }
+    }
+
+    /** Flushes the token in progress; the analyzer is ready for the next text afterwards. */
+    public void finish(TokenSink sink) {
+        if (pendingHigh != 0) {
+            pendingHigh = 0;
+            flush(sink);
+        }
+        flush(sink);
+    }
+
+    public void reset() {
+        len = 0;
+        pendingHigh = 0;
+    }
+
+    /** Convenience for short texts such as queries. */
+    public static List<String> tokens(CharSequence text) {
+        List<String> out = new ArrayList<>();
+        if (text == null) return out;
+        new Analyzer().analyze(text, (buf, n) -> out.add(new String(buf, 0, n)));
+        return out;
+    }
+
+    private void accept(char c, TokenSink sink) {
+        if (pendingHigh != 0) {
+            char high = pendingHigh;
+            pendingHigh = 0;
+            if (Character.isLowSurrogate(c)) {
+                acceptCodePoint(Character.toCodePoint(high, c), sink);
+                return;
+            }
+            flush(sink);
+        }
+        if (c < 0x80) {
+            // ASCII fast path
+            if (c >= 'a' && c <= 'z' || c >= '0' && c <= '9') {
+                append(c);
+            } else if (c >= 'A' && c <= 'Z') {
+                append((char) (c + ('a' - 'A')));
+            } else {
+                flush(sink);
+            }
+            return;
+        }
+        if (Character.isHighSurrogate(c)) {
+            pendingHigh = c;
+            return;
+        }
+        acceptCodePoint(c, sink);
+    }
+
+    // lowered holds the block, mask bit i marks a token char; runs of set bits are copied at once
+    private void acceptAsciiBlock(long mask, TokenSink sink) {
+        int j = 0;
+        while (j < AsciiBlockScanner.BLOCK) {
+            long rest = mask >>> j;
+            if ((rest & 1) == 0) {
+                flush(sink);
+                if (rest == 0) {
+                    return;
+                }
+                j += Long.numberOfTrailingZeros(rest);
+            } else {
+                int run = Math.min(Long.numberOfTrailingZeros(~rest), AsciiBlockScanner.BLOCK - j);
+                appendRun(j, run);
+                j += run;
+            }
+        }
+    }
+
+    private void appendRun(int from, int n) {
+        if (len + n > token.length) {
+            char[] grown = new char[Math.max(token.length * 2, len + n)];
+            System.arraycopy(token, 0, grown, 0, len);
+            token = grown;
+        }
+        System.arraycopy(lowered, from, token, len, n);
+        len += n;
+    }
+
+    private void acceptCodePoint(int cp, TokenSink sink) {
+        int lower = Character.toLowerCase(cp);
+        if (Character.isLetter(lower) || Character.getType(lower) == Character.DECIMAL_DIGIT_NUMBER) {
+            if (Character.isBmpCodePoint(lower)) {
+                append((char) lower);
+            } else {
+                append(Character.highSurrogate(lower));
+                append(Character.lowSurrogate(lower));
+            }
+        } else {
+            flush(sink);
+        }
+    }
+
+    private void append(char c) {
+        if (len == token.length) {
+            char[] grown = new char[len * 2];
+            System.arraycopy(token, 0, grown, 0, len);
+            token = grown;
+        }
+        token[len++] = c;
+    }
+
+    private void flush(TokenSink sink) {
+        if (len >= MIN_TOKEN_LENGTH) {
+            sink.token(token, len);
+        }
+        len = 0;
+    }
+}
@@ -0,0 +1,19 @@
+package com.stage3.text;
+
+/**
+ * Classifies and lowercases a block of BLOCK chars at once for Analyzer's
+ * ASCII fast path. Implementations keep per-instance state, one per Analyzer.
+ */
+interface AsciiBlockScanner {
+
+    int BLOCK = 64;
+
+    /**
+     * If in[off, off + BLOCK) is all ASCII: writes it lowercased to lowered[0, BLOCK),
+     * sets tokenMask (bit i = char i is a letter or digit) and returns true.
+     * Returns false, leaving lowered undefined, if any char is not ASCII.
+     */
+    boolean scan(char[] in, int off, char[] lowered);
+
+    long tokenMask();
+}
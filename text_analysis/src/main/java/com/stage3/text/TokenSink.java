@@ -0,0 +1,10 @@
+package com.stage3.text;
+
+/**
+ * Receives tokens from an Analyzer.
+ * The buffer is reused for the next token, so copy what you need to keep.
+ */
+@FunctionalInterface
+public interface TokenSink {
+    void token(char[] buf, int len);
+}
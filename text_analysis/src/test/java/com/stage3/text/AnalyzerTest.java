@@ -0,0 +1,85 @@
+package com.stage3.text;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Locale;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+public final class AnalyzerTest {
+
+    private static final String TEXT = """
+            *** START OF THE PROJECT GUTENBERG EBOOK ***
+            Title: Pride and Prejudice
+            It is a truth universally acknowledged, that a single man in possession
+            of a good fortune, must be in want of a wife. (Chapter 1, 1813)
+            café naïve Ünïcödé — 東京 x y 12 a1 ΑΒΓ δ 𝐀𝐁𝐂 don't e-mail
+            """;
+
+    @Test
+    void matchesLegacyRegexTokenizer() {
+        assertEquals(legacyTokenize(TEXT), Analyzer.tokens(TEXT));
+    }
+
+    @Test
+    void chunkedFeedMatchesSingleCall() {
+        List<String> expected = Analyzer.tokens(TEXT);
+        char[] chars = TEXT.toCharArray();
+
+        // every chunk size, so tokens and surrogate pairs get split at every offset
+        for (int chunk = 1; chunk <= 17; chunk++) {
+            List<String> actual = new ArrayList<>();
+            TokenSink sink = (buf, len) -> actual.add(new String(buf, 0, len));
+            Analyzer analyzer = new Analyzer();
+            for (int off = 0; off < chars.length; off += chunk) {
+                analyzer.feed(chars, off, Math.min(chunk, chars.length - off), sink);
+            }
+            analyzer.finish(sink);
+            assertEquals(expected, actual, "chunk size " + chunk);
+        }
+    }
+
+    @Test
+    void vectorBackendMatchesScalar() {
+        // long ASCII runs, tokens crossing 64-char blocks, and non-ASCII spans in between
+        StringBuilder sb = new StringBuilder();
+        for (int i = 0; i < 40; i++) {
+            sb.append(TEXT).append("Supercalifragilisticexpialidocious".repeat(i % 4)).append(' ')
+                    .append("x".repeat(i)).append(i % 3 == 0 ? "\n" : ", ");
+        }
+        char[] chars = sb.toString().toCharArray();
+
+        for (int chunk : new int[]{1, 63, 64, 65, 200, 8_192}) {
+            assertEquals(feedAll(Analyzer.scalar(), chars, chunk), feedAll(Analyzer.vector(), chars, chunk),
+                    "chunk size " + chunk);
+        }
+    }
+
+    @Test
+    void dropsShortTokensAndSeparators() {
+        assertEquals(List.of("ab", "cd12"), Analyzer.tokens("a ab -- C cD12 !"));
+        assertEquals(List.of(), Analyzer.tokens("   ...  "));
+    }
+
+    private static List<String> feedAll(Analyzer analyzer, char[] chars, int chunk) {
+        List<String> out = new ArrayList<>();
+        TokenSink sink = (buf, len) -> out.add(new String(buf, 0, len));
+        for (int off = 0; off < chars.length; off += chunk) {
+            analyzer.feed(chars, off, Math.min(chunk, chars.length - off), sink);
+        }
+        analyzer.finish(sink);
+        return out;
+    }
+
+    private static List<String> legacyTokenize(String text) {
+        String cleaned = text.toLowerCase(Locale.ROOT)
+                .replaceAll("[^\\p{L}\\p{Nd}]+", " ")
+                .trim();
+        return Arrays.stream(cleaned.split("\\s+"))
+                .filter(p -> p.length() >= 2)
+                .toList();
+    }
+}